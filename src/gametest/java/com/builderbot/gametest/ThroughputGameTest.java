@@ -0,0 +1,74 @@
+package com.builderbot.gametest;
+
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents;
+import net.fabricmc.fabric.api.gametest.v1.FabricGameTest;
+import net.minecraft.test.GameTest;
+import net.minecraft.test.TestContext;
+import net.minecraft.util.math.BlockPos;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Headless throughput suite: {@code ./gradlew runGametest} boots a server without a
+ * client and builds generated schematics with every batching mode and budget.
+ *
+ * Each size is its own test in its own batch, so the cases build one after another
+ * at the test's position in the GameTest world, never next to each other or in a
+ * player's world. Results go to builderbot/benchmarks/throughput-<size>-*.json in
+ * the run directory.
+ */
+public class ThroughputGameTest implements FabricGameTest {
+    private static final Logger LOGGER = LoggerFactory.getLogger("BuilderBot");
+
+    // 3 modes x 2 budgets per size, each bounded by the suite's own case timeout
+    private static final int TIMEOUT_TICKS = 6 * ThroughputSuite.MAX_TICKS_PER_CASE + 1200;
+
+    // Suite of the running test, ticked around every server tick
+    private static ThroughputSuite active;
+
+    static {
+        ServerTickEvents.START_SERVER_TICK.register(server -> {
+            if (active != null) {
+                active.onTickStart();
+            }
+        });
+        ServerTickEvents.END_SERVER_TICK.register(server -> {
+            if (active != null) {
+                active.onTickEnd();
+            }
+        });
+    }
+
+    @GameTest(templateName = EMPTY_STRUCTURE, batchId = "builderbot_throughput_small", timeoutTicks = TIMEOUT_TICKS)
+    public void small(TestContext context) {
+        run(context, "16x16x16", new int[]{16, 16, 16});
+    }
+
+    @GameTest(templateName = EMPTY_STRUCTURE, batchId = "builderbot_throughput_medium", timeoutTicks = TIMEOUT_TICKS)
+    public void medium(TestContext context) {
+        run(context, "48x24x48", new int[]{48, 24, 48});
+    }
+
+    @GameTest(templateName = EMPTY_STRUCTURE, batchId = "builderbot_throughput_large", timeoutTicks = TIMEOUT_TICKS)
+    public void large(TestContext context) {
+        run(context, "96x32x96", new int[]{96, 32, 96});
+    }
+
+    private static void run(TestContext context, String label, int[] size) {
+        if (active != null) {
+            // Left over from a test that timed out
+            active.cancel();
+        }
+
+        ThroughputSuite suite = new ThroughputSuite(context.getWorld(), context.getAbsolutePos(new BlockPos(0, 1, 0)),
+                new int[][]{size}, label, message -> LOGGER.info("[throughput] {}", message));
+        active = suite;
+
+        context.addFinalTask(() -> {
+            context.assertTrue(suite.isFinished(), "Throughput cases still running");
+            if (active == suite) {
+                active = null;
+            }
+        });
+    }
+}
@@ -0,0 +1,355 @@
+package com.builderbot.gametest;
+
+import com.builderbot.BuilderBotMod;
+import com.builderbot.builder.BuildExecutor;
+import com.builderbot.builder.EffectAggregator;
+import com.builderbot.placement.SchematicPlacement;
+import com.builderbot.schematic.BlockEntry;
+import com.builderbot.schematic.BuildLayer;
+import com.builderbot.schematic.SchematicGenerator;
+import com.builderbot.schematic.SchematicLoader;
+import com.builderbot.schematic.TutorialSchematic;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import net.fabricmc.loader.api.FabricLoader;
+import net.minecraft.SharedConstants;
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockState;
+import net.minecraft.block.Blocks;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.BlockBox;
+import net.minecraft.util.math.BlockPos;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Measures real build throughput on a headless server.
+ *
+ * Generates schematics of the given sizes and builds each one with every batching
+ * mode and per-tick block budget, one case after another, all at the same origin.
+ * Each case records blocks per second, mean and max MSPT, the build's own time per
+ * tick, bytes allocated per block, chunk waits and how many blocks match the
+ * schematic afterwards; then its blocks are removed again. Results are written as
+ * JSON to builderbot/benchmarks.
+ *
+ * Run by the GameTest server ({@code ./gradlew runGametest}) in its own test world,
+ * never in a player's world. Ticked by the caller: {@link #onTickStart()} and
+ * {@link #onTickEnd()} around each server tick.
+ */
+public class ThroughputSuite {
+    private static final Logger LOGGER = LoggerFactory.getLogger("BuilderBot");
+
+    // A case that takes longer than this is stopped and reported as timed out
+    public static final int MAX_TICKS_PER_CASE = 6000;
+
+    /**
+     * Batching options of a case.
+     */
+    public enum Mode {
+        VANILLA(false, BuildExecutor.UpdateMode.IMMEDIATE, 0),
+        DEFERRED(false, BuildExecutor.UpdateMode.DEFERRED, 20),
+        FAST_FILL(true, BuildExecutor.UpdateMode.DEFERRED, 20);
+
+        final boolean fastFill;
+        final BuildExecutor.UpdateMode updateMode;
+        final int lightFlushInterval;
+
+        Mode(boolean fastFill, BuildExecutor.UpdateMode updateMode, int lightFlushInterval) {
+            this.fastFill = fastFill;
+            this.updateMode = updateMode;
+            this.lightFlushInterval = lightFlushInterval;
+        }
+    }
+
+    private record Case(String name, int sizeX, int sizeY, int sizeZ, Mode mode, int blocksPerTick) {
+    }
+
+    private static final int[] BUDGETS = {256, 4096};
+
+    private final ServerWorld world;
+    private final BlockPos origin;
+    private final String label;
+    private final Consumer<String> messages;
+    private final List<Case> cases = new ArrayList<>();
+    private final JsonArray results = new JsonArray();
+    private final EffectAggregator effects = new EffectAggregator();
+    private final com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private int caseIndex = -1;
+    private boolean finished;
+
+    // Current case
+    private BuildExecutor executor;
+    private SchematicPlacement placement;
+    private TutorialSchematic schematic;
+    private int ticks;
+    private long startNanos;
+    private long tickStartNanos;
+    private long tickNanosTotal;
+    private long tickNanosMax;
+    private long buildNanosTotal;
+    private long allocatedBytes;
+
+    /**
+     * Sets up a case for every size, mode and budget. Sizes are {x, y, z}; the label
+     * names the results file.
+     */
+    public ThroughputSuite(ServerWorld world, BlockPos origin, int[][] sizes, String label, Consumer<String> messages) {
+        this.world = world;
+        this.origin = origin;
+        this.label = label;
+        this.messages = messages;
+
+        for (int[] size : sizes) {
+            for (Mode mode : Mode.values()) {
+                for (int budget : BUDGETS) {
+                    String name = size[0] + "x" + size[1] + "x" + size[2] + "-" +
+                            mode.name().toLowerCase() + "-" + budget;
+                    cases.add(new Case(name, size[0], size[1], size[2], mode, budget));
+                }
+            }
+        }
+    }
+
+    public int getCaseCount() {
+        return cases.size();
+    }
+
+    public boolean isFinished() {
+        return finished;
+    }
+
+    /**
+     * Start of a server tick, for MSPT.
+     */
+    public void onTickStart() {
+        tickStartNanos = System.nanoTime();
+    }
+
+    /**
+     * End of a server tick: advances the current case.
+     */
+    public void onTickEnd() {
+        if (finished) {
+            return;
+        }
+
+        if (executor == null) {
+            startNextCase();
+            return;
+        }
+
+        long buildStart = System.nanoTime();
+        long allocStart = threads.getCurrentThreadAllocatedBytes();
+
+        executor.pollDemand();
+        executor.runBlocks(cases.get(caseIndex).blocksPerTick());
+        effects.flush();
+
+        allocatedBytes += threads.getCurrentThreadAllocatedBytes() - allocStart;
+        buildNanosTotal += System.nanoTime() - buildStart;
+        ticks++;
+
+        // Whole tick so far, including everything else the server did
+        if (tickStartNanos != 0) {
+            long tickNanos = System.nanoTime() - tickStartNanos;
+            tickNanosTotal += tickNanos;
+            tickNanosMax = Math.max(tickNanosMax, tickNanos);
+        }
+
+        BuildExecutor.BuildState state = executor.getState();
+        if (state == BuildExecutor.BuildState.FINISHED || state == BuildExecutor.BuildState.ERROR ||
+                ticks >= MAX_TICKS_PER_CASE) {
+            finishCase(state != BuildExecutor.BuildState.FINISHED);
+        }
+    }
+
+    /**
+     * Stops the suite and writes what has been measured so far.
+     */
+    public void cancel() {
+        if (finished) {
+            return;
+        }
+        if (executor != null) {
+            executor.stop();
+            clearCase();
+        }
+        finished = true;
+        writeResults();
+    }
+
+    private void startNextCase() {
+        caseIndex++;
+        if (caseIndex >= cases.size()) {
+            finished = true;
+            writeResults();
+            return;
+        }
+
+        Case current = cases.get(caseIndex);
+        try {
+            schematic = generate(current);
+        } catch (IOException e) {
+            LOGGER.error("Throughput suite: failed to generate {}", current.name(), e);
+            messages.accept("§cБенчмарк: не удалось сгенерировать " + current.name());
+            finished = true;
+            return;
+        }
+
+        placement = new SchematicPlacement(schematic, origin);
+        placement.setConfirmed(true);
+
+        executor = new BuildExecutor();
+        executor.setMessageCallback(message -> LOGGER.debug("[{}] {}", current.name(), message));
+        executor.initialize(schematic, placement, world);
+        executor.setEffects(effects);
+        executor.setSpeed(10);
+        executor.setFastFill(current.mode().fastFill);
+        executor.setUpdateMode(current.mode().updateMode);
+        executor.setLightFlushInterval(current.mode().lightFlushInterval);
+        executor.start();
+
+        ticks = 0;
+        tickNanosTotal = 0;
+        tickNanosMax = 0;
+        buildNanosTotal = 0;
+        allocatedBytes = 0;
+        startNanos = System.nanoTime();
+
+        messages.accept("§7Бенчмарк " + (caseIndex + 1) + "/" + cases.size() + ": " + current.name());
+    }
+
+    private TutorialSchematic generate(Case current) throws IOException {
+        Path folder = getResultsFolder().resolve("tmp");
+        Files.createDirectories(folder);
+        Path file = folder.resolve(current.name() + ".ltutorial");
+
+        SchematicGenerator generator = new SchematicGenerator();
+        generator.setSize(current.sizeX(), current.sizeY(), current.sizeZ());
+        generator.setLayers(4);
+        generator.setSeed(caseIndex);
+        generator.generate(file, current.name());
+
+        try {
+            return SchematicLoader.parseSchematic(Files.readString(file));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private void finishCase(boolean timedOut) {
+        Case current = cases.get(caseIndex);
+        double seconds = (System.nanoTime() - startNanos) / 1e9;
+        int built = executor.getTotalBlocksBuilt();
+        int measuredTicks = Math.max(1, ticks);
+
+        // Compare the world with the schematic
+        int exact = 0;
+        int sameBlock = 0;
+        int total = 0;
+        for (BuildLayer layer : schematic.getLayers()) {
+            for (BlockEntry entry : layer.getBlocks()) {
+                BlockState expected = placement.rotateBlockState(entry.getBlockState());
+                BlockState actual = world.getBlockState(placement.toWorldPos(entry));
+                total++;
+                if (actual == expected) {
+                    exact++;
+                }
+                if (actual.getBlock() == expected.getBlock()) {
+                    sameBlock++;
+                }
+            }
+        }
+
+        if (timedOut) {
+            executor.stop();
+        }
+
+        JsonObject result = new JsonObject();
+        result.addProperty("name", current.name());
+        result.addProperty("size", current.sizeX() + "x" + current.sizeY() + "x" + current.sizeZ());
+        result.addProperty("mode", current.mode().name().toLowerCase());
+        result.addProperty("blocks_per_tick", current.blocksPerTick());
+        result.addProperty("blocks", total);
+        result.addProperty("blocks_built", built);
+        result.addProperty("ticks", ticks);
+        result.addProperty("seconds", seconds);
+        result.addProperty("blocks_per_second", built / Math.max(seconds, 1e-9));
+        result.addProperty("mean_mspt", tickNanosTotal / 1e6 / measuredTicks);
+        result.addProperty("max_mspt", tickNanosMax / 1e6);
+        result.addProperty("mean_build_ms_per_tick", buildNanosTotal / 1e6 / measuredTicks);
+        result.addProperty("alloc_bytes_per_block", built > 0 ? (double) allocatedBytes / built : 0);
+        result.addProperty("chunk_waits", executor.getChunkWaits());
+        result.addProperty("exact_matches", exact);
+        result.addProperty("block_matches", sameBlock);
+        result.addProperty("mismatches", total - exact);
+        result.addProperty("timed_out", timedOut);
+        results.add(result);
+
+        LOGGER.info("Throughput case {}: {} blocks/s, mean MSPT {}, {} of {} exact",
+                current.name(), (int) (built / Math.max(seconds, 1e-9)),
+                String.format("%.2f", tickNanosTotal / 1e6 / measuredTicks), exact, total);
+        messages.accept(String.format("§7  %s: §f%.0f §7блоков/с, MSPT §f%.1f§7/§f%.1f§7, совпало §f%d/%d",
+                current.name(), built / Math.max(seconds, 1e-9),
+                tickNanosTotal / 1e6 / measuredTicks, tickNanosMax / 1e6, exact, total));
+
+        clearCase();
+        executor = null;
+        schematic = null;
+        placement = null;
+    }
+
+    /**
+     * Removes the case's blocks so the next case starts on the same empty ground.
+     * No neighbour updates, so nothing drops.
+     */
+    private void clearCase() {
+        BlockBox box = placement.getWorldBoundingBox();
+        BlockState air = Blocks.AIR.getDefaultState();
+        for (BlockPos pos : BlockPos.iterate(box.getMinX(), box.getMinY(), box.getMinZ(),
+                box.getMaxX(), box.getMaxY(), box.getMaxZ())) {
+            world.setBlockState(pos, air, Block.NOTIFY_LISTENERS | Block.FORCE_STATE);
+        }
+    }
+
+    private void writeResults() {
+        JsonObject root = new JsonObject();
+        root.addProperty("suite", label);
+        root.addProperty("mod_version", BuilderBotMod.VERSION);
+        root.addProperty("minecraft_version", SharedConstants.getGameVersion().getName());
+        root.addProperty("java_version", System.getProperty("java.version"));
+        root.addProperty("timestamp", LocalDateTime.now().toString());
+        root.add("cases", results);
+
+        try {
+            Path folder = getResultsFolder();
+            Files.createDirectories(folder);
+            Path file = folder.resolve("throughput-" + label + "-" +
+                    LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")) + ".json");
+            Files.writeString(file, new GsonBuilder().setPrettyPrinting().create().toJson(root));
+
+            LOGGER.info("Throughput results written to {}", file);
+            messages.accept("§a✓ Бенчмарк завершён: " + file.getFileName());
+        } catch (IOException e) {
+            LOGGER.error("Failed to write throughput results", e);
+            messages.accept("§cНе удалось записать результаты бенчмарка");
+        }
+    }
+
+    public static Path getResultsFolder() {
+        return FabricLoader.getInstance().getGameDir().resolve("builderbot").resolve("benchmarks");
+    }
+}
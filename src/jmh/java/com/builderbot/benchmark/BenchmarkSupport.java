@@ -0,0 +1,99 @@
+package com.builderbot.benchmark;
+
+import net.minecraft.Bootstrap;
+import net.minecraft.SharedConstants;
+
+import java.util.Random;
+
+/**
+ * Shared setup for benchmarks: registry bootstrap and synthetic schematic JSON.
+ */
+public final class BenchmarkSupport {
+
+    // Block ids with a typical block state string each
+    private static final String[][] PALETTE = {
+            {"minecraft:stone", "{}"},
+            {"minecraft:oak_planks", "{}"},
+            {"minecraft:cobblestone", "{}"},
+            {"minecraft:glass", "{}"},
+            {"minecraft:oak_log", "{axis:y}"},
+            {"minecraft:oak_stairs", "{facing:north,half:bottom,shape:straight,waterlogged:false}"},
+            {"minecraft:stone_brick_slab", "{type:bottom,waterlogged:false}"},
+            {"minecraft:oak_fence", "{east:false,north:true,south:true,waterlogged:false,west:false}"},
+            {"minecraft:wall_torch", "{facing:east}"},
+            {"minecraft:oak_door", "{facing:south,half:lower,hinge:left,open:false,powered:false}"}
+    };
+
+    private static boolean bootstrapped;
+
+    private BenchmarkSupport() {
+    }
+
+    /**
+     * Initializes block registries once per JVM.
+     */
+    public static synchronized void bootstrap() {
+        if (!bootstrapped) {
+            SharedConstants.createGameVersion();
+            Bootstrap.initialize();
+            bootstrapped = true;
+        }
+    }
+
+    public static int paletteSize() {
+        return PALETTE.length;
+    }
+
+    public static String paletteBlock(int index) {
+        return PALETTE[index][0];
+    }
+
+    public static String paletteState(int index) {
+        return PALETTE[index][1];
+    }
+
+    /**
+     * Builds a .ltutorial JSON document with the given number of blocks in a
+     * square-footprint box, split into horizontal layers.
+     */
+    public static String schematicJson(int blocks, int layers, long seed) {
+        Random random = new Random(seed);
+        int side = Math.max(1, (int) Math.cbrt(blocks));
+        int perLayer = (blocks + layers - 1) / layers;
+
+        StringBuilder json = new StringBuilder(blocks * 96);
+        json.append("{\"format_version\":\"1.0\",\"name\":\"bench_").append(blocks).append("\",");
+        json.append("\"metadata\":{\"total_blocks\":").append(blocks).append("},\"layers\":[");
+
+        int placed = 0;
+        for (int layer = 0; layer < layers && placed < blocks; layer++) {
+            if (layer > 0) {
+                json.append(',');
+            }
+            json.append("{\"id\":").append(layer)
+                    .append(",\"name\":\"Layer ").append(layer)
+                    .append("\",\"order\":").append(layer)
+                    .append(",\"color\":\"#").append(String.format("%06X", random.nextInt(0x1000000)))
+                    .append("\",\"blocks\":[");
+
+            int end = Math.min(blocks, placed + perLayer);
+            for (int i = placed; i < end; i++) {
+                if (i > placed) {
+                    json.append(',');
+                }
+                int entry = random.nextInt(PALETTE.length);
+                json.append("{\"x\":").append(i % side)
+                        .append(",\"y\":").append(i / (side * side))
+                        .append(",\"z\":").append((i / side) % side)
+                        .append(",\"block\":\"").append(PALETTE[entry][0])
+                        .append("\",\"blockstate\":\"").append(PALETTE[entry][1])
+                        .append("\"}");
+            }
+            placed = end;
+            json.append("]}");
+        }
+
+        json.append("]}");
+        return json.toString();
+    }
+}
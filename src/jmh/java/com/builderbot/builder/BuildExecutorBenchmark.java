@@ -0,0 +1,54 @@
+package com.builderbot.builder;
+
+import com.builderbot.benchmark.BenchmarkSupport;
+import com.builderbot.placement.SchematicPlacement;
+import com.builderbot.schematic.SchematicLoader;
+import com.builderbot.schematic.TutorialSchematic;
+import net.minecraft.util.math.BlockPos;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A whole build through the executor into {@link InMemoryBlockSink}: ordering,
+ * batching and the state machine, without world writes. Budget is blocks per batch.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class BuildExecutorBenchmark {
+
+    @Param({"10000", "100000"})
+    public int blocks;
+
+    @Param({"256", "4096"})
+    public int budget;
+
+    private TutorialSchematic schematic;
+    private SchematicPlacement placement;
+    private InMemoryBlockSink sink;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        BenchmarkSupport.bootstrap();
+        schematic = SchematicLoader.parseSchematic(BenchmarkSupport.schematicJson(blocks, 4, 42L));
+        placement = new SchematicPlacement(schematic, new BlockPos(1000, 64, -2000));
+        placement.setConfirmed(true);
+        sink = new InMemoryBlockSink();
+    }
+
+    @Benchmark
+    public int build() {
+        sink.clear();
+        BuildExecutor executor = new BuildExecutor();
+        executor.initialize(schematic, placement, sink);
+        executor.start();
+        while (executor.getState() != BuildExecutor.BuildState.FINISHED) {
+            executor.runBlocks(budget);
+        }
+        if (sink.size() != blocks) {
+            throw new IllegalStateException("Built " + sink.size() + " of " + blocks + " blocks");
+        }
+        return executor.getTotalBlocksBuilt();
+    }
+}
@@ -0,0 +1,106 @@
+package com.builderbot.builder;
+
+import com.builderbot.benchmark.BenchmarkSupport;
+import net.minecraft.block.BlockState;
+import net.minecraft.block.Blocks;
+import net.minecraft.util.math.BlockBox;
+import net.minecraft.util.math.BlockPos;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Path queries around a 200x200 site in {@link InMemoryBlockSink}: a floor, an outer
+ * wall and inner walls with doorways every 40 blocks, 32 high. Nearby queries are the
+ * usual stand-to-stand walks; cross-site ones have to get past the inner walls.
+ * Pairs cycle through more than the path cache holds, so most queries search.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PathfinderBenchmark {
+
+    private static final int SIZE = 200;
+    private static final int FLOOR_Y = 64;
+    private static final int WALL_HEIGHT = 32;
+    private static final int WALL_SPACING = 40;
+    private static final int PAIRS = 4096;
+
+    private Pathfinder pathfinder;
+    private BlockPos[] nearFrom;
+    private BlockPos[] nearTo;
+    private BlockPos[] farFrom;
+    private BlockPos[] farTo;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        BenchmarkSupport.bootstrap();
+        InMemoryBlockSink sink = new InMemoryBlockSink();
+        BlockState stone = Blocks.STONE.getDefaultState();
+        BlockPos.Mutable pos = new BlockPos.Mutable();
+        for (int x = 0; x < SIZE; x++) {
+            for (int z = 0; z < SIZE; z++) {
+                sink.setBlockState(pos.set(x, FLOOR_Y, z), stone, 3);
+                boolean outer = x == 0 || z == 0 || x == SIZE - 1 || z == SIZE - 1;
+                boolean inner = x % WALL_SPACING == 0 && z % WALL_SPACING > 2;
+                if (outer || inner) {
+                    for (int y = 1; y <= WALL_HEIGHT; y++) {
+                        sink.setBlockState(pos.set(x, FLOOR_Y + y, z), stone, 3);
+                    }
+                }
+            }
+        }
+
+        BlockBox box = new BlockBox(0, FLOOR_Y, 0, SIZE - 1, FLOOR_Y + WALL_HEIGHT, SIZE - 1);
+        NavigationGrid grid = NavigationGrid.around(sink, box, -64, 320);
+        pathfinder = new Pathfinder(grid);
+
+        Random random = new Random(42L);
+        nearFrom = new BlockPos[PAIRS];
+        nearTo = new BlockPos[PAIRS];
+        farFrom = new BlockPos[PAIRS];
+        farTo = new BlockPos[PAIRS];
+        for (int i = 0; i < PAIRS; i++) {
+            BlockPos from = randomCell(grid, random, 1, SIZE - 1);
+            nearFrom[i] = from;
+            nearTo[i] = randomNear(grid, random, from);
+            farFrom[i] = randomCell(grid, random, 1, WALL_SPACING);
+            farTo[i] = randomCell(grid, random, SIZE - WALL_SPACING, SIZE - 1);
+        }
+    }
+
+    @Benchmark
+    public List<BlockPos> nearbyStands() {
+        int i = next++ & (PAIRS - 1);
+        return pathfinder.findPath(nearFrom[i], nearTo[i]);
+    }
+
+    @Benchmark
+    public List<BlockPos> acrossSite() {
+        int i = next++ & (PAIRS - 1);
+        return pathfinder.findPath(farFrom[i], farTo[i]);
+    }
+
+    private static BlockPos randomCell(NavigationGrid grid, Random random, int min, int max) {
+        while (true) {
+            int x = min + random.nextInt(max - min);
+            int y = FLOOR_Y + 1 + random.nextInt(WALL_HEIGHT / 2);
+            int z = 1 + random.nextInt(SIZE - 2);
+            if (grid.isPassable(x, y, z)) {
+                return new BlockPos(x, y, z);
+            }
+        }
+    }
+
+    private static BlockPos randomNear(NavigationGrid grid, Random random, BlockPos from) {
+        while (true) {
+            BlockPos to = from.add(random.nextInt(17) - 8, random.nextInt(5) - 2, random.nextInt(17) - 8);
+            if (grid.isPassable(to.getX(), to.getY(), to.getZ())) {
+                return to;
+            }
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.builderbot.placement;
+
+import com.builderbot.benchmark.BenchmarkSupport;
+import com.builderbot.schematic.BlockEntry;
+import com.builderbot.schematic.SchematicLoader;
+import com.builderbot.schematic.TutorialSchematic;
+import net.minecraft.block.BlockState;
+import net.minecraft.util.math.BlockPos;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Schematic-to-world transforms for every block of a schematic.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PlacementBenchmark {
+
+    @Param({"0", "90", "180", "270"})
+    public int rotation;
+
+    private SchematicPlacement placement;
+    private List<BlockEntry> entries;
+    private List<BlockState> states;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        BenchmarkSupport.bootstrap();
+        TutorialSchematic schematic = SchematicLoader.parseSchematic(BenchmarkSupport.schematicJson(100_000, 4, 42L));
+
+        placement = new SchematicPlacement(schematic, new BlockPos(1000, 64, -2000));
+        placement.setRotation(rotation);
+
+        entries = new ArrayList<>();
+        states = new ArrayList<>();
+        schematic.getLayers().forEach(layer -> entries.addAll(layer.getBlocks()));
+        for (BlockEntry entry : entries) {
+            states.add(entry.getBlockState());
+        }
+    }
+
+    @Benchmark
+    public void toWorldPos(Blackhole blackhole) {
+        for (BlockEntry entry : entries) {
+            blackhole.consume(placement.toWorldPos(entry));
+        }
+    }
+
+    @Benchmark
+    public void rotateBlockState(Blackhole blackhole) {
+        for (BlockState state : states) {
+            blackhole.consume(placement.rotateBlockState(state));
+        }
+    }
+}
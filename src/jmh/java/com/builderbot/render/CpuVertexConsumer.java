@@ -0,0 +1,62 @@
+package com.builderbot.render;
+
+import net.minecraft.client.render.VertexConsumer;
+
+/**
+ * Heap-only vertex sink: stores position and packed color per vertex.
+ * Lets the render loop run without a GL context or native buffers.
+ */
+public class CpuVertexConsumer implements VertexConsumer {
+    private final float[] positions;
+    private final int[] colors;
+    private int vertex = -1;
+
+    public CpuVertexConsumer(int capacity) {
+        this.positions = new float[capacity * 3];
+        this.colors = new int[capacity];
+    }
+
+    public void reset() {
+        vertex = -1;
+    }
+
+    public int getVertexCount() {
+        return vertex + 1;
+    }
+
+    @Override
+    public VertexConsumer vertex(float x, float y, float z) {
+        vertex++;
+        int i = (vertex % colors.length) * 3;
+        positions[i] = x;
+        positions[i + 1] = y;
+        positions[i + 2] = z;
+        return this;
+    }
+
+    @Override
+    public VertexConsumer color(int red, int green, int blue, int alpha) {
+        colors[vertex % colors.length] = alpha << 24 | red << 16 | green << 8 | blue;
+        return this;
+    }
+
+    @Override
+    public VertexConsumer texture(float u, float v) {
+        return this;
+    }
+
+    @Override
+    public VertexConsumer overlay(int u, int v) {
+        return this;
+    }
+
+    @Override
+    public VertexConsumer light(int u, int v) {
+        return this;
+    }
+
+    @Override
+    public VertexConsumer normal(float x, float y, float z) {
+        return this;
+    }
+}
@@ -0,0 +1,37 @@
+package com.builderbot.render;
+
+import com.builderbot.benchmark.BenchmarkSupport;
+import com.builderbot.schematic.SchematicLoader;
+import com.builderbot.schematic.TutorialSchematic;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Culled preview mesh of a solid synthetic schematic, into a CPU-side buffer.
+ * Compare with {@link RenderBlockFaceBenchmark}, which emits every face.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PreviewMeshBuilderBenchmark {
+
+    @Param({"1000", "100000"})
+    public int blocks;
+
+    private TutorialSchematic schematic;
+    private CpuVertexConsumer buffer;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        BenchmarkSupport.bootstrap();
+        schematic = SchematicLoader.parseSchematic(BenchmarkSupport.schematicJson(blocks, 4, 42L));
+        buffer = new CpuVertexConsumer(blocks * 24);
+    }
+
+    @Benchmark
+    public int buildCulledMesh() {
+        buffer.reset();
+        return PreviewMeshBuilder.build(schematic, buffer, 1.0f).getFacesAfter();
+    }
+}
@@ -0,0 +1,41 @@
+package com.builderbot.render;
+
+import net.minecraft.util.math.BlockPos;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Vertex emission of the preview mesh for a block cube, into a CPU-side buffer.
+ * This is the cost of one mesh upload, not of a frame.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RenderBlockFaceBenchmark {
+
+    @Param({"1000", "100000"})
+    public int blocks;
+
+    private BlockPos[] positions;
+    private CpuVertexConsumer buffer;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        int side = Math.max(1, (int) Math.cbrt(blocks));
+        positions = new BlockPos[blocks];
+        for (int i = 0; i < blocks; i++) {
+            positions[i] = new BlockPos(i % side, i / (side * side), (i / side) % side);
+        }
+        buffer = new CpuVertexConsumer(blocks * 24);
+    }
+
+    @Benchmark
+    public int renderBlockFaces() {
+        buffer.reset();
+        for (BlockPos pos : positions) {
+            SchematicRenderer.renderBlockFace(buffer, pos.getX(), pos.getY(), pos.getZ(), 0.2f, 0.6f, 1.0f, 0.4f);
+        }
+        return buffer.getVertexCount();
+    }
+}
@@ -0,0 +1,51 @@
+package com.builderbot.schematic;
+
+import com.builderbot.benchmark.BenchmarkSupport;
+import net.minecraft.block.BlockState;
+import net.minecraft.registry.Registries;
+import net.minecraft.util.Identifier;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resolving block ids and block state strings.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class BlockEntryBenchmark {
+
+    private BlockState[] baseStates;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        BenchmarkSupport.bootstrap();
+        baseStates = new BlockState[BenchmarkSupport.paletteSize()];
+        for (int i = 0; i < baseStates.length; i++) {
+            baseStates[i] = Registries.BLOCK.get(Identifier.of(BenchmarkSupport.paletteBlock(i))).getDefaultState();
+        }
+    }
+
+    private int nextIndex() {
+        int index = next;
+        next = (next + 1) % baseStates.length;
+        return index;
+    }
+
+    /**
+     * Uncached lookup: a fresh entry per call, as right after loading.
+     */
+    @Benchmark
+    public BlockState getBlockStateUncached() {
+        int i = nextIndex();
+        return new BlockEntry(i, 0, 0, BenchmarkSupport.paletteBlock(i), BenchmarkSupport.paletteState(i)).getBlockState();
+    }
+
+    @Benchmark
+    public BlockState parseBlockState() {
+        int i = nextIndex();
+        return BlockEntry.parseBlockState(baseStates[i], BenchmarkSupport.paletteState(i));
+    }
+}
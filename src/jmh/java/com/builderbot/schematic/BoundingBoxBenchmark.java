@@ -0,0 +1,32 @@
+package com.builderbot.schematic;
+
+import com.builderbot.benchmark.BenchmarkSupport;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounding box recalculation over all layer blocks.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class BoundingBoxBenchmark {
+
+    @Param({"10000", "1000000"})
+    public int blocks;
+
+    private TutorialSchematic schematic;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        BenchmarkSupport.bootstrap();
+        schematic = SchematicLoader.parseSchematic(BenchmarkSupport.schematicJson(blocks, 8, 42L));
+    }
+
+    @Benchmark
+    public TutorialSchematic recalculateBoundingBox() {
+        schematic.recalculateBoundingBox();
+        return schematic;
+    }
+}
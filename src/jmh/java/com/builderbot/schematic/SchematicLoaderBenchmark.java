@@ -0,0 +1,31 @@
+package com.builderbot.schematic;
+
+import com.builderbot.benchmark.BenchmarkSupport;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing .ltutorial JSON of different sizes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class SchematicLoaderBenchmark {
+
+    @Param({"10000", "1000000", "5000000"})
+    public int blocks;
+
+    private String json;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        BenchmarkSupport.bootstrap();
+        json = BenchmarkSupport.schematicJson(blocks, 8, 42L);
+    }
+
+    @Benchmark
+    public TutorialSchematic parseSchematic() {
+        return SchematicLoader.parseSchematic(json);
+    }
+}
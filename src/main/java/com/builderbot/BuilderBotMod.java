@@ -1,7 +1,10 @@
 package com.builderbot;
 
 import com.builderbot.builder.BuildManager;
+import com.builderbot.builder.FakePlayerFactory;
+import com.builderbot.builder.FakePlayerPool;
 import com.builderbot.commands.BuildCommands;
+import com.builderbot.metrics.BuildMetrics;
 import com.builderbot.render.BuilderHUD;
 import com.builderbot.render.SchematicRenderer;
 import com.builderbot.schematic.SchematicLoader;
@@ -9,8 +12,9 @@ import com.builderbot.util.KeyBindings;
 import net.fabricmc.api.ClientModInitializer;
 import net.fabricmc.api.DedicatedServerModInitializer;
 import net.fabricmc.api.ModInitializer;
-import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientTickEvents;
 import net.fabricmc.fabric.api.client.rendering.v1.WorldRenderEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -40,6 +44,12 @@ public class BuilderBotMod implements ClientModInitializer, ModInitializer {
         
         // Ensure schematics folder exists
         SchematicLoader.ensureFolderExists();
+        
+        // Metrics over JMX
+        BuildMetrics.registerMBean();
+        
+        // Resolve fake player creation once instead of on every spawn
+        FakePlayerFactory.resolve();
     }
     
     @Override
@@ -62,10 +72,16 @@ public class BuilderBotMod implements ClientModInitializer, ModInitializer {
         BuilderHUD.register();
         LOGGER.info("HUD renderer registered");
         
-        // Register tick event for build execution
-        ClientTickEvents.END_CLIENT_TICK.register(BuildManager::tick);
+        // Register tick event for build execution (integrated server thread)
+        ServerTickEvents.END_SERVER_TICK.register(BuildManager::tick);
         LOGGER.info("Tick handler registered");
         
+        // Builds hold avatars, chunk tickets and reservations in the stopping server's worlds
+        ServerLifecycleEvents.SERVER_STOPPING.register(BuildManager::onServerStopping);
+
+        // Pooled fake players belong to the server that made them
+        ServerLifecycleEvents.SERVER_STOPPED.register(server -> FakePlayerPool.clear());
+        
         LOGGER.info("{} initialization complete!", MOD_NAME);
         LOGGER.info("Use /build help for command list");
     }
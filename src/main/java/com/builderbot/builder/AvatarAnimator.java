@@ -0,0 +1,95 @@
+package com.builderbot.builder;
+
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Vec3d;
+
+/**
+ * Animation of a fake player, decoupled from how many blocks it places.
+ *
+ * Placements are only recorded. Once per tick the head turns a fraction of the way
+ * towards the centroid of the blocks placed since the last tick (with a cap on degrees
+ * per tick), and the hand swings at most once per swing interval - so at 1 block per
+ * tick or 100, the avatar moves the same way and sends the same few entity updates.
+ */
+public class AvatarAnimator {
+
+    public static final int DEFAULT_SWING_INTERVAL = 4;
+    public static final int MAX_SWING_INTERVAL = 40;
+
+    // Fraction of the remaining angle turned per tick, and the cap in degrees
+    private static final float TURN_FRACTION = 0.35f;
+    private static final float MAX_TURN = 25.0f;
+
+    // After this many ticks without placements the head is free (e.g. to face the walk)
+    private static final int AIM_HOLD_TICKS = 10;
+
+    private int swingInterval = DEFAULT_SWING_INTERVAL;
+
+    // Placements since the last tick
+    private double sumX, sumY, sumZ;
+    private int count;
+
+    private Vec3d aim;
+    private int ticksSinceAim;
+    private int ticksSinceSwing;
+    private boolean swingPending;
+
+    public void setSwingInterval(int ticks) {
+        this.swingInterval = Math.max(1, Math.min(MAX_SWING_INTERVAL, ticks));
+    }
+
+    public int getSwingInterval() {
+        return swingInterval;
+    }
+
+    /**
+     * Notes a block placed or broken this tick.
+     */
+    public void record(BlockPos pos) {
+        sumX += pos.getX() + 0.5;
+        sumY += pos.getY() + 0.5;
+        sumZ += pos.getZ() + 0.5;
+        count++;
+    }
+
+    /**
+     * Checks if the head is turned towards recent work.
+     */
+    public boolean isAiming() {
+        return aim != null && ticksSinceAim < AIM_HOLD_TICKS;
+    }
+
+    public void reset() {
+        count = 0;
+        sumX = sumY = sumZ = 0;
+        aim = null;
+        swingPending = false;
+        ticksSinceSwing = swingInterval;
+    }
+
+    /**
+     * Plays one tick of animation on the player.
+     */
+    public void tick(FakePlayerBuilder builder) {
+        if (count > 0) {
+            aim = new Vec3d(sumX / count, sumY / count, sumZ / count);
+            ticksSinceAim = 0;
+            swingPending = true;
+            count = 0;
+            sumX = sumY = sumZ = 0;
+        } else {
+            ticksSinceAim++;
+        }
+
+        if (isAiming()) {
+            builder.turnTowards(aim, TURN_FRACTION, MAX_TURN);
+        }
+
+        ticksSinceSwing++;
+        if (swingPending && ticksSinceSwing >= swingInterval) {
+            builder.swingHand();
+            swingPending = false;
+            ticksSinceSwing = 0;
+        }
+    }
+}
@@ -0,0 +1,320 @@
+package com.builderbot.builder;
+
+import com.builderbot.placement.SchematicPlacement;
+import com.builderbot.schematic.BlockEntry;
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Vec3d;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+
+/**
+ * Drives a {@link FakePlayerBuilder} through a build as a per-tick state machine.
+ *
+ * Every tick the avatar places the run of queued blocks it can reach from where it
+ * stands. The stand position for the first block beyond that run is planned while the
+ * run is still being placed, and the avatar starts walking there as soon as the run is
+ * nearly done - so walking and placing overlap, and whatever comes into reach on the
+ * way is placed without stopping. Throughput is bound by reach and walk speed only.
+ *
+ * With a navigation grid the avatar follows A* paths around the structure; without
+ * one (or if no path is found) it heads straight for the stand. In survival builds it
+ * also makes trips to containers for the items it is about to place.
+ */
+public class AvatarController {
+    private static final Logger LOGGER = LoggerFactory.getLogger("BuilderBot");
+
+    /**
+     * What the avatar is doing this tick.
+     */
+    public enum Phase {
+        // Blocks ahead are in reach
+        PLACING,
+        // Placing the tail of the run and already moving to the next stand
+        PLACING_AND_WALKING,
+        // Nothing in reach, moving to the next stand
+        WALKING
+    }
+
+    // Queued blocks looked at per tick; bounds the per-tick reach checks
+    private static final int SCAN_LIMIT = 512;
+
+    // Start walking once no more than this many reachable blocks are left
+    private static final int WALK_AHEAD = 8;
+
+    // Not moving for this long while walking counts as stuck: teleport to the stand
+    private static final int STUCK_TICKS = 20;
+
+    private final FakePlayerBuilder builder;
+    private Phase phase = Phase.PLACING;
+
+    // Stand positions of the current layer, if it was planned
+    private ReachPlanner.Plan plan;
+
+    // Paths around the site, null if the site is too large for a grid
+    private Pathfinder pathfinder;
+
+    // Stand position planned for the block at plannedIndex in plannedBlocks
+    private List<BlockEntry> plannedBlocks;
+    private int plannedIndex = -1;
+    private BlockPos plannedStand;
+
+    private int stuckTicks;
+    private Vec3d lastPosition = Vec3d.ZERO;
+
+    // Container the avatar is fetching items from, the items still to fetch,
+    // and where it stands to reach the container
+    private BlockPos tripContainer;
+    private Int2IntOpenHashMap tripLoad;
+    private BlockPos tripStand;
+
+    // Statistics
+    private int stops;
+    private int teleports;
+    private int trips;
+
+    public AvatarController(String name) {
+        this.builder = new FakePlayerBuilder(name);
+    }
+
+    /**
+     * Spawns the avatar at the given stand (or next to the first block it will place).
+     */
+    public boolean spawn(ServerWorld world, BlockPos firstTarget, BlockPos stand) {
+        if (!builder.spawn(world, firstTarget.up(2))) {
+            return false;
+        }
+        builder.teleportTo(stand != null ? stand : builder.getPositionToReach(firstTarget));
+        phase = Phase.PLACING;
+        plannedIndex = -1;
+        stuckTicks = 0;
+        return true;
+    }
+
+    public void despawn() {
+        builder.despawn();
+        plannedBlocks = null;
+        plannedIndex = -1;
+        plannedStand = null;
+        endTrip();
+    }
+
+    public boolean isSpawned() {
+        return builder.isSpawned();
+    }
+
+    public FakePlayerBuilder getBuilder() {
+        return builder;
+    }
+
+    /**
+     * Uses the planned stands while the executor works on the plan's block list.
+     */
+    public void setPlan(ReachPlanner.Plan plan) {
+        this.plan = plan;
+    }
+
+    /**
+     * Enables path finding (null walks straight lines). Avatars of a crew share one.
+     */
+    public void setPathfinder(Pathfinder pathfinder) {
+        this.pathfinder = pathfinder;
+    }
+
+    public Pathfinder getPathfinder() {
+        return pathfinder;
+    }
+
+    public Phase getPhase() {
+        return phase;
+    }
+
+    /**
+     * Number of times the avatar had to walk to a new stand position.
+     */
+    public int getStops() {
+        return stops;
+    }
+
+    public int getTeleports() {
+        return teleports;
+    }
+
+    /**
+     * Number of trips to containers for items.
+     */
+    public int getTrips() {
+        return trips;
+    }
+
+    /**
+     * Starts a trip to a container for the given items.
+     */
+    public void startTrip(BlockPos container, Int2IntOpenHashMap load) {
+        if (tripLoad == null) {
+            trips++;
+        }
+        tripContainer = container;
+        tripLoad = load;
+        tripStand = null;
+    }
+
+    public void endTrip() {
+        tripContainer = null;
+        tripLoad = null;
+        tripStand = null;
+    }
+
+    public boolean isFetching() {
+        return tripLoad != null;
+    }
+
+    public BlockPos getTripContainer() {
+        return tripContainer;
+    }
+
+    /**
+     * Items still to fetch on the current trip.
+     */
+    public Int2IntOpenHashMap getTripLoad() {
+        return tripLoad;
+    }
+
+    /**
+     * Moves towards the trip's container for one tick. Returns true once the
+     * container is in reach.
+     */
+    public boolean tickTrip() {
+        if (!builder.isSpawned() || tripContainer == null) {
+            return false;
+        }
+        phase = Phase.WALKING;
+        if (builder.canReach(tripContainer)) {
+            stuckTicks = 0;
+            return true;
+        }
+
+        if (tripStand == null) {
+            tripStand = builder.getPositionToReach(tripContainer);
+        }
+        if (!builder.isWalking() || !tripStand.equals(builder.getTargetPos())) {
+            startWalk(tripStand);
+        }
+        builder.tickMovement();
+
+        Vec3d position = builder.getPosition();
+        stuckTicks = position.squaredDistanceTo(lastPosition) > 1.0E-4 ? 0 : stuckTicks + 1;
+        lastPosition = position;
+        if (stuckTicks >= STUCK_TICKS) {
+            builder.teleportTo(tripStand);
+            teleports++;
+            stuckTicks = 0;
+        }
+        return builder.canReach(tripContainer);
+    }
+
+    /**
+     * Advances the state machine by one tick and returns how many of the queued
+     * blocks in {@code [from, to)} can be placed now, starting at {@code from}.
+     */
+    public int tick(List<BlockEntry> blocks, int from, int to, SchematicPlacement placement) {
+        if (!builder.isSpawned() || from >= to) {
+            return 0;
+        }
+
+        // Reachable run at the head of the queue
+        int end = Math.min(to, from + SCAN_LIMIT);
+        int reachable = 0;
+        while (from + reachable < end && builder.canReach(placement.toWorldPos(blocks.get(from + reachable)))) {
+            reachable++;
+        }
+
+        int next = from + reachable;
+        if (next >= end) {
+            // Everything scanned is in reach
+            phase = Phase.PLACING;
+            return reachable;
+        }
+
+        // Plan the next stand while the current run is still being placed
+        if (plannedBlocks != blocks || plannedIndex != next) {
+            plannedBlocks = blocks;
+            plannedIndex = next;
+            plannedStand = plan != null && plan.getBlocks() == blocks
+                    ? plan.getStandOf(next)
+                    : builder.getPositionToReach(placement.toWorldPos(blocks.get(next)));
+        }
+
+        if (reachable > WALK_AHEAD) {
+            phase = Phase.PLACING;
+            return reachable;
+        }
+
+        if (!builder.isWalking() || !plannedStand.equals(builder.getTargetPos())) {
+            if (!startWalk(plannedStand)) {
+                stops++;
+                stuckTicks = 0;
+            }
+        }
+        builder.tickMovement();
+
+        Vec3d position = builder.getPosition();
+        boolean moved = position.squaredDistanceTo(lastPosition) > 1.0E-4;
+        lastPosition = position;
+
+        if (reachable > 0) {
+            phase = Phase.PLACING_AND_WALKING;
+            stuckTicks = 0;
+            return reachable;
+        }
+
+        phase = Phase.WALKING;
+        stuckTicks = moved ? 0 : stuckTicks + 1;
+        if (stuckTicks >= STUCK_TICKS) {
+            // Blocked by the structure: skip the rest of the walk
+            LOGGER.debug("Avatar stuck for {} ticks, teleporting to {}", stuckTicks, plannedStand.toShortString());
+            builder.teleportTo(plannedStand);
+            teleports++;
+            stuckTicks = 0;
+        }
+
+        // Walking may have brought the head block into reach
+        return builder.canReach(placement.toWorldPos(blocks.get(from))) ? 1 : 0;
+    }
+
+    /**
+     * Walks along a path if one is found, else straight. Returns true if already there.
+     */
+    private boolean startWalk(BlockPos stand) {
+        List<BlockPos> path = pathfinder != null ? pathfinder.findPath(builder.getBlockPos(), stand) : null;
+        return path != null ? builder.walkPath(path) : builder.walkTo(stand);
+    }
+
+    /**
+     * Checks if the avatar can place at the given position right now.
+     */
+    public boolean canPlace(BlockPos pos) {
+        return builder.canReach(pos);
+    }
+
+    /**
+     * Called for every block the executor placed or broke for the avatar.
+     */
+    public void onPlaced(BlockPos pos) {
+        builder.recordAction(pos);
+        if (pathfinder != null) {
+            pathfinder.getGrid().invalidate(pos);
+        }
+    }
+
+    /**
+     * Plays one tick of animation for what was placed last tick. Runs every tick,
+     * also while idle, so the head keeps turning smoothly.
+     */
+    public void animate() {
+        builder.tickAnimation();
+    }
+}
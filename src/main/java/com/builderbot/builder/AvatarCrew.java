@@ -0,0 +1,538 @@
+package com.builderbot.builder;
+
+import com.builderbot.placement.SchematicPlacement;
+import com.builderbot.schematic.BlockEntry;
+import it.unimi.dsi.fastutil.ints.Int2IntMap;
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Direction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Several avatars building one layer together.
+ *
+ * The layer's reach plan is cut into one run of consecutive stands per avatar,
+ * balanced by block count. Stands next to each other on the tour are close, so each
+ * run is a compact region of the site. A block belongs to exactly one run, so two
+ * avatars never work on the same cell. An avatar that runs out of work steals the
+ * far half of the largest run left, cut at a stand boundary and never including the
+ * stand its owner is working at. A block still waits for the block it rests on, even
+ * if another avatar owns that one.
+ *
+ * Each tick every avatar reports the blocks it has in reach; the executor places them
+ * taking turns between avatars, so the scheduler's budget is shared evenly.
+ *
+ * In survival builds a block also needs its item among the fetched ones. An avatar
+ * whose next block has none goes to the nearest container holding items reserved for
+ * the blocks ahead of it and brings back a trip's worth.
+ */
+public class AvatarCrew {
+    private static final Logger LOGGER = LoggerFactory.getLogger("BuilderBot");
+
+    public static final int MAX_SIZE = 8;
+
+    private static final String NAME = "BuilderBot";
+
+    private final int size;
+    private final List<AvatarController> avatars = new ArrayList<>();
+    private Pathfinder pathfinder;
+
+    // Current layer: blocks of the plan and the stand group around each block.
+    // The plan covers the executor's queue from offset on.
+    private ReachPlanner.Plan plan;
+    private int offset;
+    private List<BlockEntry> blocks = List.of();
+    private int[] groupStart = new int[0];
+    private int[] groupEnd = new int[0];
+    private int[] supportOf = new int[0];
+    private boolean[] placed = new boolean[0];
+
+    // Survival builds: where items come from, the item of each block, blocks per trip
+    private MaterialManager materials;
+    private int[] itemOf = new int[0];
+    private int tripBlocks = MaterialManager.DEFAULT_TRIP_BLOCKS;
+
+    // Items found nowhere when an avatar went to fetch them, until taken
+    private Int2IntOpenHashMap shortage;
+
+    // Items the crew's avatars count on using this tick, scratch
+    private final Int2IntOpenHashMap pending = new Int2IntOpenHashMap();
+
+    // Work of each avatar: blocks [cursor, end) of the plan
+    private int[] cursor = new int[0];
+    private int[] end = new int[0];
+
+    // Blocks each avatar may still place this tick, and whose turn it is
+    private int[] demand = new int[0];
+    private int turn;
+    private int current = -1;
+
+    // Statistics
+    private int steals;
+
+    public AvatarCrew(int size) {
+        this.size = Math.max(1, Math.min(MAX_SIZE, size));
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Makes the crew fetch items from containers (survival), or not (null). Must be
+     * set before spawning.
+     */
+    public void setMaterials(MaterialManager materials, int tripBlocks) {
+        this.materials = materials;
+        this.tripBlocks = Math.max(1, Math.min(MaterialManager.MAX_TRIP_BLOCKS, tripBlocks));
+    }
+
+    /**
+     * Spawns the avatars near the start of the plan. Returns false if not even one could
+     * be spawned; with fewer than asked for, the crew builds with those that did.
+     */
+    public boolean spawn(ServerWorld world, ReachPlanner.Plan plan, SchematicPlacement placement) {
+        if (plan.getBlocks().isEmpty()) {
+            return false;
+        }
+        BlockPos firstTarget = placement.toWorldPos(plan.getBlocks().get(0));
+        for (int i = 0; i < size; i++) {
+            AvatarController avatar = new AvatarController(i == 0 ? NAME : NAME + (i + 1));
+            avatar.getBuilder().setSurvival(materials != null);
+            if (!avatar.spawn(world, firstTarget, plan.getStandOf(0))) {
+                LOGGER.warn("Could not spawn avatar {} of {}", i + 1, size);
+                break;
+            }
+            avatars.add(avatar);
+        }
+        if (avatars.isEmpty()) {
+            return false;
+        }
+
+        // One path finder for all, so the grid's cached solidity is shared
+        NavigationGrid grid = NavigationGrid.around(world, placement.getWorldBoundingBox());
+        pathfinder = grid != null ? new Pathfinder(grid) : null;
+        for (AvatarController avatar : avatars) {
+            avatar.setPathfinder(pathfinder);
+        }
+
+        cursor = new int[avatars.size()];
+        end = new int[avatars.size()];
+        demand = new int[avatars.size()];
+        return true;
+    }
+
+    public void despawn() {
+        for (AvatarController avatar : avatars) {
+            avatar.despawn();
+        }
+        avatars.clear();
+        plan = null;
+    }
+
+    public boolean isSpawned() {
+        return !avatars.isEmpty() && avatars.get(0).isSpawned();
+    }
+
+    public List<AvatarController> getAvatars() {
+        return avatars;
+    }
+
+    public Pathfinder getPathfinder() {
+        return pathfinder;
+    }
+
+    public ReachPlanner.Plan getPlan() {
+        return plan;
+    }
+
+    /**
+     * Where the next layer's tour should start: the first avatar's position.
+     */
+    public BlockPos getPosition() {
+        return avatars.get(0).getBuilder().getBlockPos();
+    }
+
+    /**
+     * Number of times an avatar took over part of another one's run.
+     */
+    public int getSteals() {
+        return steals;
+    }
+
+    public int getOffset() {
+        return offset;
+    }
+
+    /**
+     * Number of trips to containers so far.
+     */
+    public int getTrips() {
+        int trips = 0;
+        for (AvatarController avatar : avatars) {
+            trips += avatar.getTrips();
+        }
+        return trips;
+    }
+
+    /**
+     * Items an avatar went to fetch but no container had, or null. Cleared by taking.
+     */
+    public Int2IntOpenHashMap takeShortage() {
+        Int2IntOpenHashMap result = shortage;
+        shortage = null;
+        return result;
+    }
+
+    /**
+     * Splits a newly planned layer between the avatars. The plan's blocks follow
+     * {@code offset} already placed ones in the executor's queue.
+     */
+    public void startLayer(ReachPlanner.Plan plan, int offset) {
+        this.plan = plan;
+        this.offset = offset;
+        this.blocks = plan.getBlocks();
+        int count = blocks.size();
+
+        groupStart = new int[count];
+        groupEnd = new int[count];
+        for (int i = 0; i < count; i++) {
+            boolean sameStand = i > 0 && plan.getStandIndexOf(i) == plan.getStandIndexOf(i - 1);
+            groupStart[i] = sameStand ? groupStart[i - 1] : i;
+        }
+        for (int i = count - 1; i >= 0; i--) {
+            boolean sameStand = i < count - 1 && plan.getStandIndexOf(i) == plan.getStandIndexOf(i + 1);
+            groupEnd[i] = sameStand ? groupEnd[i + 1] : i + 1;
+        }
+
+        findSupports();
+        placed = new boolean[count];
+        if (materials != null) {
+            itemOf = new int[count];
+            for (int i = 0; i < count; i++) {
+                itemOf[i] = materials.itemOf(blocks.get(i));
+            }
+        }
+
+        // Cut the plan into runs of about equal size, at stand boundaries
+        int runs = avatars.size();
+        int[] runStart = new int[runs + 1];
+        for (int r = 1; r < runs; r++) {
+            int cut = (int) ((long) count * r / runs);
+            runStart[r] = cut < count ? Math.max(runStart[r - 1], groupStart[cut]) : count;
+        }
+        runStart[runs] = count;
+
+        // Each run goes to the nearest avatar that has none yet
+        boolean[] taken = new boolean[runs];
+        for (int r = 0; r < runs; r++) {
+            int best = 0;
+            if (runStart[r] < runStart[r + 1]) {
+                BlockPos stand = plan.getStandOf(runStart[r]);
+                double bestDistance = Double.MAX_VALUE;
+                for (int a = 0; a < runs; a++) {
+                    double distance = taken[a] ? Double.MAX_VALUE
+                            : avatars.get(a).getBuilder().getBlockPos().getSquaredDistance(stand);
+                    if (distance < bestDistance) {
+                        best = a;
+                        bestDistance = distance;
+                    }
+                }
+            } else {
+                while (taken[best]) {
+                    best++;
+                }
+            }
+            taken[best] = true;
+            cursor[best] = runStart[r];
+            end[best] = runStart[r + 1];
+        }
+        Arrays.fill(demand, 0);
+
+        for (AvatarController avatar : avatars) {
+            avatar.setPlan(plan);
+        }
+    }
+
+    /**
+     * Moves every avatar and returns how many blocks the crew can place now.
+     */
+    public int tick(SchematicPlacement placement) {
+        // Carried items are shared: what one avatar counts on is gone for the next
+        pending.clear();
+        int total = 0;
+        for (int a = 0; a < avatars.size(); a++) {
+            avatars.get(a).animate();
+            if (cursor[a] >= end[a]) {
+                steal(a);
+            }
+            if (materials != null && cursor[a] < end[a] && !tickMaterials(a)) {
+                demand[a] = 0;
+                continue;
+            }
+            int run = cursor[a] < end[a] ? avatars.get(a).tick(blocks, cursor[a], end[a], placement) : 0;
+
+            // Stop in front of a block whose support is not placed yet, or whose
+            // item the crew has not fetched
+            int ready = 0;
+            while (ready < run && isReady(cursor[a] + ready) && hasItem(cursor[a] + ready)) {
+                ready++;
+            }
+            demand[a] = ready;
+            total += ready;
+        }
+        return total;
+    }
+
+    /**
+     * Index in the executor's queue of the next block to place, taking turns between
+     * the avatars that still have blocks in reach this tick. Returns -1 if there is none.
+     */
+    public int nextBlock() {
+        for (int i = 0; i < avatars.size(); i++) {
+            int a = turn;
+            turn = (turn + 1) % avatars.size();
+            if (demand[a] > 0 && cursor[a] < end[a] && isReady(cursor[a]) && isCarried(cursor[a])) {
+                current = a;
+                return offset + cursor[a];
+            }
+        }
+        current = -1;
+        return -1;
+    }
+
+    /**
+     * Lets the avatar whose turn it is sit out the rest of this tick, e.g. when its
+     * next block's chunk is still loading. The others go on.
+     */
+    public void skipCurrent() {
+        if (current >= 0) {
+            demand[current] = 0;
+        }
+    }
+
+    /**
+     * Writes each avatar's next block and the end of its run as indices into the
+     * executor's queue, for chunk prefetching. Returns the number of avatars.
+     */
+    public int getRuns(int[] from, int[] to) {
+        for (int a = 0; a < avatars.size(); a++) {
+            from[a] = offset + cursor[a];
+            to[a] = offset + end[a];
+        }
+        return avatars.size();
+    }
+
+    /**
+     * Checks if the avatar whose turn it is can place at the given position.
+     */
+    public boolean canPlace(BlockPos pos) {
+        return current >= 0 && avatars.get(current).canPlace(pos);
+    }
+
+    /**
+     * Called after the block returned by {@link #nextBlock()} was handled. A failed
+     * placement moves on as well, but its item stays with the carried ones.
+     */
+    public void onPlaced(BlockPos pos, boolean success) {
+        placed[cursor[current]] = true;
+        if (success && materials != null) {
+            materials.consume(itemOf[cursor[current]]);
+        }
+        cursor[current]++;
+        demand[current]--;
+        avatars.get(current).onPlaced(pos);
+    }
+
+    /**
+     * The plan's blocks with the placed ones first, both in plan order. Lets the
+     * executor go on one block at a time after the crew is gone mid-layer.
+     */
+    public List<BlockEntry> getPlacedFirst() {
+        List<BlockEntry> result = new ArrayList<>(blocks.size());
+        for (int i = 0; i < blocks.size(); i++) {
+            if (placed[i]) {
+                result.add(blocks.get(i));
+            }
+        }
+        for (int i = 0; i < blocks.size(); i++) {
+            if (!placed[i]) {
+                result.add(blocks.get(i));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Sets how often each avatar may swing its hand, in ticks.
+     */
+    public void setSwingInterval(int ticks) {
+        for (AvatarController avatar : avatars) {
+            avatar.getBuilder().getAnimator().setSwingInterval(ticks);
+        }
+    }
+
+    private boolean isReady(int index) {
+        int support = supportOf[index];
+        return support < 0 || placed[support];
+    }
+
+    /**
+     * Checks that the block's item is still among the carried ones right now.
+     */
+    private boolean isCarried(int index) {
+        return materials == null || itemOf[index] == MaterialManager.NO_ITEM
+                || materials.getCarried(itemOf[index]) > 0;
+    }
+
+    /**
+     * Counts the block's item against the fetched ones. Checks blocks in order, with
+     * {@link #pending} cleared once per tick for the whole crew.
+     */
+    private boolean hasItem(int index) {
+        if (materials == null || itemOf[index] == MaterialManager.NO_ITEM) {
+            return true;
+        }
+        int item = itemOf[index];
+        return pending.addTo(item, 1) < materials.getCarried(item);
+    }
+
+    /**
+     * Sends the avatar for items if its next block has none. Returns true if the
+     * avatar can build this tick.
+     */
+    private boolean tickMaterials(int a) {
+        AvatarController avatar = avatars.get(a);
+        if (!avatar.isFetching()) {
+            int item = itemOf[cursor[a]];
+            if (item == MaterialManager.NO_ITEM || materials.getCarried(item) > 0) {
+                return true;
+            }
+
+            // Items for the next blocks of the run, less those fetched or on the way
+            Int2IntOpenHashMap load = new Int2IntOpenHashMap();
+            int limit = Math.min(end[a], cursor[a] + tripBlocks);
+            for (int i = cursor[a]; i < limit; i++) {
+                if (itemOf[i] != MaterialManager.NO_ITEM) {
+                    load.addTo(itemOf[i], 1);
+                }
+            }
+            for (AvatarController other : avatars) {
+                if (other.isFetching()) {
+                    subtractAll(load, other.getTripLoad());
+                }
+            }
+            Int2IntOpenHashMap carried = new Int2IntOpenHashMap();
+            for (int other : load.keySet()) {
+                carried.put(other, materials.getCarried(other));
+            }
+            subtractAll(load, carried);
+            if (load.get(item) <= 0) {
+                // Another avatar is bringing it
+                return false;
+            }
+
+            BlockPos container = materials.findContainer(load, avatar.getBuilder().getBlockPos());
+            if (container == null) {
+                shortage = load;
+                return false;
+            }
+            avatar.startTrip(container, load);
+        }
+
+        if (avatar.tickTrip()) {
+            Int2IntOpenHashMap load = avatar.getTripLoad();
+            if (materials.take(avatar.getTripContainer(), load) == 0) {
+                // The reserved items are gone from the container
+                shortage = load;
+                avatar.endTrip();
+                return false;
+            }
+            BlockPos next = load.isEmpty() ? null : materials.findContainer(load, avatar.getTripContainer());
+            if (next != null) {
+                avatar.startTrip(next, load);
+            } else {
+                avatar.endTrip();
+            }
+        }
+        return false;
+    }
+
+    private static void subtractAll(Int2IntOpenHashMap counts, Int2IntOpenHashMap amounts) {
+        for (Int2IntMap.Entry amount : amounts.int2IntEntrySet()) {
+            int left = counts.get(amount.getIntKey()) - amount.getIntValue();
+            if (left > 0) {
+                counts.put(amount.getIntKey(), left);
+            } else {
+                counts.remove(amount.getIntKey());
+            }
+        }
+    }
+
+    /**
+     * Gives an idle avatar the far half of the largest run that has stands left beyond
+     * the one its owner is at.
+     */
+    private void steal(int thief) {
+        int victim = -1;
+        int bestSize = 0;
+        for (int a = 0; a < avatars.size(); a++) {
+            if (a == thief || cursor[a] >= end[a]) {
+                continue;
+            }
+            int stealable = end[a] - groupEnd[cursor[a]];
+            if (stealable > bestSize) {
+                victim = a;
+                bestSize = stealable;
+            }
+        }
+        if (victim < 0) {
+            return;
+        }
+
+        int from = groupEnd[cursor[victim]];
+        int split = groupStart[from + (end[victim] - from) / 2];
+        cursor[thief] = split;
+        end[thief] = end[victim];
+        end[victim] = split;
+        steals++;
+        LOGGER.debug("Avatar {} took {} blocks from avatar {}", thief + 1, end[thief] - split, victim + 1);
+    }
+
+    /**
+     * Index in the plan of the block each block rests on, or -1 if it rests on nothing
+     * in this layer. Supports always come earlier in the plan.
+     */
+    private void findSupports() {
+        int count = blocks.size();
+        Long2IntOpenHashMap indexOfPos = new Long2IntOpenHashMap(count);
+        indexOfPos.defaultReturnValue(-1);
+        for (int i = 0; i < count; i++) {
+            BlockEntry entry = blocks.get(i);
+            indexOfPos.put(BlockPos.asLong(entry.getX(), entry.getY(), entry.getZ()), i);
+        }
+
+        supportOf = new int[count];
+        for (int i = 0; i < count; i++) {
+            supportOf[i] = -1;
+            BlockEntry entry = blocks.get(i);
+            Direction direction = PlacementOrderer.getSupportDirection(entry.getBlockState());
+            if (direction != null) {
+                int support = indexOfPos.get(BlockPos.asLong(
+                        entry.getX() + direction.getOffsetX(),
+                        entry.getY() + direction.getOffsetY(),
+                        entry.getZ() + direction.getOffsetZ()));
+                if (support >= 0 && support < i) {
+                    supportOf[i] = support;
+                }
+            }
+        }
+    }
+}
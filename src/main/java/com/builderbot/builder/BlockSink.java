@@ -0,0 +1,59 @@
+package com.builderbot.builder;
+
+import net.minecraft.block.BlockState;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkSectionPos;
+import net.minecraft.world.EmptyBlockView;
+
+/**
+ * The world access the executor's per-block path needs.
+ *
+ * Kept narrow on purpose, so the ordering, batching and state machine of
+ * {@link BuildExecutor} can run against {@link InMemoryBlockSink} without a game.
+ */
+public interface BlockSink {
+
+    BlockState getBlockState(BlockPos pos);
+
+    /**
+     * Sets a block with vanilla block flags. Returns true if the block changed.
+     */
+    boolean setBlockState(BlockPos pos, BlockState state, int flags);
+
+    /**
+     * Removes a block. Returns true if there was one.
+     */
+    boolean breakBlock(BlockPos pos, boolean drop);
+
+    boolean isChunkLoaded(int chunkX, int chunkZ);
+
+    /**
+     * Checks if the block has a collision shape, i.e. blocks movement.
+     */
+    default boolean isSolid(BlockPos pos) {
+        return !getBlockState(pos).getCollisionShape(EmptyBlockView.INSTANCE, pos).isEmpty();
+    }
+
+    /**
+     * Checks that the block's chunk (and the neighbour across a chunk border) is loaded,
+     * so writing it cannot trigger a synchronous chunk load.
+     */
+    default boolean canWriteAt(BlockPos pos) {
+        int chunkX = ChunkSectionPos.getSectionCoord(pos.getX());
+        int chunkZ = ChunkSectionPos.getSectionCoord(pos.getZ());
+
+        if (!isChunkLoaded(chunkX, chunkZ)) {
+            return false;
+        }
+
+        int localX = pos.getX() & 15;
+        int localZ = pos.getZ() & 15;
+
+        if (localX == 0 && !isChunkLoaded(chunkX - 1, chunkZ)) return false;
+        if (localX == 15 && !isChunkLoaded(chunkX + 1, chunkZ)) return false;
+        if (localZ == 0 && !isChunkLoaded(chunkX, chunkZ - 1)) return false;
+        if (localZ == 15 && !isChunkLoaded(chunkX, chunkZ + 1)) return false;
+
+        return true;
+    }
+}
@@ -1,24 +1,39 @@
 package com.builderbot.builder;
 
+import com.builderbot.jfr.BatchFlushEvent;
+import com.builderbot.jfr.BuildBatchEvent;
+import com.builderbot.jfr.ChunkWaitEvent;
+import com.builderbot.metrics.BuildMetrics;
+import com.builderbot.metrics.SessionLog;
 import com.builderbot.placement.SchematicPlacement;
 import com.builderbot.schematic.BlockEntry;
 import com.builderbot.schematic.BuildLayer;
 import com.builderbot.schematic.TutorialSchematic;
+import it.unimi.dsi.fastutil.ints.Int2IntMap;
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
 import net.minecraft.block.BlockState;
 import net.minecraft.server.world.ServerWorld;
-import net.minecraft.sound.SoundCategory;
+import net.minecraft.sound.SoundEvent;
 import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.util.profiler.DummyProfiler;
+import net.minecraft.util.profiler.Profiler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.function.Consumer;
 
 /**
- * Executes building WITHOUT fake player - places blocks directly.
+ * Executes building - places blocks directly, or through fake player
+ * avatars that walk the site in avatar mode.
  * Simple, reliable, works in 1.21+
+ *
+ * Ticked on the server thread by {@link BuildScheduler}, which decides
+ * how many blocks each build may place per tick.
  */
 public class BuildExecutor {
     private static final Logger LOGGER = LoggerFactory.getLogger("BuilderBot");
@@ -28,6 +43,14 @@ public class BuildExecutor {
             40, 35, 30, 25, 20, 15, 12, 8, 4, 2
     };
 
+    // Fast-fill: cells written per unit of scheduler budget, units requested per tick
+    private static final int FAST_FILL_CELLS_PER_BLOCK = 256;
+    private static final int FAST_FILL_DEMAND = 64;
+    private static final int FAST_FILL_MIN_VOLUME = 64;
+
+    // Deferred updates are flushed early once this many positions are pending
+    private static final int DEFERRED_FLUSH_LIMIT = 65536;
+
     // Blocks that can be safely replaced
     private static final Set<String> REPLACEABLE_BLOCKS = new HashSet<>();
     static {
@@ -67,6 +90,16 @@ public class BuildExecutor {
         REPLACEABLE_BLOCKS.add("minecraft:lava");
     }
 
+    /**
+     * How placements notify their neighbours.
+     */
+    public enum UpdateMode {
+        // Flag 3: every placement updates neighbours and shapes right away
+        IMMEDIATE,
+        // Place without neighbour updates, run them in one pass per layer
+        DEFERRED
+    }
+
     public enum BuildState {
         IDLE,
         BUILDING,
@@ -78,6 +111,9 @@ public class BuildExecutor {
 
     private TutorialSchematic schematic;
     private SchematicPlacement placement;
+    private BlockSink sink;
+
+    // Null when running headless: no fast-fill, deferred updates, lighting, prefetch or sounds
     private ServerWorld world;
 
     // Build state
@@ -87,10 +123,60 @@ public class BuildExecutor {
 
     // Progress tracking
     private List<BuildLayer> sortedLayers;
+    private List<PlacementOrderer.LayerOrder> layerOrders;
     private int currentLayerIndex = 0;
     private int currentBlockIndex = 0;
     private int totalBlocksBuilt = 0;
 
+    // Work prepared for the current layer
+    private int preparedLayerIndex = -1;
+    private List<BlockEntry> currentBlocks;
+
+    // Fast-fill: uniform cuboids written straight into chunk sections before the per-block pass
+    private boolean fastFill = false;
+    private FastFillWriter fastFillWriter;
+    private List<FastFillWriter.Piece> fillPieces = List.of();
+    private int fillPieceIndex = 0;
+    private int filledCells = 0;
+
+    // Neighbour/shape updates
+    private UpdateMode updateMode = UpdateMode.IMMEDIATE;
+    private DeferredUpdates deferredUpdates;
+
+    // Lighting: 0 = check per placement, otherwise flush collected checks every N ticks
+    private int lightFlushInterval = 0;
+    private int ticksSinceLightFlush = 0;
+    private LightBatcher lightBatcher;
+
+    // Sounds: merged per tick once a tick writes more blocks than the limit (0 = one per block)
+    private EffectAggregator effects = new EffectAggregator();
+    private boolean ownEffects = true;
+    private int soundLimit = EffectAggregator.DEFAULT_SOUND_LIMIT;
+    private int tickSoundLimit = 0;
+
+    // Avatar mode: fake players walk the site and place what they can reach
+    private boolean avatarMode = false;
+    private int avatarCount = 1;
+    private int swingInterval = AvatarAnimator.DEFAULT_SWING_INTERVAL;
+    private AvatarCrew crew;
+    private ReachPlanner.Plan reachPlan;
+
+    // Survival: the avatars take the items from containers near the site
+    private boolean survival = false;
+    private int containerRadius = MaterialManager.DEFAULT_RADIUS;
+    private int tripBlocks = MaterialManager.DEFAULT_TRIP_BLOCKS;
+    private MaterialManager materials;
+
+    // Op log for offline analysis (null = off), ticks are counted from the build start
+    private SessionLog sessionLog;
+    private int buildTicks = 0;
+
+    // Chunk loading ahead of the frontier (one per avatar with a crew)
+    private ChunkPrefetcher chunkPrefetcher;
+    private final int[] prefetchFrom = new int[AvatarCrew.MAX_SIZE];
+    private final int[] prefetchTo = new int[AvatarCrew.MAX_SIZE];
+    private int chunkWaits = 0;
+
     // Callbacks
     private Consumer<String> messageCallback;
     private Runnable layerCompleteCallback;
@@ -103,14 +189,45 @@ public class BuildExecutor {
      * Initializes the executor with schematic and placement.
      */
     public void initialize(TutorialSchematic schematic, SchematicPlacement placement, ServerWorld world) {
+        initialize(schematic, placement, new ServerWorldSink(world));
+    }
+
+    /**
+     * Initializes the executor against any block sink. With a sink that is not
+     * backed by a server world the build runs headless (per-block path only).
+     */
+    public void initialize(TutorialSchematic schematic, SchematicPlacement placement, BlockSink sink) {
         this.schematic = schematic;
         this.placement = placement;
-        this.world = world;
+        this.sink = sink;
+        this.world = sink instanceof ServerWorldSink worldSink ? worldSink.getWorld() : null;
         this.sortedLayers = schematic.getLayersSorted();
+        this.layerOrders = PlacementOrderer.orderLayers(sortedLayers);
         this.currentLayerIndex = 0;
         this.currentBlockIndex = 0;
         this.totalBlocksBuilt = 0;
         this.state = BuildState.IDLE;
+        releaseMaterials();
+        despawnAvatar();
+
+        if (chunkPrefetcher != null) {
+            chunkPrefetcher.releaseAll();
+        }
+        if (world != null) {
+            this.chunkPrefetcher = new ChunkPrefetcher(world);
+            this.fastFillWriter = new FastFillWriter(world);
+            this.deferredUpdates = new DeferredUpdates(world);
+            this.lightBatcher = new LightBatcher(world);
+        } else {
+            this.chunkPrefetcher = null;
+            this.fastFillWriter = null;
+            this.deferredUpdates = null;
+            this.lightBatcher = null;
+        }
+        this.ticksSinceLightFlush = 0;
+        this.preparedLayerIndex = -1;
+        this.chunkWaits = 0;
+        this.buildTicks = 0;
 
         LOGGER.info("BuildExecutor initialized: {} layers, {} total blocks",
                 sortedLayers.size(), schematic.getTotalBlocks());
@@ -120,7 +237,7 @@ public class BuildExecutor {
      * Starts the building process.
      */
     public boolean start() {
-        if (schematic == null || placement == null || world == null) {
+        if (schematic == null || placement == null || sink == null) {
             LOGGER.error("Cannot start: not initialized");
             return false;
         }
@@ -136,11 +253,16 @@ public class BuildExecutor {
             return false;
         }
 
+        if (survival && !reserveMaterials()) {
+            return false;
+        }
+
         state = BuildState.BUILDING;
         tickCounter = 0;
 
         sendMessage("§aНачинаю строительство: " + schematic.getName());
         sendMessage("§7Слоёв: " + sortedLayers.size() + ", блоков: " + schematic.getTotalBlocks());
+        reportSupportProblems();
 
         LOGGER.info("Build started");
         return true;
@@ -152,6 +274,8 @@ public class BuildExecutor {
     public void pause() {
         if (state == BuildState.BUILDING) {
             state = BuildState.PAUSED;
+            flushDeferredUpdates();
+            flushLighting();
             sendMessage("§eСтроительство приостановлено");
             LOGGER.info("Build paused");
         }
@@ -162,6 +286,14 @@ public class BuildExecutor {
      */
     public void resume() {
         if (state == BuildState.PAUSED) {
+            // Chests may have been refilled: look again and reserve what is left.
+            // Trips under the old reservations are called off with the crew.
+            if (materials != null) {
+                despawnAvatar();
+                if (!reserveMaterials()) {
+                    return;
+                }
+            }
             state = BuildState.BUILDING;
             sendMessage("§aСтроительство возобновлено");
             LOGGER.info("Build resumed");
@@ -173,6 +305,14 @@ public class BuildExecutor {
      */
     public void stop() {
         state = BuildState.IDLE;
+        flushDeferredUpdates();
+        flushLighting();
+        if (chunkPrefetcher != null) {
+            chunkPrefetcher.releaseAll();
+        }
+        closeSessionLog();
+        releaseMaterials();
+        despawnAvatar();
         sendMessage("§cСтроительство остановлено");
         LOGGER.info("Build stopped");
     }
@@ -187,8 +327,13 @@ public class BuildExecutor {
 
         if (currentLayerIndex < sortedLayers.size() - 1) {
             BuildLayer skippedLayer = sortedLayers.get(currentLayerIndex);
+            int remaining = preparedLayerIndex == currentLayerIndex
+                    ? currentBlocks.size() - currentBlockIndex
+                    : skippedLayer.getBlockCount();
+            BuildMetrics.get().recordSkipped(Math.max(0, remaining));
             currentLayerIndex++;
             currentBlockIndex = 0;
+            preparedLayerIndex = -1;
             sendMessage("§eПропущен слой: " + skippedLayer.getName());
             LOGGER.info("Skipped layer: {}", skippedLayer.getName());
         }
@@ -202,6 +347,7 @@ public class BuildExecutor {
             if (sortedLayers.get(i).getOrder() == order) {
                 currentLayerIndex = i;
                 currentBlockIndex = 0;
+                preparedLayerIndex = -1;
                 sendMessage("§aПерешёл к слою: " + sortedLayers.get(i).getName());
                 LOGGER.info("Goto layer: {} (index {})", sortedLayers.get(i).getName(), i);
                 return;
@@ -222,6 +368,221 @@ public class BuildExecutor {
         return speed;
     }
 
+    /**
+     * Enables writing uniform cuboids directly into chunk sections.
+     * Takes effect from the next layer.
+     */
+    public void setFastFill(boolean fastFill) {
+        this.fastFill = fastFill;
+    }
+
+    public boolean isFastFill() {
+        return fastFill;
+    }
+
+    /**
+     * Lets a fake player build: blocks are placed as the avatar gets them in reach,
+     * without the speed preset's delay. Fast-fill is skipped from the next layer.
+     * Turning it off removes the avatar.
+     */
+    public void setAvatarMode(boolean avatarMode) {
+        this.avatarMode = avatarMode;
+        if (!avatarMode) {
+            despawnAvatar();
+            if (materials != null && (state == BuildState.BUILDING || state == BuildState.LAYER_COMPLETE)) {
+                // Nobody would carry the items
+                state = BuildState.PAUSED;
+                sendMessage("§eБез аватара строительство на выживании приостановлено");
+            }
+        }
+    }
+
+    public boolean isAvatarMode() {
+        return avatarMode;
+    }
+
+    /**
+     * Sets how many avatars build together. A running crew is respawned with the new size.
+     */
+    public void setAvatarCount(int count) {
+        int clamped = Math.max(1, Math.min(AvatarCrew.MAX_SIZE, count));
+        if (clamped != avatarCount) {
+            avatarCount = clamped;
+            despawnAvatar();
+        }
+    }
+
+    public int getAvatarCount() {
+        return avatarCount;
+    }
+
+    /**
+     * Sets how often an avatar may swing its hand, however many blocks it places.
+     */
+    public void setSwingInterval(int ticks) {
+        this.swingInterval = Math.max(1, Math.min(AvatarAnimator.MAX_SWING_INTERVAL, ticks));
+        if (crew != null) {
+            crew.setSwingInterval(swingInterval);
+        }
+    }
+
+    public int getSwingInterval() {
+        return swingInterval;
+    }
+
+    public AvatarCrew getCrew() {
+        return crew;
+    }
+
+    /**
+     * Makes avatars build with items from containers near the site instead of out of
+     * thin air. Needs avatar mode; takes effect at the next start.
+     */
+    public void setSurvival(boolean survival) {
+        this.survival = survival;
+    }
+
+    public boolean isSurvival() {
+        return survival;
+    }
+
+    /**
+     * Sets how far around the site containers are looked for.
+     */
+    public void setContainerRadius(int radius) {
+        this.containerRadius = Math.max(0, Math.min(MaterialManager.MAX_RADIUS, radius));
+    }
+
+    public int getContainerRadius() {
+        return containerRadius;
+    }
+
+    /**
+     * Sets for how many blocks ahead an avatar fetches items per trip.
+     */
+    public void setTripBlocks(int blocks) {
+        this.tripBlocks = Math.max(1, Math.min(MaterialManager.MAX_TRIP_BLOCKS, blocks));
+    }
+
+    public int getTripBlocks() {
+        return tripBlocks;
+    }
+
+    public MaterialManager getMaterials() {
+        return materials;
+    }
+
+    /**
+     * Switches between immediate and deferred neighbour updates.
+     * Pending deferred updates are applied before switching to immediate.
+     */
+    public void setUpdateMode(UpdateMode updateMode) {
+        if (updateMode == UpdateMode.IMMEDIATE) {
+            flushDeferredUpdates();
+        }
+        this.updateMode = updateMode;
+    }
+
+    public UpdateMode getUpdateMode() {
+        return updateMode;
+    }
+
+    /**
+     * Sets how often collected light checks are submitted, in ticks.
+     * 0 keeps the vanilla behaviour of one check per placement.
+     */
+    public void setLightFlushInterval(int ticks) {
+        if (ticks <= 0) {
+            flushLighting();
+        }
+        this.lightFlushInterval = Math.max(0, ticks);
+    }
+
+    public int getLightFlushInterval() {
+        return lightFlushInterval;
+    }
+
+    /**
+     * Uses a shared aggregator (flushed by its owner) instead of this executor's own.
+     */
+    public void setEffects(EffectAggregator effects) {
+        this.effects = effects;
+        this.ownEffects = false;
+    }
+
+    /**
+     * Sets how many sounds per sound event a tick may play once it writes more blocks
+     * than that (0 = one per block).
+     */
+    public void setSoundLimit(int limit) {
+        this.soundLimit = Math.max(0, Math.min(EffectAggregator.MAX_SOUND_LIMIT, limit));
+    }
+
+    public int getSoundLimit() {
+        return soundLimit;
+    }
+
+    /**
+     * Server-thread time spent on batched lighting, in nanoseconds.
+     */
+    public long getLightingNanos() {
+        return lightBatcher != null ? lightBatcher.getLightingNanos() : 0;
+    }
+
+    public long getLightChecksSubmitted() {
+        return lightBatcher != null ? lightBatcher.getSubmittedChecks() : 0;
+    }
+
+    public long getLightChecksSkipped() {
+        return lightBatcher != null ? lightBatcher.getSkippedChecks() : 0;
+    }
+
+    public TutorialSchematic getSchematic() {
+        return schematic;
+    }
+
+    public SchematicPlacement getPlacement() {
+        return placement;
+    }
+
+    public ServerWorld getWorld() {
+        return world;
+    }
+
+    public BlockSink getSink() {
+        return sink;
+    }
+
+    /**
+     * Logs every op of this build to the given log. The executor closes it when the build ends.
+     */
+    public void setSessionLog(SessionLog sessionLog) {
+        closeSessionLog();
+        this.sessionLog = sessionLog;
+    }
+
+    public SessionLog getSessionLog() {
+        return sessionLog;
+    }
+
+    public int getTotalBlocksBuilt() {
+        return totalBlocksBuilt;
+    }
+
+    /**
+     * Blocks not built yet (queue depth).
+     */
+    public int getRemainingBlocks() {
+        return schematic != null ? Math.max(0, schematic.getTotalBlocks() - totalBlocksBuilt) : 0;
+    }
+
+    /**
+     * Number of times the frontier had to wait for a chunk to load.
+     */
+    public int getChunkWaits() {
+        return chunkWaits;
+    }
+
     /**
      * Gets the current build state.
      */
@@ -256,95 +617,565 @@ public class BuildExecutor {
                 layerName,
                 currentLayerIndex + 1,
                 sortedLayers.size(),
-                currentBlockIndex,
+                currentBlockIndex + filledCells,
                 layerBlocks,
                 totalBlocksBuilt,
                 schematic.getTotalBlocks());
     }
 
     /**
-     * Main tick method - call every game tick.
+     * Main tick method - call every server tick when running standalone.
      */
     public void tick() {
-        if (state == BuildState.IDLE || state == BuildState.FINISHED ||
-                state == BuildState.ERROR || state == BuildState.PAUSED) {
-            return;
+        runBlocks(pollDemand());
+        if (ownEffects) {
+            effects.flush();
+        }
+    }
+
+    /**
+     * Advances the speed timer by one tick and returns how many blocks
+     * this build wants to place now. Unused demand carries over to the next tick.
+     */
+    public int pollDemand() {
+        if (state != BuildState.BUILDING && state != BuildState.LAYER_COMPLETE) {
+            return 0;
+        }
+
+        if (lightFlushInterval > 0 && ++ticksSinceLightFlush >= lightFlushInterval) {
+            flushLighting();
+        }
+
+        buildTicks++;
+        if (sessionLog != null) {
+            sessionLog.tick(buildTicks);
         }
 
         tickCounter++;
 
+        if (avatarMode && world != null) {
+            return tickCounter > 0 ? pollAvatarDemand() : 0;
+        }
+
+        // Bulk writes ignore the speed preset, only the pause between layers
+        if (tickCounter > 0 && currentLayerIndex < sortedLayers.size()) {
+            prepareLayer();
+            if (fillPieceIndex < fillPieces.size()) {
+                return FAST_FILL_DEMAND;
+            }
+        }
+
         int delay = SPEED_DELAYS[speed - 1];
 
-        if (tickCounter < delay) {
+        return tickCounter >= delay ? 1 : 0;
+    }
+
+    /**
+     * Moves the avatars and returns how many queued blocks they have in reach.
+     */
+    private int pollAvatarDemand() {
+        // A finished layer or build is handled by the next processed block
+        if (currentLayerIndex >= sortedLayers.size()) {
+            return 1;
+        }
+        prepareLayer();
+        if (state == BuildState.PAUSED) {
+            // Out of materials
+            return 0;
+        }
+        if (currentBlockIndex >= currentBlocks.size()) {
+            return 1;
+        }
+        if (reachPlan == null) {
+            // Avatar mode was switched on (or the crew changed) mid-layer
+            planAvatarWork();
+            prefetchBlocks();
+        }
+
+        if (crew == null) {
+            crew = new AvatarCrew(avatarCount);
+            crew.setMaterials(materials, tripBlocks);
+            if (!crew.spawn(world, reachPlan, placement)) {
+                crew = null;
+                if (materials != null) {
+                    // Without avatars nobody carries the items
+                    state = BuildState.PAUSED;
+                    sendMessage("§cНе удалось создать аватара, строительство приостановлено");
+                    return 0;
+                }
+                avatarMode = false;
+                sendMessage("§cНе удалось создать аватара, строю без него");
+                return 0;
+            }
+            crew.setSwingInterval(swingInterval);
+            if (crew.getAvatars().size() < avatarCount) {
+                sendMessage("§eСоздано аватаров: " + crew.getAvatars().size() + " из " + avatarCount);
+            }
+        }
+
+        if (crew.getPlan() != reachPlan) {
+            // Blocks before the current index were placed one by one without the crew
+            crew.startLayer(reachPlan, currentBlocks.size() - reachPlan.getBlocks().size());
+        }
+        int demand = crew.tick(placement);
+
+        Int2IntOpenHashMap shortage = crew.takeShortage();
+        if (shortage != null) {
+            pauseForMaterials(shortage);
+            return 0;
+        }
+        return demand;
+    }
+
+    /**
+     * Indexes the containers near the site and reserves the items for everything not
+     * built yet. Reports what is missing, and from which layer on, if that fails.
+     */
+    private boolean reserveMaterials() {
+        if (!avatarMode || world == null) {
+            sendMessage("§cРежим выживания работает только с аватаром (/build avatar on)");
+            return false;
+        }
+        if (materials == null) {
+            materials = new MaterialManager(world);
+        }
+        materials.index(placement.getWorldBoundingBox(), containerRadius);
+
+        // Needs per layer; the current one from the first block not placed
+        List<Int2IntOpenHashMap> layerNeeds = new ArrayList<>();
+        Int2IntOpenHashMap total = new Int2IntOpenHashMap();
+        for (int i = currentLayerIndex; i < layerOrders.size(); i++) {
+            List<BlockEntry> blocks = i == preparedLayerIndex
+                    ? currentBlocks.subList(currentBlockIndex, currentBlocks.size())
+                    : layerOrders.get(i).getBlocks();
+            Int2IntOpenHashMap needs = materials.countNeeds(blocks);
+            layerNeeds.add(needs);
+            for (Int2IntMap.Entry need : needs.int2IntEntrySet()) {
+                total.addTo(need.getIntKey(), need.getIntValue());
+            }
+        }
+
+        int shortLayer = materials.firstShortLayer(layerNeeds);
+        Int2IntOpenHashMap missing = materials.reserve(total);
+        if (!missing.isEmpty()) {
+            sendMessage("§cНе хватает материалов: " + MaterialManager.describe(missing, 8));
+            if (shortLayer >= 0) {
+                sendMessage("§7Первый слой без материалов: " + sortedLayers.get(currentLayerIndex + shortLayer).getName());
+            }
+            sendMessage("§7Контейнеров в радиусе " + containerRadius + ": " + materials.getContainerCount());
+            return false;
+        }
+
+        LOGGER.info("Reserved materials in {} containers", materials.getContainerCount());
+        return true;
+    }
+
+    /**
+     * Stops a survival build that ran out of items. The crew is sent away with the
+     * queue in order, and resuming reserves the rest again.
+     */
+    private void pauseForMaterials(Int2IntOpenHashMap missing) {
+        state = BuildState.PAUSED;
+        flushDeferredUpdates();
+        flushLighting();
+        despawnAvatar();
+        sendMessage("§cНе хватает материалов: " + MaterialManager.describe(missing, 8));
+        sendMessage("§7Пополните контейнеры и продолжите (/build resume)");
+        LOGGER.info("Build paused: materials missing");
+    }
+
+    /**
+     * Gives up the reservations and leaves the fetched items at the crew.
+     */
+    private void releaseMaterials() {
+        if (materials == null) {
             return;
         }
+        materials.release();
+        materials.dropCarried(crew != null && crew.isSpawned()
+                ? crew.getPosition()
+                : placement.getWorldBoundingBox().getCenter());
+        materials = null;
+    }
+
+    /**
+     * Checks that the avatar fits at a position (feet and head cells passable).
+     * Positions in unloaded chunks count as free rather than loading them.
+     */
+    private boolean canStandAt(BlockPos pos) {
+        if (!sink.isChunkLoaded(pos.getX() >> 4, pos.getZ() >> 4)) {
+            return true;
+        }
+        BlockPos head = pos.up();
+        return world.getBlockState(pos).getCollisionShape(world, pos).isEmpty() &&
+                world.getBlockState(head).getCollisionShape(world, head).isEmpty();
+    }
+
+    private void despawnAvatar() {
+        if (crew != null) {
+            Pathfinder pathfinder = crew.getPathfinder();
+            if (pathfinder != null && pathfinder.getQueries() > 0) {
+                LOGGER.info("Avatar paths: {} queries, {} cached, {} us mean",
+                        pathfinder.getQueries(), pathfinder.getCacheHits(),
+                        String.format("%.1f", pathfinder.getMeanQueryMicros()));
+            }
+            if (crew.getSize() > 1) {
+                LOGGER.info("Avatar crew of {}: {} steals", crew.getSize(), crew.getSteals());
+            }
+            if (crew.getTrips() > 0) {
+                LOGGER.info("Avatar trips for materials: {}", crew.getTrips());
+            }
+            if (crew.getPlan() != null && crew.getPlan() == reachPlan) {
+                // Placed blocks first, so the queue can go on from currentBlockIndex
+                List<BlockEntry> blocks = new ArrayList<>(currentBlocks.subList(0, crew.getOffset()));
+                blocks.addAll(crew.getPlacedFirst());
+                currentBlocks = blocks;
+                reachPlan = null;
+                prefetchBlocks();
+            }
+            crew.despawn();
+            crew = null;
+        }
+    }
+
+    /**
+     * Processes up to the given number of blocks. Returns how many were processed.
+     */
+    public int runBlocks(int count) {
+        if (count <= 0) {
+            return 0;
+        }
+
+        BuildBatchEvent event = new BuildBatchEvent();
+        event.begin();
+
+        // Avatar crews and fast-fill write many blocks a tick whatever the speed preset
+        tickSoundLimit = EffectAggregator.limitFor(count, soundLimit);
+
+        // Collect light checks of our own writes while batching is on
+        boolean batchLighting = lightFlushInterval > 0 && lightBatcher != null;
+        if (batchLighting) {
+            lightBatcher.begin();
+        }
+        try {
+            int processed = processBlocks(count);
+            BuildMetrics.get().recordBatch(processed);
+
+            if (event.shouldCommit()) {
+                event.schematic = schematic.getName();
+                event.layer = currentLayerIndex;
+                event.requested = count;
+                event.processed = processed;
+                event.fastFill = fillPieceIndex < fillPieces.size();
+                event.commit();
+            }
+            return processed;
+        } finally {
+            if (batchLighting) {
+                lightBatcher.end();
+            }
+        }
+    }
+
+    private int processBlocks(int count) {
+        if (state == BuildState.LAYER_COMPLETE) {
+            state = BuildState.BUILDING;
+        }
 
         tickCounter = 0;
 
-        // Process next block
-        processNextBlock();
+        if (currentLayerIndex < sortedLayers.size()) {
+            prepareLayer();
+            if (fillPieceIndex < fillPieces.size()) {
+                return runFastFill(count);
+            }
+        }
+
+        updatePrefetch();
+
+        int processed = 0;
+        while (processed < count && state == BuildState.BUILDING) {
+            // Process next block; stop at a layer end or an unloaded chunk
+            if (!processNextBlock()) {
+                break;
+            }
+            processed++;
+        }
+
+        return processed;
+    }
+
+    /**
+     * Sets up the current layer's work: fast-fill pieces (if enabled) and the
+     * per-block list in support order.
+     */
+    private void prepareLayer() {
+        if (preparedLayerIndex == currentLayerIndex) {
+            return;
+        }
+
+        List<BlockEntry> ordered = layerOrders.get(currentLayerIndex).getBlocks();
+        fillPieceIndex = 0;
+        filledCells = 0;
+
+        if (fastFill && fastFillWriter != null && !avatarMode) {
+            CuboidDecomposer.Result result = CuboidDecomposer.decompose(
+                    ordered, FastFillWriter::canFastFill, FAST_FILL_MIN_VOLUME);
+            fillPieces = FastFillWriter.split(result.getCuboids(), placement);
+            currentBlocks = result.getRemaining();
+
+            LOGGER.info("Fast-fill layer {}: {} cuboids, {} blocks left for per-block pass",
+                    currentLayerIndex, result.getCuboids().size(), currentBlocks.size());
+        } else {
+            fillPieces = List.of();
+            currentBlocks = ordered;
+        }
+
+        // Avatars build stand by stand: regroup the layer around planned stand positions
+        reachPlan = null;
+        if (avatarMode && world != null) {
+            planAvatarWork();
+        }
+
+        if (!fillPieces.isEmpty()) {
+            List<FastFillWriter.Piece> pieces = fillPieces;
+            chunkPrefetcher.setSequence(pieces.size(), i -> pieces.get(i).getChunkPos());
+        } else {
+            prefetchBlocks();
+        }
+
+        preparedLayerIndex = currentLayerIndex;
+
+        // Someone may have emptied a chest since the reservation
+        if (materials != null) {
+            Int2IntOpenHashMap missing = materials.verify();
+            if (!missing.isEmpty()) {
+                pauseForMaterials(missing);
+            }
+        }
+    }
+
+    /**
+     * Plans stand positions for the blocks of the layer not placed yet and puts
+     * them, grouped by stand, after the placed ones.
+     */
+    private void planAvatarWork() {
+        List<BlockEntry> remaining = currentBlocks.subList(currentBlockIndex, currentBlocks.size());
+        if (remaining.isEmpty()) {
+            return;
+        }
+
+        BlockPos start = crew != null && crew.isSpawned()
+                ? crew.getPosition()
+                : placement.toWorldPos(remaining.get(0));
+        reachPlan = ReachPlanner.plan(remaining, placement, FakePlayerBuilder.REACH_DISTANCE,
+                this::canStandAt, start);
+
+        if (currentBlockIndex == 0) {
+            currentBlocks = reachPlan.getBlocks();
+        } else {
+            List<BlockEntry> blocks = new ArrayList<>(currentBlocks.subList(0, currentBlockIndex));
+            blocks.addAll(reachPlan.getBlocks());
+            currentBlocks = blocks;
+        }
+        LOGGER.info("Avatar layer {}: {} stops for {} blocks, {} blocks of walking",
+                currentLayerIndex, reachPlan.getStandCount(), remaining.size(), (int) reachPlan.getTourLength());
+    }
+
+    private void prefetchBlocks() {
+        if (chunkPrefetcher == null) {
+            return;
+        }
+        List<BlockEntry> blocks = currentBlocks;
+        chunkPrefetcher.setSequence(blocks.size(),
+                i -> ChunkPrefetcher.chunkOf(placement.toWorldPos(blocks.get(i))));
+    }
+
+    /**
+     * Writes fast-fill pieces worth the given budget. Returns budget used.
+     */
+    private int runFastFill(int count) {
+        chunkPrefetcher.update(fillPieceIndex);
+
+        int cellBudget = count * FAST_FILL_CELLS_PER_BLOCK;
+        int cellsUsed = 0;
+
+        while (cellsUsed < cellBudget && fillPieceIndex < fillPieces.size()) {
+            FastFillWriter.Piece piece = fillPieces.get(fillPieceIndex);
+
+            if (!chunkPrefetcher.isChunkReady(piece.getChunkPos())) {
+                chunkWaits++;
+                BuildMetrics.get().recordChunkWait();
+                recordChunkWait(ChunkPos.getPackedX(piece.getChunkPos()), ChunkPos.getPackedZ(piece.getChunkPos()));
+                logOp(piece.getCenter(), null, SessionLog.OP_CHUNK_WAIT, SessionLog.RESULT_OK, 0);
+                tickCounter = 1;
+                break;
+            }
+
+            Profiler profiler = getProfiler();
+            profiler.push("place");
+            int written;
+            try {
+                long startTime = System.nanoTime();
+                written = fastFillWriter.write(piece);
+                logOp(piece.getCenter(), piece.getState(), SessionLog.OP_FILL,
+                        written == piece.getVolume() ? SessionLog.RESULT_OK : SessionLog.RESULT_FAILED,
+                        System.nanoTime() - startTime);
+            } finally {
+                profiler.pop();
+            }
+            totalBlocksBuilt += written;
+            BuildMetrics.get().recordFilled(written);
+            playSound(piece.getCenter(), piece.getState().getSoundGroup().getPlaceSound());
+            filledCells += piece.getVolume();
+            cellsUsed += piece.getVolume();
+            fillPieceIndex++;
+        }
+
+        if (fillPieceIndex >= fillPieces.size()) {
+            // Cuboids done - continue with the remaining blocks one by one
+            prefetchBlocks();
+        }
+
+        return Math.min(count, (cellsUsed + FAST_FILL_CELLS_PER_BLOCK - 1) / FAST_FILL_CELLS_PER_BLOCK);
+    }
+
+    /**
+     * Moves chunk tickets along with the frontier. A crew works on several runs of
+     * the queue at once, so every avatar's run gets its own lookahead.
+     */
+    private void updatePrefetch() {
+        if (chunkPrefetcher == null || currentLayerIndex >= sortedLayers.size()) {
+            return;
+        }
+        if (crew != null && crew.getPlan() == reachPlan) {
+            int runs = crew.getRuns(prefetchFrom, prefetchTo);
+            chunkPrefetcher.update(prefetchFrom, prefetchTo, runs);
+        } else {
+            chunkPrefetcher.update(currentBlockIndex);
+        }
     }
 
     /**
      * Processes the next block in the build queue.
+     * Returns false when a layer or the whole build was completed instead,
+     * or when the block's chunk is still loading (with a crew: when no avatar can place now).
      */
-    private void processNextBlock() {
+    private boolean processNextBlock() {
         if (currentLayerIndex >= sortedLayers.size()) {
             finishBuild();
-            return;
+            return false;
         }
 
         BuildLayer layer = sortedLayers.get(currentLayerIndex);
+        prepareLayer();
+        List<BlockEntry> blocks = currentBlocks;
 
-        if (currentBlockIndex >= layer.getBlocks().size()) {
+        if (currentBlockIndex >= blocks.size()) {
             // Layer complete
             completeLayer(layer);
-            return;
+            return false;
+        }
+
+        BlockEntry entry;
+        BlockPos worldPos;
+        if (crew != null) {
+            // The crew places out of order: it picks whose block goes next. An avatar
+            // that cannot place its block now sits out the tick, the others go on
+            while (true) {
+                int index = crew.nextBlock();
+                if (index < 0) {
+                    return false;
+                }
+                entry = blocks.get(index);
+                worldPos = placement.toWorldPos(entry);
+
+                if (!sink.canWriteAt(worldPos)) {
+                    recordChunkWait(worldPos);
+                    crew.skipCurrent();
+                } else if (!crew.canPlace(worldPos)) {
+                    // Out of reach: the avatar walks on next tick
+                    crew.skipCurrent();
+                } else {
+                    break;
+                }
+            }
+        } else {
+            entry = blocks.get(currentBlockIndex);
+            worldPos = placement.toWorldPos(entry);
+
+            // Never force a synchronous chunk load - wait for the ticket to load it
+            if (!sink.canWriteAt(worldPos)) {
+                recordChunkWait(worldPos);
+                tickCounter = SPEED_DELAYS[speed - 1];
+                return false;
+            }
         }
 
-        BlockEntry entry = layer.getBlocks().get(currentBlockIndex);
-        BlockPos worldPos = placement.toWorldPos(entry);
+        long startTime = System.nanoTime();
 
         // Check if we need to break an existing block
-        BlockState existingState = world.getBlockState(worldPos);
+        BlockState existingState = sink.getBlockState(worldPos);
 
         if (!existingState.isAir() && !isReplaceable(existingState)) {
             // Break the block first
             breakBlock(worldPos, existingState);
+            logOp(worldPos, existingState, SessionLog.OP_BREAK, SessionLog.RESULT_OK, System.nanoTime() - startTime);
         }
 
         // Place the block
         BlockState targetState = entry.getBlockState();
         targetState = placement.rotateBlockState(targetState);
 
-        if (placeBlock(worldPos, targetState)) {
+        boolean success = placeBlock(worldPos, targetState);
+        if (success) {
             totalBlocksBuilt++;
+            long nanos = System.nanoTime() - startTime;
+            BuildMetrics.get().recordPlaced(nanos);
+            logOp(worldPos, targetState, SessionLog.OP_PLACE, SessionLog.RESULT_OK, nanos);
+        } else {
+            BuildMetrics.get().recordFailedPlacement();
+            logOp(worldPos, targetState, SessionLog.OP_PLACE, SessionLog.RESULT_FAILED, System.nanoTime() - startTime);
+        }
+
+        if (crew != null) {
+            crew.onPlaced(worldPos, success);
         }
 
+        // With a crew this counts placed blocks rather than pointing at the next one
         currentBlockIndex++;
+        return true;
     }
 
     /**
      * Places a block directly (no fake player needed).
+     * Runs on the server thread.
      */
     private boolean placeBlock(BlockPos pos, BlockState state) {
+        Profiler profiler = getProfiler();
+        profiler.push("place");
         try {
-            // Place block on server thread
-            world.getServer().execute(() -> {
-                boolean success = world.setBlockState(pos, state, 3);
-
-                if (success) {
-                    // Play place sound
-                    world.playSound(null, pos,
-                            state.getSoundGroup().getPlaceSound(),
-                            SoundCategory.BLOCKS, 1.0f, 1.0f);
+            boolean deferred = updateMode == UpdateMode.DEFERRED && deferredUpdates != null;
+            boolean success = sink.setBlockState(pos, state, deferred ? DeferredUpdates.PLACE_FLAGS : 3);
+
+            if (success && deferred) {
+                deferredUpdates.record(pos);
+                if (deferredUpdates.size() >= DEFERRED_FLUSH_LIMIT) {
+                    flushDeferredUpdates();
                 }
-            });
+            }
 
-            return true;
+            if (success) {
+                // Play place sound
+                playSound(pos, state.getSoundGroup().getPlaceSound());
+            }
+
+            return success;
         } catch (Exception e) {
             LOGGER.error("Failed to place block at {}: {}", pos, e.getMessage());
             return false;
+        } finally {
+            profiler.pop();
         }
     }
 
@@ -352,18 +1183,65 @@ public class BuildExecutor {
      * Breaks a block directly.
      */
     private void breakBlock(BlockPos pos, BlockState state) {
+        Profiler profiler = getProfiler();
+        profiler.push("break");
         try {
-            world.getServer().execute(() -> {
-                // Play break sound
-                world.playSound(null, pos,
-                        state.getSoundGroup().getBreakSound(),
-                        SoundCategory.BLOCKS, 1.0f, 1.0f);
-
-                // Break the block
-                world.breakBlock(pos, false);
-            });
+            // Play break sound
+            playSound(pos, state.getSoundGroup().getBreakSound());
+
+            // Break the block
+            sink.breakBlock(pos, false);
+            BuildMetrics.get().recordBroken();
         } catch (Exception e) {
             LOGGER.error("Failed to break block at {}: {}", pos, e.getMessage());
+        } finally {
+            profiler.pop();
+        }
+    }
+
+    /**
+     * Plays a block sound through the aggregator, with the current speed's limit.
+     */
+    private void playSound(BlockPos pos, SoundEvent sound) {
+        if (world == null) {
+            return;
+        }
+        effects.playSound(world, pos, sound, tickSoundLimit);
+    }
+
+    /**
+     * Server profiler, so /debug and the F3 pie chart show BuilderBot's share.
+     */
+    private Profiler getProfiler() {
+        return world != null ? world.getProfiler() : DummyProfiler.INSTANCE;
+    }
+
+    private void logOp(BlockPos pos, BlockState state, byte op, byte result, long nanos) {
+        if (sessionLog != null) {
+            sessionLog.record(buildTicks, pos, state, op, result, nanos);
+        }
+    }
+
+    private void closeSessionLog() {
+        if (sessionLog != null) {
+            sessionLog.close();
+            sessionLog = null;
+        }
+    }
+
+    private void recordChunkWait(BlockPos pos) {
+        chunkWaits++;
+        BuildMetrics.get().recordChunkWait();
+        recordChunkWait(pos.getX() >> 4, pos.getZ() >> 4);
+        logOp(pos, null, SessionLog.OP_CHUNK_WAIT, SessionLog.RESULT_OK, 0);
+    }
+
+    private static void recordChunkWait(int chunkX, int chunkZ) {
+        ChunkWaitEvent event = new ChunkWaitEvent();
+        if (event.shouldCommit()) {
+            event.chunkX = chunkX;
+            event.chunkZ = chunkZ;
+            event.commit();
         }
     }
 
@@ -371,6 +1249,9 @@ public class BuildExecutor {
      * Completes the current layer.
      */
     private void completeLayer(BuildLayer layer) {
+        flushDeferredUpdates();
+        flushLighting();
+
         sendMessage("§a✓ Слой завершён: " + layer.getName() +
                 " (" + layer.getBlockCount() + " блоков)");
 
@@ -392,10 +1273,19 @@ public class BuildExecutor {
      * Finishes the entire build.
      */
     private void finishBuild() {
+        flushDeferredUpdates();
+        flushLighting();
+
         sendMessage("§a§l✓ Строительство завершено!");
         sendMessage("§7Построено блоков: " + totalBlocksBuilt);
 
         state = BuildState.FINISHED;
+        if (chunkPrefetcher != null) {
+            chunkPrefetcher.releaseAll();
+        }
+        closeSessionLog();
+        releaseMaterials();
+        despawnAvatar();
 
         if (buildCompleteCallback != null) {
             buildCompleteCallback.run();
@@ -404,6 +1294,73 @@ public class BuildExecutor {
         LOGGER.info("Build complete: {} blocks", totalBlocksBuilt);
     }
 
+    /**
+     * Runs neighbour and shape updates skipped by deferred placements.
+     */
+    private void flushDeferredUpdates() {
+        if (deferredUpdates == null || deferredUpdates.size() == 0) {
+            return;
+        }
+
+        BatchFlushEvent event = new BatchFlushEvent();
+        event.begin();
+        Profiler profiler = getProfiler();
+        profiler.push("place");
+
+        long startTime = System.nanoTime();
+        int count = deferredUpdates.flush();
+        profiler.pop();
+
+        if (event.shouldCommit()) {
+            event.kind = "deferred_updates";
+            event.positions = count;
+            event.commit();
+        }
+        LOGGER.debug("Deferred updates: {} positions in {} us", count, (System.nanoTime() - startTime) / 1000);
+    }
+
+    /**
+     * Submits collected light checks to the light provider.
+     */
+    private void flushLighting() {
+        ticksSinceLightFlush = 0;
+        if (lightBatcher == null || lightBatcher.size() == 0) {
+            return;
+        }
+
+        BatchFlushEvent event = new BatchFlushEvent();
+        event.begin();
+        Profiler profiler = getProfiler();
+        profiler.push("lighting");
+        int count = lightBatcher.flush();
+        profiler.pop();
+
+        if (event.shouldCommit()) {
+            event.kind = "lighting";
+            event.positions = count;
+            event.commit();
+        }
+    }
+
+    /**
+     * Warns about blocks the support ordering could not resolve.
+     */
+    private void reportSupportProblems() {
+        int cycles = 0;
+        int unsupported = 0;
+        for (PlacementOrderer.LayerOrder order : layerOrders) {
+            cycles += order.getCycleBlocks();
+            unsupported += order.getUnsupportedBlocks();
+        }
+
+        if (cycles > 0) {
+            sendMessage("§eБлоков с циклической опорой: " + cycles);
+        }
+        if (unsupported > 0) {
+            sendMessage("§eБлоков без опоры в схеме: " + unsupported);
+        }
+    }
+
     /**
      * Checks if a block state is replaceable.
      */
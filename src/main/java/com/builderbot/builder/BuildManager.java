@@ -1,25 +1,53 @@
 package com.builderbot.builder;
 
+import com.builderbot.metrics.SessionLog;
 import com.builderbot.placement.PlacementController;
 import com.builderbot.placement.SchematicPlacement;
+import com.builderbot.schematic.SchematicGenerator;
 import com.builderbot.schematic.SchematicLoader;
 import com.builderbot.schematic.TutorialSchematic;
+import net.fabricmc.loader.api.FabricLoader;
 import net.minecraft.client.MinecraftClient;
+import net.minecraft.server.MinecraftServer;
 import net.minecraft.server.world.ServerWorld;
 import net.minecraft.text.Text;
+import net.minecraft.util.profiler.Profiler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.function.Consumer;
+
 public class BuildManager {
     private static final Logger LOGGER = LoggerFactory.getLogger("BuilderBot");
     private static BuildManager INSTANCE;
 
     private TutorialSchematic currentSchematic;
     private PlacementController placementController;
-    private BuildExecutor buildExecutor;
+    private final BuildScheduler scheduler;
+
+    // Build the player is looking at (HUD, /build pause, /build speed, ...)
+    private volatile BuildExecutor buildExecutor;
+
+    // Options applied to newly started builds
+    private boolean fastFill = false;
+    private BuildExecutor.UpdateMode updateMode = BuildExecutor.UpdateMode.IMMEDIATE;
+    private int lightFlushInterval = 0;
+    private int soundLimit = EffectAggregator.DEFAULT_SOUND_LIMIT;
+    private boolean sessionLogging = false;
+    private boolean avatarMode = false;
+    private int avatarCount = 1;
+    private int swingInterval = AvatarAnimator.DEFAULT_SWING_INTERVAL;
+    private boolean survival = false;
+    private int containerRadius = MaterialManager.DEFAULT_RADIUS;
+    private int tripBlocks = MaterialManager.DEFAULT_TRIP_BLOCKS;
 
     private BuildManager() {
         this.placementController = new PlacementController();
+        this.scheduler = new BuildScheduler();
         this.buildExecutor = new BuildExecutor();
         buildExecutor.setMessageCallback(this::sendChatMessage);
     }
@@ -31,6 +59,31 @@ public class BuildManager {
         return INSTANCE;
     }
 
+    /**
+     * Writes a synthetic schematic into the schematics folder in the background.
+     */
+    public void generateSchematic(String name, int sizeX, int sizeY, int sizeZ, int layers, long seed) {
+        SchematicGenerator generator = new SchematicGenerator();
+        generator.setSize(sizeX, sizeY, sizeZ);
+        generator.setLayers(layers);
+        generator.setSeed(seed);
+
+        sendChatMessage("§7Генерирую схему '" + name + "': " + generator.getTotalBlocks() + " блоков...");
+
+        Thread thread = new Thread(() -> {
+            try {
+                SchematicLoader.ensureFolderExists();
+                long blocks = generator.generate(SchematicLoader.getSchematicPath(name), name);
+                sendChatMessage("§a✓ Схема сгенерирована: " + name + " (" + blocks + " блоков)");
+            } catch (Exception e) {
+                LOGGER.error("Failed to generate schematic {}", name, e);
+                sendChatMessage("§cОшибка генерации: " + e.getMessage());
+            }
+        }, "BuilderBot-Generator");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
     public boolean loadSchematic(String filename) {
         TutorialSchematic schematic = SchematicLoader.load(filename);
 
@@ -56,9 +109,8 @@ public class BuildManager {
     }
 
     public void unloadSchematic() {
-        if (buildExecutor.getState() != BuildExecutor.BuildState.IDLE &&
-                buildExecutor.getState() != BuildExecutor.BuildState.FINISHED) {
-            buildExecutor.stop();
+        if (isBuildingPlacement(placementController.getPlacement())) {
+            stopBuild();
         }
 
         currentSchematic = null;
@@ -133,8 +185,22 @@ public class BuildManager {
         return buildExecutor;
     }
 
+    public BuildScheduler getScheduler() {
+        return scheduler;
+    }
+
     /**
-     * Starts building - locks placement.
+     * Checks if the focused build is building the given placement.
+     * Other placements keep their preview while a build runs elsewhere.
+     */
+    public boolean isBuildingPlacement(SchematicPlacement placement) {
+        return placement != null && buildExecutor.getPlacement() == placement && buildExecutor.isBuilding();
+    }
+
+    /**
+     * Starts building - locks placement and hands a new executor to the scheduler.
+     * The executor is set up and started on the server thread (a survival start reads
+     * containers and reserves items there); its result is reported in chat.
      */
     public boolean startBuild() {
         if (currentSchematic == null) {
@@ -154,53 +220,332 @@ public class BuildManager {
             return false;
         }
 
-        ServerWorld world = client.getServer().getOverworld();
+        ServerWorld world = client.player != null
+                ? client.getServer().getWorld(client.player.getWorld().getRegistryKey())
+                : client.getServer().getOverworld();
         if (world == null) {
             sendChatMessage("§cМир не найден");
             return false;
         }
 
+        if (isBuildingPlacement(placement)) {
+            sendChatMessage("§cЭта схема уже строится");
+            return false;
+        }
+
         // Lock placement - no more movement
         placementController.lockForBuilding();
 
-        buildExecutor.initialize(currentSchematic, placement, world);
-        return buildExecutor.start();
+        BuildExecutor executor = new BuildExecutor();
+        executor.setMessageCallback(this::sendChatMessage);
+        executor.setFastFill(fastFill);
+        executor.setUpdateMode(updateMode);
+        executor.setLightFlushInterval(lightFlushInterval);
+        executor.setSoundLimit(soundLimit);
+        executor.setAvatarMode(avatarMode);
+        executor.setAvatarCount(avatarCount);
+        executor.setSwingInterval(swingInterval);
+        executor.setSurvival(survival);
+        executor.setContainerRadius(containerRadius);
+        executor.setTripBlocks(tripBlocks);
+        boolean logSession = sessionLogging;
+        TutorialSchematic schematic = currentSchematic;
+
+        runOnServer(() -> {
+            executor.initialize(schematic, placement, world);
+            if (!executor.start()) {
+                // E.g. missing materials: the placement can be changed again
+                MinecraftClient.getInstance().execute(() -> {
+                    if (placementController.getPlacement() == placement) {
+                        placementController.unlockForBuilding();
+                    }
+                });
+                return;
+            }
+            if (logSession) {
+                openSessionLog(executor, schematic);
+            }
+
+            // From now on messages are tagged with the build number
+            BuildScheduler.Job job = scheduler.submit(executor);
+            executor.setMessageCallback(message -> sendJobMessage(job, message));
+            buildExecutor = executor;
+
+            sendChatMessage("§7Стройка #" + job.getId() + ", активных: " + scheduler.getJobCount());
+        });
+        return true;
     }
 
     public void pauseBuild() {
-        buildExecutor.pause();
+        runOnServer(buildExecutor::pause);
     }
 
     public void resumeBuild() {
-        buildExecutor.resume();
+        runOnServer(buildExecutor::resume);
     }
 
     public void stopBuild() {
-        buildExecutor.stop();
+        runOnServer(buildExecutor::stop);
     }
 
     public void setSpeed(int speed) {
-        buildExecutor.setSpeed(speed);
+        runOnServer(() -> buildExecutor.setSpeed(speed));
+    }
+
+    /**
+     * Toggles fast-fill for the focused build (from its next layer) and for new builds.
+     */
+    public void setFastFill(boolean enabled) {
+        this.fastFill = enabled;
+        BuildExecutor executor = buildExecutor;
+        runOnServer(() -> executor.setFastFill(enabled));
+        sendChatMessage(enabled
+                ? "§aБыстрая заливка включена §7(со следующего слоя)"
+                : "§7Быстрая заливка выключена");
+    }
+
+    /**
+     * Toggles the fake player avatar for the focused build and for new builds.
+     */
+    public void setAvatarMode(boolean enabled) {
+        this.avatarMode = enabled;
+        BuildExecutor executor = buildExecutor;
+        runOnServer(() -> executor.setAvatarMode(enabled));
+        sendChatMessage(enabled
+                ? "§aАватар включён §7(строит то, до чего дотягивается)"
+                : "§7Аватар выключен");
+    }
+
+    /**
+     * Sets how many avatars build together, for the focused build and new builds.
+     */
+    public void setAvatarCount(int count) {
+        this.avatarCount = Math.max(1, Math.min(AvatarCrew.MAX_SIZE, count));
+        int applied = avatarCount;
+        BuildExecutor executor = buildExecutor;
+        runOnServer(() -> executor.setAvatarCount(applied));
+        sendChatMessage("§aАватаров: " + applied + (avatarMode ? "" : " §7(включите /build avatar on)"));
+    }
+
+    /**
+     * Sets how often avatars swing their hand, for the focused build and new builds.
+     */
+    public void setSwingInterval(int ticks) {
+        this.swingInterval = Math.max(1, Math.min(AvatarAnimator.MAX_SWING_INTERVAL, ticks));
+        int applied = swingInterval;
+        BuildExecutor executor = buildExecutor;
+        runOnServer(() -> executor.setSwingInterval(applied));
+        sendChatMessage("§aАватары машут рукой не чаще раза в " + applied + " тик(ов)");
+    }
+
+    /**
+     * Toggles building with items from nearby containers, for new builds.
+     */
+    public void setSurvival(boolean enabled) {
+        this.survival = enabled;
+        sendChatMessage(enabled
+                ? "§aРежим выживания включён §7(блоки берутся из сундуков рядом, со следующей стройки)"
+                : "§7Режим выживания выключен");
+        if (enabled && !avatarMode) {
+            sendChatMessage("§7Материалы носят аватары: включите /build avatar on");
+        }
+    }
+
+    /**
+     * Sets how far around the site containers are searched, for the focused build
+     * (when it looks again) and new builds.
+     */
+    public void setContainerRadius(int radius) {
+        this.containerRadius = Math.max(0, Math.min(MaterialManager.MAX_RADIUS, radius));
+        int applied = containerRadius;
+        BuildExecutor executor = buildExecutor;
+        runOnServer(() -> executor.setContainerRadius(applied));
+        sendChatMessage("§aРадиус поиска сундуков: " + applied);
+    }
+
+    /**
+     * Sets for how many blocks avatars fetch items per trip, for the focused build
+     * (from its next crew) and new builds.
+     */
+    public void setTripBlocks(int blocks) {
+        this.tripBlocks = Math.max(1, Math.min(MaterialManager.MAX_TRIP_BLOCKS, blocks));
+        int applied = tripBlocks;
+        BuildExecutor executor = buildExecutor;
+        runOnServer(() -> executor.setTripBlocks(applied));
+        sendChatMessage("§aЗа один поход аватар берёт материалы на " + applied + " блоков");
+    }
+
+    /**
+     * Sets how the focused build and new builds deliver neighbour updates.
+     */
+    public void setUpdateMode(BuildExecutor.UpdateMode mode) {
+        this.updateMode = mode;
+        BuildExecutor executor = buildExecutor;
+        runOnServer(() -> executor.setUpdateMode(mode));
+        sendChatMessage(mode == BuildExecutor.UpdateMode.DEFERRED
+                ? "§aОбновления соседей: отложенные §7(один проход на слой)"
+                : "§7Обновления соседей: сразу");
+    }
+
+    /**
+     * Sets the light flush interval (0 = per placement) for the focused build and new builds.
+     */
+    public void setLightFlushInterval(int ticks) {
+        this.lightFlushInterval = ticks;
+        BuildExecutor executor = buildExecutor;
+        runOnServer(() -> executor.setLightFlushInterval(ticks));
+        sendChatMessage(ticks > 0
+                ? "§aСвет: пакетно, раз в " + ticks + " тиков"
+                : "§7Свет: после каждого блока");
+    }
+
+    /**
+     * Sets the per-tick sound limit for the focused build and new builds.
+     */
+    public void setSoundLimit(int limit) {
+        this.soundLimit = limit;
+        BuildExecutor executor = buildExecutor;
+        runOnServer(() -> executor.setSoundLimit(limit));
+        sendChatMessage(limit > 0
+                ? "§aЗвуки: не больше " + limit + " на звук за тик, если за тик ставится больше блоков"
+                : "§7Звуки: на каждый блок");
+    }
+
+    public int getSoundLimit() {
+        return soundLimit;
+    }
+
+    /**
+     * Turns the per-op session log on or off for new builds.
+     */
+    public void setSessionLogging(boolean enabled) {
+        this.sessionLogging = enabled;
+        sendChatMessage(enabled
+                ? "§aЛог операций включён §7(для новых строек, builderbot/sessions/)"
+                : "§7Лог операций выключен");
+    }
+
+    private void openSessionLog(BuildExecutor executor, TutorialSchematic schematic) {
+        String name = schematic.getName().replaceAll("[^A-Za-z0-9_.-]", "_");
+        Path file = FabricLoader.getInstance().getGameDir()
+                .resolve("builderbot").resolve("sessions")
+                .resolve(name + "-" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")) + ".bbsl");
+        try {
+            executor.setSessionLog(SessionLog.open(file, schematic.getName()));
+        } catch (IOException e) {
+            LOGGER.error("Failed to open session log {}", file, e);
+            sendChatMessage("§cНе удалось создать лог операций");
+        }
     }
 
     public void skipLayer() {
-        buildExecutor.skipLayer();
+        runOnServer(buildExecutor::skipLayer);
     }
 
     public void gotoLayer(int order) {
-        buildExecutor.gotoLayer(order);
+        runOnServer(() -> buildExecutor.gotoLayer(order));
+    }
+
+    // === Individual builds ===
+
+    public boolean pauseJob(int id) {
+        return withJob(id, job -> job.getExecutor().pause());
+    }
+
+    public boolean resumeJob(int id) {
+        return withJob(id, job -> job.getExecutor().resume());
+    }
+
+    public boolean stopJob(int id) {
+        return withJob(id, job -> job.getExecutor().stop());
+    }
+
+    public boolean setJobWeight(int id, int weight) {
+        return withJob(id, job -> {
+            scheduler.setWeight(job, weight);
+            sendChatMessage("§7Стройка #" + id + ": приоритет " + job.getWeight());
+        });
+    }
+
+    /**
+     * Makes the given build the one shown in the HUD and controlled by plain commands.
+     */
+    public boolean focusJob(int id) {
+        BuildScheduler.Job job = scheduler.getJob(id);
+        if (job == null) {
+            sendChatMessage("§cСтройка #" + id + " не найдена");
+            return false;
+        }
+
+        buildExecutor = job.getExecutor();
+        sendChatMessage("§7Выбрана стройка #" + id + ": " + job.getName());
+        return true;
+    }
+
+    private boolean withJob(int id, Consumer<BuildScheduler.Job> action) {
+        BuildScheduler.Job job = scheduler.getJob(id);
+        if (job == null) {
+            sendChatMessage("§cСтройка #" + id + " не найдена");
+            return false;
+        }
+
+        runOnServer(() -> action.accept(job));
+        return true;
     }
 
-    public static void tick(MinecraftClient client) {
+    /**
+     * Executors are ticked on the server thread, so state changes go there too.
+     */
+    private void runOnServer(Runnable action) {
+        MinecraftServer server = MinecraftClient.getInstance().getServer();
+        if (server != null) {
+            server.execute(action);
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * Server tick - runs all scheduled builds.
+     */
+    public static void tick(MinecraftServer server) {
+        if (INSTANCE == null) {
+            return;
+        }
+
+        Profiler profiler = server.getProfiler();
+        profiler.push("builderbot");
+        try {
+            INSTANCE.scheduler.tick(server, profiler);
+        } finally {
+            profiler.pop();
+        }
+    }
+
+    /**
+     * Server shutdown (leaving the world): stops all of that server's builds.
+     */
+    public static void onServerStopping(MinecraftServer server) {
         if (INSTANCE != null) {
-            INSTANCE.buildExecutor.tick();
+            INSTANCE.scheduler.stopAll(server);
+        }
+    }
+
+    private void sendJobMessage(BuildScheduler.Job job, String message) {
+        if (scheduler.getJobCount() > 1) {
+            sendChatMessage("§8[#" + job.getId() + "] §r" + message);
+        } else {
+            sendChatMessage(message);
         }
     }
 
     private void sendChatMessage(String message) {
         MinecraftClient client = MinecraftClient.getInstance();
-        if (client.player != null) {
-            client.player.sendMessage(Text.literal(message), false);
-        }
+        // Build messages come from the server thread
+        client.execute(() -> {
+            if (client.player != null) {
+                client.player.sendMessage(Text.literal(message), false);
+            }
+        });
     }
 }
\ No newline at end of file
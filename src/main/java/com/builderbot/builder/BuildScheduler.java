@@ -0,0 +1,243 @@
+package com.builderbot.builder;
+
+import com.builderbot.metrics.BuildMetrics;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.profiler.Profiler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs several builds side by side on the server thread.
+ *
+ * All builds share one per-tick block budget, so total server load stays
+ * fixed no matter how many builds are active. The budget is split with
+ * weighted fair queuing: every granted block advances a build's virtual
+ * time by 1/weight, and the build with the smallest virtual time goes next.
+ */
+public class BuildScheduler {
+    private static final Logger LOGGER = LoggerFactory.getLogger("BuilderBot");
+
+    public static final int DEFAULT_BLOCK_BUDGET = 64;
+    public static final int DEFAULT_WEIGHT = 10;
+    public static final int MAX_WEIGHT = 100;
+
+    /**
+     * A single build registered with the scheduler.
+     */
+    public static class Job {
+        private final int id;
+        private final BuildExecutor executor;
+        private int weight;
+
+        // Scheduling state, reset every tick
+        private double virtualTime;
+        private int demand;
+        private int granted;
+
+        private Job(int id, BuildExecutor executor, int weight) {
+            this.id = id;
+            this.executor = executor;
+            this.weight = weight;
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        public BuildExecutor getExecutor() {
+            return executor;
+        }
+
+        public int getWeight() {
+            return weight;
+        }
+
+        public String getName() {
+            return executor.getSchematic() != null ? executor.getSchematic().getName() : "???";
+        }
+
+        /**
+         * Checks if the build writes into a world of the given server (headless builds run anywhere).
+         */
+        boolean runsOn(MinecraftServer server) {
+            ServerWorld world = executor.getWorld();
+            return world == null || world.getServer() == server;
+        }
+    }
+
+    private final List<Job> jobs = new ArrayList<>();
+    private final EffectAggregator effects = new EffectAggregator();
+    private int nextJobId = 1;
+    private int blockBudget = DEFAULT_BLOCK_BUDGET;
+
+    // Virtual clock: the smallest virtual time among builds that had demand
+    private double virtualClock = 0;
+
+    /**
+     * Registers a started build. Returns its job.
+     */
+    public synchronized Job submit(BuildExecutor executor) {
+        Job job = new Job(nextJobId++, executor, DEFAULT_WEIGHT);
+        executor.setEffects(effects);
+        job.virtualTime = virtualClock;
+        jobs.add(job);
+
+        LOGGER.info("Scheduled build #{} ({})", job.id, job.getName());
+        return job;
+    }
+
+    public synchronized Job getJob(int id) {
+        for (Job job : jobs) {
+            if (job.id == id) {
+                return job;
+            }
+        }
+        return null;
+    }
+
+    public synchronized Job findJob(BuildExecutor executor) {
+        for (Job job : jobs) {
+            if (job.executor == executor) {
+                return job;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns a snapshot of all registered jobs.
+     */
+    public synchronized List<Job> getJobs() {
+        return new ArrayList<>(jobs);
+    }
+
+    public synchronized int getJobCount() {
+        return jobs.size();
+    }
+
+    public synchronized void setWeight(Job job, int weight) {
+        job.weight = Math.max(1, Math.min(MAX_WEIGHT, weight));
+    }
+
+    public EffectAggregator getEffects() {
+        return effects;
+    }
+
+    public synchronized int getBlockBudget() {
+        return blockBudget;
+    }
+
+    public synchronized void setBlockBudget(int blockBudget) {
+        this.blockBudget = Math.max(1, blockBudget);
+    }
+
+    /**
+     * Stops and drops every build of the given server, e.g. when it shuts down, so no
+     * executor, avatar, chunk ticket or material reservation outlives its worlds.
+     */
+    public synchronized void stopAll(MinecraftServer server) {
+        jobs.removeIf(job -> {
+            if (!job.runsOn(server)) {
+                return false;
+            }
+            if (job.executor.isBuilding()) {
+                job.executor.stop();
+            }
+            LOGGER.info("Build #{} removed from scheduler (server stopping)", job.id);
+            return true;
+        });
+        effects.flush();
+    }
+
+    /**
+     * Server tick: collects demand, splits the budget and runs the builds of this server.
+     * Scheduling shows up as "tick" in the profiler, block work as "place", "break" and "lighting".
+     */
+    public synchronized void tick(MinecraftServer server, Profiler profiler) {
+        profiler.push("tick");
+        try {
+            planTick(server);
+        } finally {
+            profiler.pop();
+        }
+
+        for (Job job : jobs) {
+            if (job.granted > 0) {
+                job.executor.runBlocks(job.granted);
+            }
+        }
+
+        profiler.push("tick");
+        try {
+            finishTick();
+        } finally {
+            profiler.pop();
+        }
+    }
+
+    private void planTick(MinecraftServer server) {
+        long queuedBlocks = 0;
+        for (Job job : jobs) {
+            queuedBlocks += job.executor.getRemainingBlocks();
+        }
+        BuildMetrics.get().tick(jobs.size(), queuedBlocks);
+
+        int totalDemand = 0;
+        for (Job job : jobs) {
+            // A build left over from another server never touches this one
+            job.demand = job.runsOn(server) ? job.executor.pollDemand() : 0;
+            job.granted = 0;
+            if (job.demand > 0) {
+                // A build that was idle must not bank credit
+                job.virtualTime = Math.max(job.virtualTime, virtualClock);
+                totalDemand += job.demand;
+            }
+        }
+
+        int budget = Math.min(blockBudget, totalDemand);
+        for (int i = 0; i < budget; i++) {
+            Job next = null;
+            for (Job job : jobs) {
+                if (job.granted >= job.demand) {
+                    continue;
+                }
+                if (next == null || job.virtualTime + 1.0 / job.weight < next.virtualTime + 1.0 / next.weight) {
+                    next = job;
+                }
+            }
+
+            next.granted++;
+            next.virtualTime += 1.0 / next.weight;
+        }
+    }
+
+    private void finishTick() {
+        double minVirtualTime = Double.MAX_VALUE;
+        for (Job job : jobs) {
+            if (job.demand > 0) {
+                minVirtualTime = Math.min(minVirtualTime, job.virtualTime);
+            }
+        }
+        if (minVirtualTime != Double.MAX_VALUE) {
+            virtualClock = minVirtualTime;
+        }
+
+        // Sounds of all builds are merged per tick
+        effects.flush();
+
+        // Drop builds that finished or were stopped
+        jobs.removeIf(job -> {
+            BuildExecutor.BuildState state = job.executor.getState();
+            if (state == BuildExecutor.BuildState.FINISHED || state == BuildExecutor.BuildState.IDLE ||
+                    state == BuildExecutor.BuildState.ERROR) {
+                LOGGER.info("Build #{} removed from scheduler ({})", job.id, state);
+                return true;
+            }
+            return false;
+        });
+    }
+}
@@ -0,0 +1,241 @@
+package com.builderbot.builder;
+
+import it.unimi.dsi.fastutil.longs.Long2IntMap;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ObjectIterator;
+import net.minecraft.server.world.ChunkTicketType;
+import net.minecraft.server.world.ServerChunkManager;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.util.math.ChunkSectionPos;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.IntToLongFunction;
+
+/**
+ * Keeps chunks loaded ahead of the build frontier.
+ *
+ * Walks the work order ahead of the executor and adds a chunk ticket for
+ * the next N distinct chunks, so they load while earlier blocks are placed.
+ * Tickets are released as soon as the frontier has passed the last block
+ * that needs the chunk. Runs on the server thread.
+ *
+ * An avatar crew works on several runs of the sequence at once, so there can be
+ * several frontiers ("lanes"), each with its own lookahead over its own run. A chunk
+ * needed by more than one lane holds one ticket until no lane needs it.
+ */
+public class ChunkPrefetcher {
+    public static final int DEFAULT_LOOKAHEAD_CHUNKS = 8;
+
+    // Each lane looks at least this many chunks ahead, however many lanes there are
+    private static final int MIN_LANE_LOOKAHEAD = 2;
+
+    // Radius 1: the chunk itself gets block-ticking level, its neighbours are full,
+    // so neighbour updates at chunk borders never force a synchronous load
+    private static final int TICKET_RADIUS = 1;
+
+    // Upper bound on sequence elements scanned ahead of a frontier per update
+    private static final int MAX_SCAN_AHEAD = 4096;
+
+    private static final ChunkTicketType<ChunkPos> TICKET_TYPE =
+            ChunkTicketType.create("builderbot", Comparator.comparingLong(ChunkPos::toLong));
+
+    private final ServerWorld world;
+    private int lookaheadChunks = DEFAULT_LOOKAHEAD_CHUNKS;
+
+    // Ticketed chunk -> number of lanes that need it
+    private final Long2IntOpenHashMap ticketed = new Long2IntOpenHashMap();
+
+    // Per lane: chunk -> last sequence index of the lane that needs it, the lane's
+    // frontier, and how far its run has been scanned
+    private final List<Long2IntOpenHashMap> laneChunks = new ArrayList<>();
+    private int[] laneFrontier = new int[0];
+    private int[] laneScanned = new int[0];
+
+    // Work sequence: element index -> packed chunk position
+    private IntToLongFunction chunkAt;
+    private int sequenceSize;
+
+    // Single-frontier scratch for update(int)
+    private final int[] singleFrontier = new int[1];
+    private final int[] singleEnd = new int[1];
+
+    public ChunkPrefetcher(ServerWorld world) {
+        this.world = world;
+    }
+
+    public void setLookaheadChunks(int lookaheadChunks) {
+        this.lookaheadChunks = Math.max(1, lookaheadChunks);
+    }
+
+    public int getLookaheadChunks() {
+        return lookaheadChunks;
+    }
+
+    /**
+     * Packed chunk position of a world block position.
+     */
+    public static long chunkOf(BlockPos pos) {
+        return ChunkPos.toLong(
+                ChunkSectionPos.getSectionCoord(pos.getX()),
+                ChunkSectionPos.getSectionCoord(pos.getZ()));
+    }
+
+    /**
+     * Switches to a new work sequence (next layer, or fast-fill pieces). Tickets stay
+     * until the next update decides whether the new sequence still needs them.
+     */
+    public void setSequence(int size, IntToLongFunction chunkAt) {
+        this.chunkAt = chunkAt;
+        this.sequenceSize = size;
+        for (int lane = 0; lane < laneChunks.size(); lane++) {
+            for (Long2IntMap.Entry entry : laneChunks.get(lane).long2IntEntrySet()) {
+                entry.setValue(-1);
+            }
+            laneFrontier[lane] = 0;
+            laneScanned[lane] = 0;
+        }
+    }
+
+    /**
+     * Adds tickets ahead of the frontier and releases the ones behind it.
+     */
+    public void update(int frontier) {
+        singleFrontier[0] = frontier;
+        singleEnd[0] = sequenceSize;
+        update(singleFrontier, singleEnd, 1);
+    }
+
+    /**
+     * Same for several frontiers: lane i works on [frontiers[i], ends[i]) of the
+     * sequence. The lookahead is shared between the lanes.
+     */
+    public void update(int[] frontiers, int[] ends, int lanes) {
+        if (chunkAt == null) {
+            return;
+        }
+
+        setLaneCount(lanes);
+        int lookahead = Math.max(MIN_LANE_LOOKAHEAD, (lookaheadChunks + lanes - 1) / lanes);
+        for (int lane = 0; lane < lanes; lane++) {
+            updateLane(lane, frontiers[lane], Math.min(sequenceSize, ends[lane]), lookahead);
+        }
+    }
+
+    private void updateLane(int lane, int frontier, int end, int lookahead) {
+        Long2IntOpenHashMap chunks = laneChunks.get(lane);
+
+        // The lane moved back or its run was cut short (work stolen): start over
+        if (frontier < laneFrontier[lane] || end < laneScanned[lane]) {
+            for (long chunk : chunks.keySet()) {
+                release(chunk);
+            }
+            chunks.clear();
+            laneScanned[lane] = frontier;
+        }
+        laneFrontier[lane] = frontier;
+
+        int scanned = Math.max(laneScanned[lane], frontier);
+        int limit = Math.min(end, frontier + MAX_SCAN_AHEAD);
+
+        while (scanned < limit) {
+            long chunk = chunkAt.applyAsLong(scanned);
+
+            if (!chunks.containsKey(chunk)) {
+                if (chunks.size() >= lookahead) {
+                    break;
+                }
+                acquire(chunk);
+            }
+
+            chunks.put(chunk, scanned);
+            scanned++;
+        }
+        laneScanned[lane] = scanned;
+
+        // Release chunks the frontier has moved past
+        ObjectIterator<Long2IntMap.Entry> it = chunks.long2IntEntrySet().iterator();
+        while (it.hasNext()) {
+            Long2IntMap.Entry entry = it.next();
+            if (entry.getIntValue() < frontier) {
+                release(entry.getLongKey());
+                it.remove();
+            }
+        }
+    }
+
+    private void setLaneCount(int lanes) {
+        while (laneChunks.size() > lanes) {
+            Long2IntOpenHashMap chunks = laneChunks.remove(laneChunks.size() - 1);
+            for (long chunk : chunks.keySet()) {
+                release(chunk);
+            }
+        }
+        if (laneChunks.size() < lanes) {
+            int old = laneChunks.size();
+            while (laneChunks.size() < lanes) {
+                laneChunks.add(new Long2IntOpenHashMap());
+            }
+            laneFrontier = Arrays.copyOf(laneFrontier, lanes);
+            laneScanned = Arrays.copyOf(laneScanned, lanes);
+            for (int lane = old; lane < lanes; lane++) {
+                laneFrontier[lane] = 0;
+                laneScanned[lane] = 0;
+            }
+        }
+    }
+
+    private void acquire(long chunk) {
+        if (ticketed.addTo(chunk, 1) == 0) {
+            ChunkPos chunkPos = new ChunkPos(chunk);
+            world.getChunkManager().addTicket(TICKET_TYPE, chunkPos, TICKET_RADIUS, chunkPos);
+        }
+    }
+
+    private void release(long chunk) {
+        if (ticketed.addTo(chunk, -1) <= 1) {
+            ticketed.remove(chunk);
+            ChunkPos chunkPos = new ChunkPos(chunk);
+            world.getChunkManager().removeTicket(TICKET_TYPE, chunkPos, TICKET_RADIUS, chunkPos);
+        }
+    }
+
+    /**
+     * Checks that a chunk and all four neighbours are fully loaded.
+     */
+    public boolean isChunkReady(long chunk) {
+        int chunkX = ChunkPos.getPackedX(chunk);
+        int chunkZ = ChunkPos.getPackedZ(chunk);
+        ServerChunkManager chunkManager = world.getChunkManager();
+
+        return chunkManager.isChunkLoaded(chunkX, chunkZ) &&
+                chunkManager.isChunkLoaded(chunkX - 1, chunkZ) &&
+                chunkManager.isChunkLoaded(chunkX + 1, chunkZ) &&
+                chunkManager.isChunkLoaded(chunkX, chunkZ - 1) &&
+                chunkManager.isChunkLoaded(chunkX, chunkZ + 1);
+    }
+
+    public int getTicketCount() {
+        return ticketed.size();
+    }
+
+    /**
+     * Releases every ticket (build stopped or finished).
+     */
+    public void releaseAll() {
+        ServerChunkManager chunkManager = world.getChunkManager();
+        for (long chunk : ticketed.keySet()) {
+            ChunkPos chunkPos = new ChunkPos(chunk);
+            chunkManager.removeTicket(TICKET_TYPE, chunkPos, TICKET_RADIUS, chunkPos);
+        }
+        ticketed.clear();
+        laneChunks.clear();
+        laneFrontier = new int[0];
+        laneScanned = new int[0];
+        chunkAt = null;
+    }
+}
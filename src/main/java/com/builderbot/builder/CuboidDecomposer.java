@@ -0,0 +1,181 @@
+package com.builderbot.builder;
+
+import com.builderbot.schematic.BlockEntry;
+import it.unimi.dsi.fastutil.ints.IntArrays;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import net.minecraft.block.BlockState;
+import net.minecraft.util.math.BlockPos;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Splits a layer into maximal same-state cuboids (in schematic space).
+ *
+ * Greedy: starting from the lowest unvisited cell (y, then z, then x), grow along X,
+ * then whole rows along Z, then whole slabs along Y. Cuboids below the minimum volume
+ * are left to the per-block path together with ineligible blocks.
+ */
+public class CuboidDecomposer {
+
+    /**
+     * Axis-aligned box of identical block states, bounds inclusive.
+     */
+    public static class Cuboid {
+        public final int minX, minY, minZ;
+        public final int maxX, maxY, maxZ;
+        public final BlockState state;
+
+        Cuboid(int minX, int minY, int minZ, int maxX, int maxY, int maxZ, BlockState state) {
+            this.minX = minX;
+            this.minY = minY;
+            this.minZ = minZ;
+            this.maxX = maxX;
+            this.maxY = maxY;
+            this.maxZ = maxZ;
+            this.state = state;
+        }
+
+        public int getVolume() {
+            return (maxX - minX + 1) * (maxY - minY + 1) * (maxZ - minZ + 1);
+        }
+    }
+
+    /**
+     * Cuboids plus the blocks they do not cover, in their original order.
+     */
+    public static class Result {
+        private final List<Cuboid> cuboids;
+        private final List<BlockEntry> remaining;
+
+        Result(List<Cuboid> cuboids, List<BlockEntry> remaining) {
+            this.cuboids = cuboids;
+            this.remaining = remaining;
+        }
+
+        public List<Cuboid> getCuboids() {
+            return cuboids;
+        }
+
+        public List<BlockEntry> getRemaining() {
+            return remaining;
+        }
+    }
+
+    /**
+     * Decomposes the blocks. Only states accepted by the filter go into cuboids.
+     */
+    public static Result decompose(List<BlockEntry> blocks, Predicate<BlockState> eligible, int minVolume) {
+        int count = blocks.size();
+
+        // Eligible cells: position -> block index
+        Long2IntOpenHashMap cells = new Long2IntOpenHashMap(count);
+        cells.defaultReturnValue(-1);
+        int[] candidates = new int[count];
+        long[] sortKeys = new long[count];
+        int candidateCount = 0;
+
+        for (int i = 0; i < count; i++) {
+            BlockEntry entry = blocks.get(i);
+            if (!eligible.test(entry.getBlockState())) {
+                continue;
+            }
+            cells.put(BlockPos.asLong(entry.getX(), entry.getY(), entry.getZ()), i);
+            sortKeys[i] = sortKey(entry);
+            candidates[candidateCount++] = i;
+        }
+
+        // Lowest cell first so every cuboid grows from its min corner
+        int[] order = Arrays.copyOf(candidates, candidateCount);
+        IntArrays.quickSort(order, (a, b) -> Long.compare(sortKeys[a], sortKeys[b]));
+
+        boolean[] covered = new boolean[count];
+        List<Cuboid> cuboids = new ArrayList<>();
+
+        for (int start : order) {
+            if (covered[start]) {
+                continue;
+            }
+
+            BlockEntry origin = blocks.get(start);
+            BlockState state = origin.getBlockState();
+            int x0 = origin.getX(), y0 = origin.getY(), z0 = origin.getZ();
+
+            int x1 = x0;
+            while (matches(cells, covered, blocks, state, x1 + 1, y0, z0)) {
+                x1++;
+            }
+
+            int z1 = z0;
+            while (rowMatches(cells, covered, blocks, state, x0, x1, y0, z1 + 1)) {
+                z1++;
+            }
+
+            int y1 = y0;
+            while (slabMatches(cells, covered, blocks, state, x0, x1, y1 + 1, z0, z1)) {
+                y1++;
+            }
+
+            Cuboid cuboid = new Cuboid(x0, y0, z0, x1, y1, z1, state);
+            if (cuboid.getVolume() < minVolume) {
+                continue;
+            }
+
+            for (int y = y0; y <= y1; y++) {
+                for (int z = z0; z <= z1; z++) {
+                    for (int x = x0; x <= x1; x++) {
+                        covered[cells.get(BlockPos.asLong(x, y, z))] = true;
+                    }
+                }
+            }
+            cuboids.add(cuboid);
+        }
+
+        List<BlockEntry> remaining = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            if (!covered[i]) {
+                remaining.add(blocks.get(i));
+            }
+        }
+
+        return new Result(cuboids, remaining);
+    }
+
+    private static boolean matches(Long2IntOpenHashMap cells, boolean[] covered, List<BlockEntry> blocks,
+                                   BlockState state, int x, int y, int z) {
+        int index = cells.get(BlockPos.asLong(x, y, z));
+        return index >= 0 && !covered[index] && blocks.get(index).getBlockState() == state;
+    }
+
+    private static boolean rowMatches(Long2IntOpenHashMap cells, boolean[] covered, List<BlockEntry> blocks,
+                                      BlockState state, int x0, int x1, int y, int z) {
+        for (int x = x0; x <= x1; x++) {
+            if (!matches(cells, covered, blocks, state, x, y, z)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean slabMatches(Long2IntOpenHashMap cells, boolean[] covered, List<BlockEntry> blocks,
+                                       BlockState state, int x0, int x1, int y, int z0, int z1) {
+        for (int z = z0; z <= z1; z++) {
+            if (!rowMatches(cells, covered, blocks, state, x0, x1, y, z)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Sort key ordering cells by y, then z, then x (each offset into 21 unsigned bits).
+     */
+    private static long sortKey(BlockEntry entry) {
+        long y = entry.getY() + (1 << 20);
+        long z = entry.getZ() + (1 << 20);
+        long x = entry.getX() + (1 << 20);
+        return (y << 42) | (z << 21) | x;
+    }
+}
@@ -0,0 +1,95 @@
+package com.builderbot.builder;
+
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongArrays;
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockState;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkSectionPos;
+
+/**
+ * Collects positions placed without neighbour notifications and runs the
+ * skipped updates for all of them in one pass.
+ *
+ * While a structure is half built, immediate updates cascade through observers,
+ * redstone and fence/pane shapes on every placement. Deferring them to one pass
+ * per layer costs one shape recomputation and one neighbour notification per block,
+ * and the final connectivity is the same because every block sees its final neighbours.
+ */
+public class DeferredUpdates {
+
+    // Flags used while placing: set the state, tell clients, skip neighbours and shape updates
+    public static final int PLACE_FLAGS = Block.FORCE_STATE | Block.NOTIFY_LISTENERS;
+
+    private final ServerWorld world;
+    private final LongArrayList touched = new LongArrayList();
+
+    public DeferredUpdates(ServerWorld world) {
+        this.world = world;
+    }
+
+    /**
+     * Remembers a position placed with {@link #PLACE_FLAGS}.
+     */
+    public void record(BlockPos pos) {
+        touched.add(pos.asLong());
+    }
+
+    public int size() {
+        return touched.size();
+    }
+
+    /**
+     * Runs the skipped updates, chunk section by chunk section. Returns the number of positions.
+     */
+    public int flush() {
+        int count = touched.size();
+        if (count == 0) {
+            return 0;
+        }
+
+        long[] positions = touched.toLongArray();
+        touched.clear();
+
+        // Section order keeps each pass inside the same chunk data
+        LongArrays.quickSort(positions, (a, b) -> {
+            int bySection = Long.compare(sectionOf(a), sectionOf(b));
+            return bySection != 0 ? bySection : Long.compare(a, b);
+        });
+
+        // First let every placed block settle its own shape against its final neighbours
+        BlockPos.Mutable mutable = new BlockPos.Mutable();
+        for (long packed : positions) {
+            mutable.set(packed);
+            BlockState state = world.getBlockState(mutable);
+            BlockState updated = Block.postProcessState(state, world, mutable);
+            if (updated != state) {
+                world.setBlockState(mutable, updated, PLACE_FLAGS);
+            }
+        }
+
+        // Then deliver the block and shape updates the placements skipped
+        for (long packed : positions) {
+            BlockPos pos = BlockPos.fromLong(packed);
+            BlockState state = world.getBlockState(pos);
+            Block block = state.getBlock();
+
+            world.updateNeighbors(pos, block);
+            if (state.hasComparatorOutput()) {
+                world.updateComparators(pos, block);
+            }
+            state.updateNeighbors(world, pos, Block.NOTIFY_LISTENERS);
+            state.prepare(world, pos, Block.NOTIFY_LISTENERS);
+        }
+
+        return count;
+    }
+
+    private static long sectionOf(long packed) {
+        return ChunkSectionPos.asLong(
+                ChunkSectionPos.getSectionCoord(BlockPos.unpackLongX(packed)),
+                ChunkSectionPos.getSectionCoord(BlockPos.unpackLongY(packed)),
+                ChunkSectionPos.getSectionCoord(BlockPos.unpackLongZ(packed)));
+    }
+}
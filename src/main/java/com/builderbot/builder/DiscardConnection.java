@@ -0,0 +1,45 @@
+package com.builderbot.builder;
+
+import net.minecraft.network.ClientConnection;
+import net.minecraft.network.NetworkSide;
+import net.minecraft.network.PacketCallbacks;
+import net.minecraft.network.packet.Packet;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Connection of a fake player: there is no client, so outbound packets are dropped
+ * as they are handed over, before any encoding. A plain connection without a channel
+ * would queue every packet sent to the avatar until the avatar is gone.
+ */
+public class DiscardConnection extends ClientConnection {
+
+    // Statistics
+    private long dropped;
+
+    public DiscardConnection() {
+        super(NetworkSide.CLIENTBOUND);
+    }
+
+    @Override
+    public void send(Packet<?> packet) {
+        dropped++;
+    }
+
+    @Override
+    public void send(Packet<?> packet, @Nullable PacketCallbacks callbacks) {
+        dropped++;
+    }
+
+    @Override
+    public void send(Packet<?> packet, @Nullable PacketCallbacks callbacks, boolean flush) {
+        dropped++;
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    public long getDropped() {
+        return dropped;
+    }
+}
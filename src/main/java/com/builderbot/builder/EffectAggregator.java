@@ -0,0 +1,177 @@
+package com.builderbot.builder;
+
+import it.unimi.dsi.fastutil.objects.ObjectIterator;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectMap;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectOpenHashMap;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.sound.SoundCategory;
+import net.minecraft.sound.SoundEvent;
+import net.minecraft.util.math.BlockPos;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Merges block sounds played within one tick.
+ *
+ * With a limit of K, every sound event gets at most K sounds per world per tick.
+ * Positions are grouped into up to K clusters (each new position joins the nearest
+ * cluster once K exist), and each cluster plays once at its centroid, a bit louder
+ * the more blocks it stands for. A limit of 0 plays every sound right away.
+ *
+ * Sounds are looked up by world and then by sound event (both by identity), and the
+ * entries and clusters are kept from tick to tick, so a merged sound allocates nothing.
+ */
+public class EffectAggregator {
+
+    // Sounds per sound event and tick for builds writing more blocks than this in a tick
+    public static final int DEFAULT_SOUND_LIMIT = 8;
+
+    public static final int MAX_SOUND_LIMIT = 64;
+
+    // Volume grows by this much per doubling of merged sounds, up to MAX_VOLUME
+    private static final float VOLUME_PER_DOUBLING = 0.2f;
+    private static final float MAX_VOLUME = 2.0f;
+
+    private static class Cluster {
+        double sumX, sumY, sumZ;
+        int count;
+
+        double distanceSq(BlockPos pos) {
+            double dx = sumX / count - pos.getX();
+            double dy = sumY / count - pos.getY();
+            double dz = sumZ / count - pos.getZ();
+            return dx * dx + dy * dy + dz * dz;
+        }
+
+        void set(BlockPos pos) {
+            sumX = pos.getX();
+            sumY = pos.getY();
+            sumZ = pos.getZ();
+            count = 1;
+        }
+
+        void add(BlockPos pos) {
+            sumX += pos.getX();
+            sumY += pos.getY();
+            sumZ += pos.getZ();
+            count++;
+        }
+    }
+
+    /**
+     * One sound event in one world: this tick's clusters and limit.
+     */
+    private static class Sounds {
+        final List<Cluster> clusters = new ArrayList<>();
+        int size;
+        int limit;
+    }
+
+    // Worlds with sounds in the last tick; a world without any is dropped at the flush
+    private final Reference2ObjectOpenHashMap<ServerWorld, Reference2ObjectOpenHashMap<SoundEvent, Sounds>> pending =
+            new Reference2ObjectOpenHashMap<>();
+
+    // Statistics
+    private long requestedSounds;
+    private long playedSounds;
+
+    /**
+     * Plays a block sound, or merges it into this tick's sounds when limit > 0.
+     */
+    public void playSound(ServerWorld world, BlockPos pos, SoundEvent sound, int limit) {
+        requestedSounds++;
+
+        if (limit <= 0) {
+            world.playSound(null, pos, sound, SoundCategory.BLOCKS, 1.0f, 1.0f);
+            playedSounds++;
+            return;
+        }
+
+        Reference2ObjectOpenHashMap<SoundEvent, Sounds> sounds = pending.get(world);
+        if (sounds == null) {
+            sounds = new Reference2ObjectOpenHashMap<>();
+            pending.put(world, sounds);
+        }
+        Sounds entry = sounds.get(sound);
+        if (entry == null) {
+            entry = new Sounds();
+            sounds.put(sound, entry);
+        }
+
+        // Several builds may share a sound: the strictest limit wins
+        entry.limit = entry.size == 0 ? limit : Math.min(entry.limit, limit);
+
+        if (entry.size < entry.limit) {
+            if (entry.size == entry.clusters.size()) {
+                entry.clusters.add(new Cluster());
+            }
+            entry.clusters.get(entry.size++).set(pos);
+            return;
+        }
+
+        Cluster nearest = entry.clusters.get(0);
+        double nearestDistance = nearest.distanceSq(pos);
+        for (int i = 1; i < entry.size; i++) {
+            Cluster cluster = entry.clusters.get(i);
+            double distance = cluster.distanceSq(pos);
+            if (distance < nearestDistance) {
+                nearest = cluster;
+                nearestDistance = distance;
+            }
+        }
+        nearest.add(pos);
+    }
+
+    /**
+     * Plays the merged sounds of this tick. Call once at the end of every tick.
+     */
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        ObjectIterator<Reference2ObjectMap.Entry<ServerWorld, Reference2ObjectOpenHashMap<SoundEvent, Sounds>>> worlds =
+                pending.reference2ObjectEntrySet().fastIterator();
+        while (worlds.hasNext()) {
+            Reference2ObjectMap.Entry<ServerWorld, Reference2ObjectOpenHashMap<SoundEvent, Sounds>> world = worlds.next();
+            boolean played = false;
+            for (Reference2ObjectMap.Entry<SoundEvent, Sounds> sound : world.getValue().reference2ObjectEntrySet()) {
+                Sounds entry = sound.getValue();
+                for (int i = 0; i < entry.size; i++) {
+                    Cluster cluster = entry.clusters.get(i);
+                    float volume = Math.min(MAX_VOLUME,
+                            1.0f + VOLUME_PER_DOUBLING * (float) (Math.log(cluster.count) / Math.log(2)));
+                    world.getKey().playSound(null,
+                            cluster.sumX / cluster.count + 0.5,
+                            cluster.sumY / cluster.count + 0.5,
+                            cluster.sumZ / cluster.count + 0.5,
+                            sound.getKey(), SoundCategory.BLOCKS, volume, 1.0f);
+                    playedSounds++;
+                }
+                played |= entry.size > 0;
+                entry.size = 0;
+            }
+            if (!played) {
+                // Keeps no world alive once its builds are gone
+                worlds.remove();
+            }
+        }
+    }
+
+    /**
+     * Sound limit for a build that writes the given number of blocks this tick:
+     * a sound per block while that is no more than the limit, else merged down to it.
+     */
+    public static int limitFor(int blocks, int limit) {
+        return blocks > limit ? limit : 0;
+    }
+
+    public long getRequestedSounds() {
+        return requestedSounds;
+    }
+
+    public long getPlayedSounds() {
+        return playedSounds;
+    }
+}
@@ -1,16 +1,8 @@
 package com.builderbot.builder;
 
-import com.mojang.authlib.GameProfile;
-import net.minecraft.block.BlockState;
 import net.minecraft.entity.MovementType;
-import net.minecraft.network.ClientConnection;
-import net.minecraft.network.NetworkSide;
-import net.minecraft.server.MinecraftServer;
-import net.minecraft.server.network.ConnectedClientData;
-import net.minecraft.server.network.ServerPlayNetworkHandler;
 import net.minecraft.server.network.ServerPlayerEntity;
 import net.minecraft.server.world.ServerWorld;
-import net.minecraft.sound.SoundCategory;
 import net.minecraft.util.Hand;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.MathHelper;
@@ -19,31 +11,39 @@ import net.minecraft.world.GameMode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.lang.reflect.Constructor;
-import java.lang.reflect.Field;
-import java.lang.reflect.Method;
-import java.util.UUID;
+import java.util.ArrayDeque;
+import java.util.List;
 
 /**
  * Creates and manages a fake player entity that builds the schematic.
- * The fake player walks, looks around, and places blocks with animations.
+ * The fake player walks, looks around and swings at the blocks the executor
+ * places for it; all world writes go through {@link BuildExecutor}.
  */
 public class FakePlayerBuilder {
     private static final Logger LOGGER = LoggerFactory.getLogger("BuilderBot");
 
     private static final String DEFAULT_NAME = "BuilderBot";
     private static final double WALK_SPEED = 0.15; // blocks per tick
-    private static final double REACH_DISTANCE = 4.5;
+    public static final double REACH_DISTANCE = 4.5;
 
     private ServerPlayerEntity fakePlayer;
     private ServerWorld world;
     private String playerName;
     private boolean spawned;
 
+    // Survival players are still allowed to fly, but show they use real items
+    private boolean survival;
+
     // Movement state
     private BlockPos targetPos;
     private boolean isWalking;
 
+    // Corners of the current path, the last one is targetPos
+    private final ArrayDeque<BlockPos> waypoints = new ArrayDeque<>();
+
+    // Head turning and hand swings, independent of blocks placed per tick
+    private final AvatarAnimator animator = new AvatarAnimator();
+
     public FakePlayerBuilder() {
         this(DEFAULT_NAME);
     }
@@ -54,107 +54,10 @@ public class FakePlayerBuilder {
     }
 
     /**
-     * Creates a SyncedClientOptions object using reflection.
-     * This method tries multiple approaches to create the object.
-     */
-    private static Object createSyncedClientOptions() throws Exception {
-        // Try to find the class using different possible names
-        String[] possibleClassNames = {
-                "net.minecraft.class_7596",  // Intermediary mapping
-                "net.minecraft.server.network.SyncedClientOptions",  // Yarn
-                "net.minecraft.client.option.SyncedClientOptions"
-        };
-
-        Class<?> syncedOptionsClass = null;
-
-        for (String className : possibleClassNames) {
-            try {
-                syncedOptionsClass = Class.forName(className);
-                LOGGER.info("Found SyncedClientOptions class: {}", className);
-                break;
-            } catch (ClassNotFoundException e) {
-                // Try next
-            }
-        }
-
-        if (syncedOptionsClass == null) {
-            LOGGER.error("Could not find SyncedClientOptions class");
-            throw new RuntimeException("Could not find SyncedClientOptions class");
-        }
-
-        // Try to create instance using various methods
-
-        // Method 1: Try static factory methods
-        for (Method method : syncedOptionsClass.getDeclaredMethods()) {
-            if (java.lang.reflect.Modifier.isStatic(method.getModifiers()) &&
-                    method.getReturnType() == syncedOptionsClass &&
-                    method.getParameterCount() == 0) {
-                try {
-                    method.setAccessible(true);
-                    Object result = method.invoke(null);
-                    LOGGER.info("Created SyncedClientOptions using static method: {}", method.getName());
-                    return result;
-                } catch (Exception e) {
-                    LOGGER.debug("Failed with method {}: {}", method.getName(), e.getMessage());
-                }
-            }
-        }
-
-        // Method 2: Try constructors
-        for (Constructor<?> constructor : syncedOptionsClass.getDeclaredConstructors()) {
-            try {
-                constructor.setAccessible(true);
-                Class<?>[] paramTypes = constructor.getParameterTypes();
-                Object[] params = new Object[paramTypes.length];
-
-                // Fill with default values
-                for (int i = 0; i < paramTypes.length; i++) {
-                    if (paramTypes[i] == boolean.class) params[i] = false;
-                    else if (paramTypes[i] == int.class) params[i] = 2; // viewDistance
-                    else if (paramTypes[i] == float.class) params[i] = 1.0f;
-                    else if (paramTypes[i] == double.class) params[i] = 1.0;
-                    else if (paramTypes[i] == String.class) params[i] = "en_us";
-                    else if (paramTypes[i].isEnum()) {
-                        // Get first enum constant
-                        Object[] enumConstants = paramTypes[i].getEnumConstants();
-                        if (enumConstants != null && enumConstants.length > 0) {
-                            params[i] = enumConstants[0];
-                        }
-                    }
-                    // else remains null for object types
-                }
-
-                Object result = constructor.newInstance(params);
-                LOGGER.info("Created SyncedClientOptions using constructor with {} params", paramTypes.length);
-                return result;
-            } catch (Exception e) {
-                LOGGER.debug("Failed with constructor {}: {}", constructor, e.getMessage());
-            }
-        }
-
-        throw new RuntimeException("Could not create SyncedClientOptions instance");
-    }
-
-    /**
-     * Creates ServerPlayerEntity using reflection to bypass type checking.
+     * Spawns the next time in survival (true) or creative mode.
      */
-    private static ServerPlayerEntity createFakePlayer(MinecraftServer server, ServerWorld world,
-                                                       GameProfile profile) throws Exception {
-        Object clientOptions = createSyncedClientOptions();
-
-        // Find ServerPlayerEntity constructor
-        Constructor<ServerPlayerEntity> constructor = ServerPlayerEntity.class.getDeclaredConstructor(
-                MinecraftServer.class,
-                ServerWorld.class,
-                GameProfile.class,
-                clientOptions.getClass()
-        );
-
-        constructor.setAccessible(true);
-        ServerPlayerEntity player = constructor.newInstance(server, world, profile, clientOptions);
-
-        LOGGER.info("Successfully created ServerPlayerEntity");
-        return player;
+    public void setSurvival(boolean survival) {
+        this.survival = survival;
     }
 
     /**
@@ -167,28 +70,26 @@ public class FakePlayerBuilder {
         }
 
         this.world = world;
-        MinecraftServer server = world.getServer();
-
-        // Create game profile
-        GameProfile profile = new GameProfile(UUID.randomUUID(), playerName);
 
         try {
-            // Create fake player using reflection
-            fakePlayer = createFakePlayer(server, world, profile);
+            // Pooled player if one is idle, else a new one
+            fakePlayer = FakePlayerPool.acquire(world, playerName);
+            fakePlayer.changeGameMode(survival ? GameMode.SURVIVAL : GameMode.CREATIVE);
+            if (survival) {
+                fakePlayer.getAbilities().allowFlying = true;
+                fakePlayer.getAbilities().flying = true;
+                fakePlayer.sendAbilitiesUpdate();
+            }
 
             // Position the player
             fakePlayer.setPosition(pos.getX() + 0.5, pos.getY(), pos.getZ() + 0.5);
 
-            // Set creative mode (no resources needed)
-            fakePlayer.changeGameMode(GameMode.CREATIVE);
-
-            // Create fake network handler to prevent NPEs
-            ClientConnection connection = new ClientConnection(NetworkSide.CLIENTBOUND);
-            ConnectedClientData clientData = ConnectedClientData.createDefault(profile, false);
-            fakePlayer.networkHandler = new ServerPlayNetworkHandler(server, connection, fakePlayer, clientData);
-
             // Add to world
-            world.spawnEntity(fakePlayer);
+            if (!world.spawnEntity(fakePlayer)) {
+                LOGGER.error("World refused fake player '{}'", playerName);
+                fakePlayer = null;
+                return false;
+            }
 
             spawned = true;
             LOGGER.info("Spawned fake player '{}' at {}", playerName, pos.toShortString());
@@ -209,11 +110,13 @@ public class FakePlayerBuilder {
             return;
         }
 
-        fakePlayer.discard();
+        FakePlayerPool.release(fakePlayer);
         fakePlayer = null;
         spawned = false;
         isWalking = false;
         targetPos = null;
+        waypoints.clear();
+        animator.reset();
 
         LOGGER.info("Despawned fake player '{}'", playerName);
     }
@@ -264,12 +167,13 @@ public class FakePlayerBuilder {
         if (fakePlayer == null) return true;
 
         this.targetPos = target;
+        waypoints.clear();
         Vec3d currentPos = fakePlayer.getPos();
-        Vec3d targetVec = Vec3d.ofCenter(target);
+        Vec3d targetVec = Vec3d.ofBottomCenter(target);
 
         double distance = horizontalDistance(currentPos, targetVec);
 
-        if (distance <= 0.5) {
+        if (distance <= 0.5 && Math.abs(targetVec.y - currentPos.y) <= 0.5) {
             isWalking = false;
             return true; // Already there
         }
@@ -278,8 +182,27 @@ public class FakePlayerBuilder {
         return false;
     }
 
+    /**
+     * Starts walking along a path of waypoints (from {@link Pathfinder}).
+     * Returns true if the path is empty, i.e. already at target.
+     */
+    public boolean walkPath(List<BlockPos> path) {
+        if (fakePlayer == null || path.isEmpty()) {
+            isWalking = false;
+            return true;
+        }
+
+        this.targetPos = path.get(path.size() - 1);
+        waypoints.clear();
+        waypoints.addAll(path);
+        isWalking = true;
+        return false;
+    }
+
     /**
      * Called each tick to update movement.
+     * Moves in 3D like a flying creative player, so stand positions
+     * on upper layers can be reached too. Follows the path's waypoints if there is one.
      * Returns true when destination reached.
      */
     public boolean tickMovement() {
@@ -288,12 +211,18 @@ public class FakePlayerBuilder {
         }
 
         Vec3d currentPos = fakePlayer.getPos();
-        Vec3d targetVec = Vec3d.ofCenter(targetPos);
+        BlockPos next = waypoints.isEmpty() ? targetPos : waypoints.peekFirst();
+        Vec3d targetVec = Vec3d.ofBottomCenter(next);
 
-        // Check horizontal distance
+        // Check horizontal and vertical distance
         double distance = horizontalDistance(currentPos, targetVec);
+        double dy = targetVec.y - currentPos.y;
 
-        if (distance <= 0.3) {
+        if (distance <= 0.3 && Math.abs(dy) <= 0.3) {
+            waypoints.pollFirst();
+            if (!waypoints.isEmpty()) {
+                return false;
+            }
             isWalking = false;
             fakePlayer.setVelocity(Vec3d.ZERO);
             return true;
@@ -302,21 +231,26 @@ public class FakePlayerBuilder {
         // Calculate direction
         double dx = targetVec.x - currentPos.x;
         double dz = targetVec.z - currentPos.z;
-        double length = Math.sqrt(dx * dx + dz * dz);
+        double length = Math.sqrt(dx * dx + dy * dy + dz * dz);
+        double step = Math.min(WALK_SPEED, length);
 
         // Normalize and scale by speed
-        double moveX = (dx / length) * WALK_SPEED;
-        double moveZ = (dz / length) * WALK_SPEED;
+        double moveX = (dx / length) * step;
+        double moveY = (dy / length) * step;
+        double moveZ = (dz / length) * step;
 
         // Apply movement
-        Vec3d movement = new Vec3d(moveX, 0, moveZ);
+        Vec3d movement = new Vec3d(moveX, moveY, moveZ);
         fakePlayer.setVelocity(movement);
         fakePlayer.move(MovementType.SELF, movement);
 
-        // Update rotation to face movement direction
-        float targetYaw = (float) (Math.atan2(dz, dx) * 180.0 / Math.PI) - 90.0f;
-        fakePlayer.setYaw(lerpAngle(fakePlayer.getYaw(), targetYaw, 0.3f));
-        fakePlayer.setHeadYaw(fakePlayer.getYaw());
+        // Update rotation to face movement direction (not when only rising or sinking,
+        // and not while the head follows recent placements)
+        if (distance > 0.3 && !animator.isAiming()) {
+            float targetYaw = (float) (Math.atan2(dz, dx) * 180.0 / Math.PI) - 90.0f;
+            fakePlayer.setYaw(lerpAngle(fakePlayer.getYaw(), targetYaw, 0.3f));
+            fakePlayer.setHeadYaw(fakePlayer.getYaw());
+        }
 
         // Animate walking (swing limbs)
         fakePlayer.limbAnimator.updateLimbs(1.0f, 0.4f);
@@ -324,6 +258,20 @@ public class FakePlayerBuilder {
         return false;
     }
 
+    /**
+     * Checks if the player is still on its way to the walk target.
+     */
+    public boolean isWalking() {
+        return isWalking;
+    }
+
+    /**
+     * Gets the current walk target, or null.
+     */
+    public BlockPos getTargetPos() {
+        return targetPos;
+    }
+
     /**
      * Makes the player look at a block position.
      */
@@ -351,87 +299,62 @@ public class FakePlayerBuilder {
      * Smoothly looks at a block position over time.
      */
     public void smoothLookAt(BlockPos pos, float speed) {
+        turnTowards(Vec3d.ofCenter(pos), speed, 180.0f);
+    }
+
+    /**
+     * Turns the head a fraction of the way towards a point, at most maxStep degrees.
+     */
+    public void turnTowards(Vec3d target, float fraction, float maxStep) {
         if (fakePlayer == null) return;
 
         Vec3d playerPos = fakePlayer.getEyePos();
-        Vec3d targetPos = Vec3d.ofCenter(pos);
 
-        double dx = targetPos.x - playerPos.x;
-        double dy = targetPos.y - playerPos.y;
-        double dz = targetPos.z - playerPos.z;
+        double dx = target.x - playerPos.x;
+        double dy = target.y - playerPos.y;
+        double dz = target.z - playerPos.z;
 
         double horizontalDist = Math.sqrt(dx * dx + dz * dz);
 
         float targetYaw = (float) (Math.atan2(dz, dx) * 180.0 / Math.PI) - 90.0f;
         float targetPitch = (float) -(Math.atan2(dy, horizontalDist) * 180.0 / Math.PI);
 
-        fakePlayer.setYaw(lerpAngle(fakePlayer.getYaw(), targetYaw, speed));
-        fakePlayer.setPitch(lerp(fakePlayer.getPitch(), targetPitch, speed));
+        float yawStep = MathHelper.clamp(MathHelper.wrapDegrees(targetYaw - fakePlayer.getYaw()) * fraction,
+                -maxStep, maxStep);
+        float pitchStep = MathHelper.clamp((targetPitch - fakePlayer.getPitch()) * fraction, -maxStep, maxStep);
+
+        fakePlayer.setYaw(fakePlayer.getYaw() + yawStep);
+        fakePlayer.setPitch(fakePlayer.getPitch() + pitchStep);
         fakePlayer.setHeadYaw(fakePlayer.getYaw());
     }
 
+    public AvatarAnimator getAnimator() {
+        return animator;
+    }
+
     /**
-     * Swings the main hand (animation).
+     * Notes a block this player placed or broke; the animation follows on its next tick.
      */
-    public void swingHand() {
-        if (fakePlayer != null) {
-            fakePlayer.swingHand(Hand.MAIN_HAND, true);
-        }
+    public void recordAction(BlockPos pos) {
+        animator.record(pos);
     }
 
     /**
-     * Places a block at the given position with animation.
+     * Plays one tick of animation (head turn, at most one swing per interval).
      */
-    public boolean placeBlock(BlockPos pos, BlockState state) {
-        if (fakePlayer == null || world == null) {
-            return false;
-        }
-
-        // Look at the block
-        lookAt(pos);
-
-        // Swing hand animation
-        swingHand();
-
-        // Place the block
-        boolean success = world.setBlockState(pos, state);
-
-        if (success) {
-            // Play place sound
-            world.playSound(null, pos,
-                    state.getSoundGroup().getPlaceSound(),
-                    SoundCategory.BLOCKS, 1.0f, 1.0f);
+    public void tickAnimation() {
+        if (fakePlayer != null) {
+            animator.tick(this);
         }
-
-        return success;
     }
 
     /**
-     * Breaks a block at the given position with animation.
+     * Swings the main hand (animation).
      */
-    public boolean breakBlock(BlockPos pos) {
-        if (fakePlayer == null || world == null) {
-            return false;
-        }
-
-        BlockState currentState = world.getBlockState(pos);
-        if (currentState.isAir()) {
-            return true;
+    public void swingHand() {
+        if (fakePlayer != null) {
+            fakePlayer.swingHand(Hand.MAIN_HAND, true);
         }
-
-        // Look at the block
-        lookAt(pos);
-
-        // Swing hand animation
-        swingHand();
-
-        // Play break sound
-        world.playSound(null, pos,
-                currentState.getSoundGroup().getBreakSound(),
-                SoundCategory.BLOCKS, 1.0f, 1.0f);
-
-        // Break the block
-        return world.breakBlock(pos, false, fakePlayer);
     }
 
     /**
@@ -498,10 +421,6 @@ public class FakePlayerBuilder {
         return Math.sqrt(dx * dx + dz * dz);
     }
 
-    private static float lerp(float start, float end, float delta) {
-        return start + (end - start) * delta;
-    }
-
     private static float lerpAngle(float start, float end, float delta) {
         float diff = MathHelper.wrapDegrees(end - start);
         return start + diff * delta;
@@ -0,0 +1,154 @@
+package com.builderbot.builder;
+
+import com.mojang.authlib.GameProfile;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.server.world.ServerWorld;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+/**
+ * Creates fake {@link ServerPlayerEntity} instances without a client.
+ *
+ * The player constructor takes a SyncedClientOptions whose class name differs between
+ * mappings, so it is found by reflection - but only once, at startup. The result is a
+ * cached {@link MethodHandle} for the constructor plus one options instance (a record,
+ * so every fake player can share it). Creating a player is then a plain call.
+ */
+public final class FakePlayerFactory {
+    private static final Logger LOGGER = LoggerFactory.getLogger("BuilderBot");
+
+    private static final String[] OPTIONS_CLASS_NAMES = {
+            "net.minecraft.class_7596",  // Intermediary mapping
+            "net.minecraft.network.packet.c2s.common.SyncedClientOptions",  // Yarn
+            "net.minecraft.server.network.SyncedClientOptions",
+            "net.minecraft.client.option.SyncedClientOptions"
+    };
+
+    private static final MethodType CONSTRUCTOR_TYPE = MethodType.methodType(ServerPlayerEntity.class,
+            MinecraftServer.class, ServerWorld.class, GameProfile.class, Object.class);
+
+    private static volatile boolean resolved;
+    private static Object clientOptions;
+    private static MethodHandle playerConstructor;
+
+    private FakePlayerFactory() {
+    }
+
+    /**
+     * Looks up the constructor and default options. Called once at startup; calling
+     * again does nothing. Failure is logged and makes {@link #create} throw.
+     */
+    public static synchronized void resolve() {
+        if (resolved) {
+            return;
+        }
+        resolved = true;
+
+        long startTime = System.nanoTime();
+        try {
+            Class<?> optionsClass = findOptionsClass();
+            MethodHandle optionsFactory = findOptionsFactory(optionsClass);
+            clientOptions = optionsFactory.invoke();
+
+            Constructor<ServerPlayerEntity> constructor = ServerPlayerEntity.class.getDeclaredConstructor(
+                    MinecraftServer.class, ServerWorld.class, GameProfile.class, optionsClass);
+            constructor.setAccessible(true);
+            playerConstructor = MethodHandles.lookup().unreflectConstructor(constructor).asType(CONSTRUCTOR_TYPE);
+
+            LOGGER.info("Fake player factory ready in {} ms ({})",
+                    (System.nanoTime() - startTime) / 1_000_000, optionsClass.getName());
+        } catch (Throwable e) {
+            playerConstructor = null;
+            LOGGER.error("Could not resolve fake player factory: {}", e.getMessage());
+        }
+    }
+
+    public static boolean isAvailable() {
+        resolve();
+        return playerConstructor != null;
+    }
+
+    /**
+     * Creates a new (not yet spawned) fake player.
+     */
+    public static ServerPlayerEntity create(MinecraftServer server, ServerWorld world, GameProfile profile) {
+        if (!isAvailable()) {
+            throw new IllegalStateException("Fake player factory is not available");
+        }
+        try {
+            return (ServerPlayerEntity) playerConstructor.invokeExact(server, world, profile, clientOptions);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException("Could not create fake player", e);
+        }
+    }
+
+    private static Class<?> findOptionsClass() {
+        for (String className : OPTIONS_CLASS_NAMES) {
+            try {
+                return Class.forName(className);
+            } catch (ClassNotFoundException e) {
+                // Try next
+            }
+        }
+
+        // Whatever the name, it is the last parameter of the player constructor
+        for (Constructor<?> constructor : ServerPlayerEntity.class.getDeclaredConstructors()) {
+            Class<?>[] types = constructor.getParameterTypes();
+            if (types.length == 4 && types[0] == MinecraftServer.class && types[2] == GameProfile.class) {
+                return types[3];
+            }
+        }
+        throw new IllegalStateException("Could not find SyncedClientOptions class");
+    }
+
+    /**
+     * A no-argument handle producing default options: a static factory if there is
+     * one, otherwise a constructor with default values bound in.
+     */
+    private static MethodHandle findOptionsFactory(Class<?> optionsClass) throws IllegalAccessException {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+
+        for (Method method : optionsClass.getDeclaredMethods()) {
+            if (Modifier.isStatic(method.getModifiers()) &&
+                    method.getReturnType() == optionsClass &&
+                    method.getParameterCount() == 0) {
+                method.setAccessible(true);
+                return lookup.unreflect(method);
+            }
+        }
+
+        for (Constructor<?> constructor : optionsClass.getDeclaredConstructors()) {
+            Class<?>[] types = constructor.getParameterTypes();
+            Object[] params = new Object[types.length];
+            for (int i = 0; i < types.length; i++) {
+                params[i] = defaultValue(types[i]);
+            }
+            constructor.setAccessible(true);
+            return MethodHandles.insertArguments(lookup.unreflectConstructor(constructor), 0, params);
+        }
+        throw new IllegalStateException("No way to create " + optionsClass.getName());
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if (type == boolean.class) return false;
+        if (type == int.class) return 2; // viewDistance
+        if (type == float.class) return 1.0f;
+        if (type == double.class) return 1.0;
+        if (type == String.class) return "en_us";
+        if (type.isEnum()) {
+            Object[] constants = type.getEnumConstants();
+            return constants.length > 0 ? constants[0] : null;
+        }
+        return null;
+    }
+}
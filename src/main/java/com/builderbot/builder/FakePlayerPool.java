@@ -0,0 +1,127 @@
+package com.builderbot.builder;
+
+import com.mojang.authlib.GameProfile;
+import it.unimi.dsi.fastutil.objects.ReferenceOpenHashSet;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.network.ConnectedClientData;
+import net.minecraft.server.network.ServerPlayNetworkHandler;
+import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.Vec3d;
+import net.minecraft.world.GameMode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Keeps despawned fake players for reuse.
+ *
+ * A fresh fake player needs a constructor call, a game mode change and its own
+ * connection and network handler. A released player keeps all of that: it is only
+ * taken out of the world, and brought back (possibly into another world of the same
+ * server) the next time a builder with that name spawns. Players of a stopped server
+ * are dropped. Server thread only.
+ *
+ * Every player made here talks to a {@link DiscardConnection}, and {@link #isAvatar}
+ * lets the chunk tracking mixins leave them out.
+ */
+public final class FakePlayerPool {
+    private static final Logger LOGGER = LoggerFactory.getLogger("BuilderBot");
+
+    // Idle players kept per name; crews use a handful of names
+    private static final int MAX_IDLE_PER_NAME = 4;
+
+    private static final Map<String, ArrayDeque<ServerPlayerEntity>> idle = new HashMap<>();
+
+    // Every fake player made here that may still be in a world
+    private static final ReferenceOpenHashSet<ServerPlayerEntity> avatars = new ReferenceOpenHashSet<>();
+
+    // Statistics
+    private static int created;
+    private static int reused;
+
+    private FakePlayerPool() {
+    }
+
+    /**
+     * Returns a fake player with the given name, ready to be added to the world.
+     */
+    public static ServerPlayerEntity acquire(ServerWorld world, String name) {
+        long startTime = System.nanoTime();
+        MinecraftServer server = world.getServer();
+
+        ArrayDeque<ServerPlayerEntity> players = idle.get(name);
+        while (players != null && !players.isEmpty()) {
+            ServerPlayerEntity player = players.pollFirst();
+            if (player.getServer() != server) {
+                avatars.remove(player);
+                continue;
+            }
+            player.unsetRemoved();
+            if (player.getServerWorld() != world) {
+                player.setServerWorld(world);
+            }
+            player.setVelocity(Vec3d.ZERO);
+            player.fallDistance = 0;
+            reused++;
+            LOGGER.debug("Reused fake player '{}' in {} us", name, (System.nanoTime() - startTime) / 1000);
+            return player;
+        }
+
+        GameProfile profile = new GameProfile(UUID.randomUUID(), name);
+        ServerPlayerEntity player = FakePlayerFactory.create(server, world, profile);
+
+        // Set creative mode (no resources needed)
+        player.changeGameMode(GameMode.CREATIVE);
+
+        // Network handler over a connection that drops everything sent to it
+        ConnectedClientData clientData = ConnectedClientData.createDefault(profile, false);
+        player.networkHandler = new ServerPlayNetworkHandler(server, new DiscardConnection(), player, clientData);
+
+        avatars.add(player);
+        created++;
+        LOGGER.debug("Created fake player '{}' in {} us", name, (System.nanoTime() - startTime) / 1000);
+        return player;
+    }
+
+    /**
+     * Takes the player out of its world and keeps it for the next spawn.
+     */
+    public static void release(ServerPlayerEntity player) {
+        player.discard();
+        ArrayDeque<ServerPlayerEntity> players =
+                idle.computeIfAbsent(player.getGameProfile().getName(), k -> new ArrayDeque<>());
+        if (players.size() < MAX_IDLE_PER_NAME) {
+            players.addLast(player);
+        } else {
+            avatars.remove(player);
+        }
+    }
+
+    /**
+     * Checks if a player is one of BuilderBot's fake players.
+     */
+    public static boolean isAvatar(ServerPlayerEntity player) {
+        return !avatars.isEmpty() && avatars.contains(player);
+    }
+
+    /**
+     * Drops all idle players, e.g. when the server stops.
+     */
+    public static void clear() {
+        idle.clear();
+        avatars.clear();
+    }
+
+    public static int getCreated() {
+        return created;
+    }
+
+    public static int getReused() {
+        return reused;
+    }
+}
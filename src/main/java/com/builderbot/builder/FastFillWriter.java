@@ -0,0 +1,213 @@
+package com.builderbot.builder;
+
+import com.builderbot.placement.SchematicPlacement;
+import net.minecraft.block.*;
+import net.minecraft.server.world.ServerChunkManager;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.util.math.ChunkSectionPos;
+import net.minecraft.world.EmptyBlockView;
+import net.minecraft.world.Heightmap;
+import net.minecraft.world.chunk.ChunkSection;
+import net.minecraft.world.chunk.WorldChunk;
+import net.minecraft.world.chunk.light.LightingProvider;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes same-state cuboids straight into chunk section palettes.
+ *
+ * Only plain opaque full cubes are written this way: no block entity, no gravity,
+ * no redstone and no placement side effects, and only into air. Anything else falls
+ * back to a regular setBlockState for that cell, so the result matches the per-block path.
+ *
+ * Every cell is marked for the chunk holder's per-section resend. Lighting checks and
+ * neighbour/shape updates only run on the cuboid surface: interior cells are enclosed by
+ * identical opaque cubes, which neither change light nor react to neighbour updates.
+ */
+public class FastFillWriter {
+
+    /**
+     * Part of a world-space cuboid that lies inside a single chunk section.
+     */
+    public static class Piece {
+        final int minX, minY, minZ;
+        final int maxX, maxY, maxZ;
+        final BlockState state;
+        final Bounds cuboid;
+
+        Piece(int minX, int minY, int minZ, int maxX, int maxY, int maxZ, BlockState state, Bounds cuboid) {
+            this.minX = minX;
+            this.minY = minY;
+            this.minZ = minZ;
+            this.maxX = maxX;
+            this.maxY = maxY;
+            this.maxZ = maxZ;
+            this.state = state;
+            this.cuboid = cuboid;
+        }
+
+        public long getChunkPos() {
+            return ChunkPos.toLong(ChunkSectionPos.getSectionCoord(minX), ChunkSectionPos.getSectionCoord(minZ));
+        }
+
+        public int getVolume() {
+            return (maxX - minX + 1) * (maxY - minY + 1) * (maxZ - minZ + 1);
+        }
+
+        public BlockState getState() {
+            return state;
+        }
+
+        public BlockPos getCenter() {
+            return new BlockPos((minX + maxX) >> 1, (minY + maxY) >> 1, (minZ + maxZ) >> 1);
+        }
+    }
+
+    /**
+     * World-space bounds of the whole cuboid, used for the surface test.
+     */
+    record Bounds(int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+        boolean isSurface(int x, int y, int z) {
+            return x == minX || x == maxX || y == minY || y == maxY || z == minZ || z == maxZ;
+        }
+    }
+
+    private final ServerWorld world;
+    private final BlockPos.Mutable mutable = new BlockPos.Mutable();
+
+    public FastFillWriter(ServerWorld world) {
+        this.world = world;
+    }
+
+    /**
+     * Checks if a state can be written directly without changing the outcome.
+     */
+    public static boolean canFastFill(BlockState state) {
+        Block block = state.getBlock();
+        return state.isOpaqueFullCube(EmptyBlockView.INSTANCE, BlockPos.ORIGIN) &&
+                !state.hasBlockEntity() &&
+                !state.emitsRedstonePower() &&
+                !state.hasComparatorOutput() &&
+                !(block instanceof FallingBlock) &&
+                !(block instanceof TntBlock) &&
+                !(block instanceof SpongeBlock) &&
+                !(block instanceof WetSpongeBlock);
+    }
+
+    /**
+     * Transforms schematic-space cuboids into world space and cuts them along
+     * chunk section borders, bottom-up.
+     */
+    public static List<Piece> split(List<CuboidDecomposer.Cuboid> cuboids, SchematicPlacement placement) {
+        List<Piece> pieces = new ArrayList<>();
+
+        for (CuboidDecomposer.Cuboid cuboid : cuboids) {
+            BlockPos a = placement.toWorldPos(cuboid.minX, cuboid.minY, cuboid.minZ);
+            BlockPos b = placement.toWorldPos(cuboid.maxX, cuboid.maxY, cuboid.maxZ);
+            Bounds bounds = new Bounds(
+                    Math.min(a.getX(), b.getX()), Math.min(a.getY(), b.getY()), Math.min(a.getZ(), b.getZ()),
+                    Math.max(a.getX(), b.getX()), Math.max(a.getY(), b.getY()), Math.max(a.getZ(), b.getZ()));
+            BlockState state = placement.rotateBlockState(cuboid.state);
+
+            for (int y = bounds.minY(); y <= bounds.maxY(); y = (y | 15) + 1) {
+                for (int z = bounds.minZ(); z <= bounds.maxZ(); z = (z | 15) + 1) {
+                    for (int x = bounds.minX(); x <= bounds.maxX(); x = (x | 15) + 1) {
+                        pieces.add(new Piece(x, y, z,
+                                Math.min(x | 15, bounds.maxX()),
+                                Math.min(y | 15, bounds.maxY()),
+                                Math.min(z | 15, bounds.maxZ()),
+                                state, bounds));
+                    }
+                }
+            }
+        }
+
+        return pieces;
+    }
+
+    /**
+     * Writes one piece. Its chunk and the neighbouring chunks must be loaded.
+     * Returns the number of cells now holding the target state.
+     */
+    public int write(Piece piece) {
+        ServerChunkManager chunkManager = world.getChunkManager();
+        LightingProvider lighting = chunkManager.getLightingProvider();
+        WorldChunk chunk = world.getChunk(
+                ChunkSectionPos.getSectionCoord(piece.minX), ChunkSectionPos.getSectionCoord(piece.minZ));
+        ChunkSection section = chunk.getSection(chunk.getSectionIndex(piece.minY));
+        BlockState state = piece.state;
+        Block block = state.getBlock();
+
+        boolean wasEmpty = section.isEmpty();
+        int written = 0;
+
+        for (int y = piece.minY; y <= piece.maxY; y++) {
+            for (int z = piece.minZ; z <= piece.maxZ; z++) {
+                for (int x = piece.minX; x <= piece.maxX; x++) {
+                    mutable.set(x, y, z);
+                    BlockState old = section.getBlockState(x & 15, y & 15, z & 15);
+
+                    if (old == state) {
+                        written++;
+                        continue;
+                    }
+
+                    if (!old.isAir()) {
+                        // Replacing something: take the regular path for this cell
+                        BlockPos pos = mutable.toImmutable();
+                        if (!old.isReplaceable()) {
+                            world.breakBlock(pos, false);
+                        }
+                        if (world.setBlockState(pos, state, 3)) {
+                            written++;
+                        }
+                        continue;
+                    }
+
+                    section.setBlockState(x & 15, y & 15, z & 15, state, false);
+                    world.onBlockChanged(mutable, old, state);
+                    chunkManager.markForUpdate(mutable);
+                    written++;
+                }
+            }
+        }
+
+        if (wasEmpty && !section.isEmpty()) {
+            lighting.setSectionStatus(mutable.set(piece.minX, piece.minY, piece.minZ), false);
+        }
+
+        // Heightmaps and sky light sources can only move up to the top cell of each column
+        for (int z = piece.minZ; z <= piece.maxZ; z++) {
+            for (int x = piece.minX; x <= piece.maxX; x++) {
+                for (Map.Entry<Heightmap.Type, Heightmap> heightmap : chunk.getHeightmaps()) {
+                    heightmap.getValue().trackUpdate(x & 15, piece.maxY, z & 15, state);
+                }
+                chunk.getChunkSkyLight().isSkyLightAccessible(chunk, x & 15, piece.maxY, z & 15);
+            }
+        }
+
+        // Surface cells: light checks, block updates and shape updates towards the outside
+        Bounds bounds = piece.cuboid;
+        for (int y = piece.minY; y <= piece.maxY; y++) {
+            for (int z = piece.minZ; z <= piece.maxZ; z++) {
+                for (int x = piece.minX; x <= piece.maxX; x++) {
+                    if (!bounds.isSurface(x, y, z)) {
+                        continue;
+                    }
+                    // Neighbour updates may be queued, so they get their own position
+                    BlockPos pos = new BlockPos(x, y, z);
+                    LightBatcher.checkBlock(world, lighting, pos);
+                    world.updateNeighbors(pos, block);
+                    state.updateNeighbors(world, pos, Block.NOTIFY_LISTENERS);
+                }
+            }
+        }
+
+        chunk.setNeedsSaving(true);
+        return written;
+    }
+}
@@ -0,0 +1,87 @@
+package com.builderbot.builder;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import net.minecraft.block.BlockState;
+import net.minecraft.block.Blocks;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+
+/**
+ * {@link BlockSink} that keeps blocks in a map keyed by packed positions.
+ *
+ * No physics, updates or lighting: a write just stores the state. Used to run
+ * the executor headless in tests and benchmarks. Every chunk counts as loaded
+ * unless marked otherwise with {@link #setChunkLoaded}.
+ */
+public class InMemoryBlockSink implements BlockSink {
+    private static final BlockState AIR = Blocks.AIR.getDefaultState();
+
+    private final Long2ObjectOpenHashMap<BlockState> blocks = new Long2ObjectOpenHashMap<>();
+    private final LongOpenHashSet unloadedChunks = new LongOpenHashSet();
+
+    // Statistics
+    private long writes;
+    private long breaks;
+
+    public InMemoryBlockSink() {
+        blocks.defaultReturnValue(AIR);
+    }
+
+    @Override
+    public BlockState getBlockState(BlockPos pos) {
+        return blocks.get(pos.asLong());
+    }
+
+    @Override
+    public boolean setBlockState(BlockPos pos, BlockState state, int flags) {
+        long key = pos.asLong();
+        BlockState old = state.isAir() ? blocks.remove(key) : blocks.put(key, state);
+        writes++;
+        return old != state;
+    }
+
+    @Override
+    public boolean breakBlock(BlockPos pos, boolean drop) {
+        breaks++;
+        return blocks.remove(pos.asLong()) != AIR;
+    }
+
+    @Override
+    public boolean isChunkLoaded(int chunkX, int chunkZ) {
+        return unloadedChunks.isEmpty() || !unloadedChunks.contains(ChunkPos.toLong(chunkX, chunkZ));
+    }
+
+    /**
+     * Marks a chunk as loaded or not, to exercise chunk waits.
+     */
+    public void setChunkLoaded(int chunkX, int chunkZ, boolean loaded) {
+        long chunk = ChunkPos.toLong(chunkX, chunkZ);
+        if (loaded) {
+            unloadedChunks.remove(chunk);
+        } else {
+            unloadedChunks.add(chunk);
+        }
+    }
+
+    /**
+     * Number of non-air blocks stored.
+     */
+    public int size() {
+        return blocks.size();
+    }
+
+    public long getWrites() {
+        return writes;
+    }
+
+    public long getBreaks() {
+        return breaks;
+    }
+
+    public void clear() {
+        blocks.clear();
+        writes = 0;
+        breaks = 0;
+    }
+}
@@ -0,0 +1,159 @@
+package com.builderbot.builder;
+
+import com.builderbot.metrics.BuildMetrics;
+import it.unimi.dsi.fastutil.longs.LongArrays;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import net.minecraft.block.BlockState;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkSectionPos;
+import net.minecraft.util.math.Direction;
+import net.minecraft.world.World;
+import net.minecraft.world.chunk.light.LightingProvider;
+
+/**
+ * Collects light checks for positions a build places and submits them in batches.
+ *
+ * While a batcher is active (only around the executor's own world writes, on the
+ * server thread), WorldChunk light checks are recorded instead of queued. A flush
+ * submits each position once, grouped by chunk section, and skips opaque full cubes
+ * whose six neighbours were also placed as opaque full cubes: light cannot pass
+ * through them, so their own level never matters. The light engine then marks only
+ * the sections it actually changed for resend.
+ */
+public class LightBatcher {
+
+    // Batcher of the build currently writing blocks, if any
+    private static LightBatcher active;
+
+    private final ServerWorld world;
+    private final LongOpenHashSet pending = new LongOpenHashSet();
+
+    // Statistics
+    private long lightingNanos;
+    private long submittedChecks;
+    private long skippedChecks;
+
+    public LightBatcher(ServerWorld world) {
+        this.world = world;
+    }
+
+    /**
+     * Starts collecting light checks for this batcher's world.
+     */
+    public void begin() {
+        active = this;
+    }
+
+    public void end() {
+        if (active == this) {
+            active = null;
+        }
+    }
+
+    /**
+     * Called for every light check raised by a block change.
+     * Returns true if the check was collected and must not be queued now.
+     */
+    public static boolean collect(World world, BlockPos pos) {
+        LightBatcher batcher = active;
+        if (batcher == null || batcher.world != world) {
+            return false;
+        }
+
+        batcher.pending.add(pos.asLong());
+        return true;
+    }
+
+    /**
+     * Queues a light check, or collects it if a batch is active.
+     */
+    public static void checkBlock(World world, LightingProvider lighting, BlockPos pos) {
+        if (!collect(world, pos)) {
+            lighting.checkBlock(pos);
+        }
+    }
+
+    public int size() {
+        return pending.size();
+    }
+
+    /**
+     * Submits all collected checks to the light provider. Returns the number submitted.
+     */
+    public int flush() {
+        if (pending.isEmpty()) {
+            return 0;
+        }
+
+        long startTime = System.nanoTime();
+
+        long[] positions = pending.toLongArray();
+        pending.clear();
+
+        // Opaque full cubes among the placed positions
+        LongOpenHashSet opaque = new LongOpenHashSet(positions.length);
+        BlockPos.Mutable mutable = new BlockPos.Mutable();
+        for (long packed : positions) {
+            BlockState state = world.getBlockState(mutable.set(packed));
+            if (state.isOpaqueFullCube(world, mutable)) {
+                opaque.add(packed);
+            }
+        }
+
+        LongArrays.quickSort(positions, (a, b) -> {
+            int bySection = Long.compare(sectionOf(a), sectionOf(b));
+            return bySection != 0 ? bySection : Long.compare(a, b);
+        });
+
+        LightingProvider lighting = world.getChunkManager().getLightingProvider();
+        int submitted = 0;
+
+        for (long packed : positions) {
+            if (opaque.contains(packed) && isEnclosed(packed, opaque)) {
+                skippedChecks++;
+                continue;
+            }
+            lighting.checkBlock(BlockPos.fromLong(packed));
+            submitted++;
+        }
+
+        submittedChecks += submitted;
+        long elapsed = System.nanoTime() - startTime;
+        lightingNanos += elapsed;
+        BuildMetrics.get().recordLighting(elapsed);
+        return submitted;
+    }
+
+    private static boolean isEnclosed(long packed, LongOpenHashSet opaque) {
+        for (Direction direction : Direction.values()) {
+            if (!opaque.contains(BlockPos.offset(packed, direction))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long sectionOf(long packed) {
+        return ChunkSectionPos.asLong(
+                ChunkSectionPos.getSectionCoord(BlockPos.unpackLongX(packed)),
+                ChunkSectionPos.getSectionCoord(BlockPos.unpackLongY(packed)),
+                ChunkSectionPos.getSectionCoord(BlockPos.unpackLongZ(packed)));
+    }
+
+    /**
+     * Server-thread time spent preparing and submitting light checks.
+     * Propagation itself runs on the light executor.
+     */
+    public long getLightingNanos() {
+        return lightingNanos;
+    }
+
+    public long getSubmittedChecks() {
+        return submittedChecks;
+    }
+
+    public long getSkippedChecks() {
+        return skippedChecks;
+    }
+}
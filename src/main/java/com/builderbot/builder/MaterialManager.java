@@ -0,0 +1,413 @@
+package com.builderbot.builder;
+
+import com.builderbot.schematic.BlockEntry;
+import it.unimi.dsi.fastutil.ints.Int2IntMap;
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import net.minecraft.block.entity.BlockEntity;
+import net.minecraft.inventory.Inventory;
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import net.minecraft.item.Items;
+import net.minecraft.registry.Registries;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.ItemScatterer;
+import net.minecraft.util.math.BlockBox;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.chunk.WorldChunk;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Materials for survival builds, taken from containers near the site.
+ *
+ * At build start the containers around the site are indexed: item counts per container,
+ * keyed by raw item id in primitive maps. The build's needs are counted per palette entry
+ * (block id) and mapped to items once. Everything the build still needs is reserved in
+ * specific containers up front, so a shortage is known before the first block - and two
+ * builds drawing on the same chests never count the same items. Avatars then fetch a
+ * trip's worth of items at a time and take only what was reserved for them. Fetched
+ * items are shared by the whole crew until placed.
+ *
+ * Blocks without an item (fluids, fire, ...) need nothing. Server thread only.
+ */
+public class MaterialManager {
+    private static final Logger LOGGER = LoggerFactory.getLogger("BuilderBot");
+
+    public static final int DEFAULT_RADIUS = 16;
+    public static final int MAX_RADIUS = 64;
+
+    // Blocks an avatar fetches items for per trip; at most a full inventory
+    public static final int DEFAULT_TRIP_BLOCKS = 256;
+    public static final int MAX_TRIP_BLOCKS = 36 * 64;
+
+    public static final int NO_ITEM = -1;
+
+    // Items reserved in each container by all running builds, per world
+    private static final Map<ServerWorld, Long2ObjectOpenHashMap<Int2IntOpenHashMap>> RESERVED = new IdentityHashMap<>();
+
+    private final ServerWorld world;
+
+    // Container position -> item id -> count, as of the last index
+    private final Long2ObjectOpenHashMap<Int2IntOpenHashMap> stock = new Long2ObjectOpenHashMap<>();
+
+    // What this build has reserved: container position -> item id -> count
+    private final Long2ObjectOpenHashMap<Int2IntOpenHashMap> reservations = new Long2ObjectOpenHashMap<>();
+
+    // Taken out of containers and not placed yet: item id -> count
+    private final Int2IntOpenHashMap carried = new Int2IntOpenHashMap();
+
+    // Block id -> item id
+    private final Object2IntOpenHashMap<String> itemOfBlock = new Object2IntOpenHashMap<>();
+
+    public MaterialManager(ServerWorld world) {
+        this.world = world;
+        this.itemOfBlock.defaultReturnValue(Integer.MIN_VALUE);
+    }
+
+    /**
+     * Indexes the containers in loaded chunks within {@code radius} of the site.
+     * Reservations made so far are given up; fetched items are kept.
+     */
+    public void index(BlockBox site, int radius) {
+        long startTime = System.nanoTime();
+        release();
+        stock.clear();
+        BlockBox area = site.expand(radius);
+
+        for (int cx = area.getMinX() >> 4; cx <= area.getMaxX() >> 4; cx++) {
+            for (int cz = area.getMinZ() >> 4; cz <= area.getMaxZ() >> 4; cz++) {
+                WorldChunk chunk = world.getChunkManager().getWorldChunk(cx, cz);
+                if (chunk == null) {
+                    continue;
+                }
+                for (BlockEntity blockEntity : chunk.getBlockEntities().values()) {
+                    if (blockEntity instanceof Inventory inventory && area.contains(blockEntity.getPos())) {
+                        stock.put(blockEntity.getPos().asLong(), count(inventory));
+                    }
+                }
+            }
+        }
+
+        LOGGER.info("Indexed {} containers near the site in {} us",
+                stock.size(), (System.nanoTime() - startTime) / 1000);
+    }
+
+    public int getContainerCount() {
+        return stock.size();
+    }
+
+    /**
+     * Item a block entry is built from, or {@link #NO_ITEM}.
+     */
+    public int itemOf(BlockEntry entry) {
+        int item = itemOfBlock.getInt(entry.getBlockId());
+        if (item == Integer.MIN_VALUE) {
+            Item asItem = entry.getBlockState().getBlock().asItem();
+            item = asItem == Items.AIR ? NO_ITEM : Registries.ITEM.getRawId(asItem);
+            itemOfBlock.put(entry.getBlockId(), item);
+        }
+        return item;
+    }
+
+    /**
+     * Items needed for the given blocks, counted per palette entry first.
+     */
+    public Int2IntOpenHashMap countNeeds(List<BlockEntry> blocks) {
+        Object2IntOpenHashMap<String> perBlock = new Object2IntOpenHashMap<>();
+        for (BlockEntry entry : blocks) {
+            perBlock.addTo(entry.getBlockId(), 1);
+        }
+
+        Int2IntOpenHashMap needs = new Int2IntOpenHashMap();
+        for (Object2IntMap.Entry<String> entry : perBlock.object2IntEntrySet()) {
+            int item = itemOfBlock.getInt(entry.getKey());
+            if (item == Integer.MIN_VALUE) {
+                // Resolve through a block entry of this palette entry
+                for (BlockEntry block : blocks) {
+                    if (block.getBlockId().equals(entry.getKey())) {
+                        item = itemOf(block);
+                        break;
+                    }
+                }
+            }
+            if (item != NO_ITEM) {
+                needs.addTo(item, entry.getIntValue());
+            }
+        }
+        return needs;
+    }
+
+    /**
+     * Index of the first layer that cannot be finished with the items not reserved
+     * by other builds, or -1 if all can.
+     */
+    public int firstShortLayer(List<Int2IntOpenHashMap> layerNeeds) {
+        Long2ObjectOpenHashMap<Int2IntOpenHashMap> reserved = RESERVED.getOrDefault(world, new Long2ObjectOpenHashMap<>());
+        Int2IntOpenHashMap free = new Int2IntOpenHashMap();
+        for (Long2ObjectMap.Entry<Int2IntOpenHashMap> container : stock.long2ObjectEntrySet()) {
+            for (Int2IntMap.Entry item : container.getValue().int2IntEntrySet()) {
+                free.addTo(item.getIntKey(), item.getIntValue() - reservedIn(reserved, container.getLongKey(), item.getIntKey()));
+            }
+        }
+
+        for (int layer = 0; layer < layerNeeds.size(); layer++) {
+            for (Int2IntMap.Entry need : layerNeeds.get(layer).int2IntEntrySet()) {
+                if (free.addTo(need.getIntKey(), -need.getIntValue()) < need.getIntValue()) {
+                    return layer;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Reserves the given needs, less the items already fetched, in the indexed
+     * containers. Returns what is missing; if anything is, nothing is reserved.
+     */
+    public Int2IntOpenHashMap reserve(Int2IntOpenHashMap allNeeds) {
+        Long2ObjectOpenHashMap<Int2IntOpenHashMap> reserved = RESERVED.computeIfAbsent(world, w -> new Long2ObjectOpenHashMap<>());
+        Int2IntOpenHashMap needs = new Int2IntOpenHashMap();
+        for (Int2IntMap.Entry need : allNeeds.int2IntEntrySet()) {
+            int left = need.getIntValue() - carried.get(need.getIntKey());
+            if (left > 0) {
+                needs.put(need.getIntKey(), left);
+            }
+        }
+
+        // Free counts per item across containers
+        Int2IntOpenHashMap missing = new Int2IntOpenHashMap();
+        for (Int2IntMap.Entry need : needs.int2IntEntrySet()) {
+            int item = need.getIntKey();
+            int free = 0;
+            for (Long2ObjectMap.Entry<Int2IntOpenHashMap> container : stock.long2ObjectEntrySet()) {
+                free += container.getValue().get(item) - reservedIn(reserved, container.getLongKey(), item);
+            }
+            if (free < need.getIntValue()) {
+                missing.put(item, need.getIntValue() - Math.max(0, free));
+            }
+        }
+        if (!missing.isEmpty()) {
+            return missing;
+        }
+
+        for (Int2IntMap.Entry need : needs.int2IntEntrySet()) {
+            int item = need.getIntKey();
+            int left = need.getIntValue();
+            for (Long2ObjectMap.Entry<Int2IntOpenHashMap> container : stock.long2ObjectEntrySet()) {
+                if (left == 0) {
+                    break;
+                }
+                long pos = container.getLongKey();
+                int take = Math.min(left, container.getValue().get(item) - reservedIn(reserved, pos, item));
+                if (take > 0) {
+                    reservations.computeIfAbsent(pos, p -> new Int2IntOpenHashMap()).addTo(item, take);
+                    reserved.computeIfAbsent(pos, p -> new Int2IntOpenHashMap()).addTo(item, take);
+                    left -= take;
+                }
+            }
+        }
+        return missing;
+    }
+
+    /**
+     * Re-reads the reserved containers and returns reserved items that are gone
+     * (taken by someone else, or the container was broken).
+     */
+    public Int2IntOpenHashMap verify() {
+        Int2IntOpenHashMap missing = new Int2IntOpenHashMap();
+        for (Long2ObjectMap.Entry<Int2IntOpenHashMap> container : reservations.long2ObjectEntrySet()) {
+            BlockPos pos = BlockPos.fromLong(container.getLongKey());
+            Int2IntOpenHashMap actual = world.getChunkManager().isChunkLoaded(pos.getX() >> 4, pos.getZ() >> 4) &&
+                    world.getBlockEntity(pos) instanceof Inventory inventory ? count(inventory) : new Int2IntOpenHashMap();
+            for (Int2IntMap.Entry item : container.getValue().int2IntEntrySet()) {
+                int lacking = item.getIntValue() - actual.get(item.getIntKey());
+                if (lacking > 0) {
+                    missing.addTo(item.getIntKey(), lacking);
+                }
+            }
+        }
+        return missing;
+    }
+
+    /**
+     * Nearest container with a reservation for any item of the load, or null.
+     */
+    public BlockPos findContainer(Int2IntOpenHashMap load, BlockPos near) {
+        BlockPos best = null;
+        double bestDistance = Double.MAX_VALUE;
+        for (Long2ObjectMap.Entry<Int2IntOpenHashMap> container : reservations.long2ObjectEntrySet()) {
+            if (!holdsAny(container.getValue(), load)) {
+                continue;
+            }
+            BlockPos pos = BlockPos.fromLong(container.getLongKey());
+            double distance = pos.getSquaredDistance(near);
+            if (distance < bestDistance) {
+                best = pos;
+                bestDistance = distance;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Items fetched and not placed yet.
+     */
+    public int getCarried(int item) {
+        return carried.get(item);
+    }
+
+    /**
+     * Uses up a fetched item for a placed block.
+     */
+    public void consume(int item) {
+        if (item != NO_ITEM) {
+            subtract(carried, item, 1);
+        }
+    }
+
+    /**
+     * Moves the reserved part of a load out of a container into the fetched items.
+     * Taken items are removed from the load. Returns the number of items moved.
+     */
+    public int take(BlockPos pos, Int2IntOpenHashMap load) {
+        Int2IntOpenHashMap reservation = reservations.get(pos.asLong());
+        if (reservation == null || !(world.getBlockEntity(pos) instanceof Inventory inventory)) {
+            return 0;
+        }
+        Int2IntOpenHashMap reserved = RESERVED.get(world).get(pos.asLong());
+
+        int moved = 0;
+        for (int slot = 0; slot < inventory.size(); slot++) {
+            ItemStack stack = inventory.getStack(slot);
+            if (stack.isEmpty()) {
+                continue;
+            }
+            int item = Registries.ITEM.getRawId(stack.getItem());
+            int amount = Math.min(stack.getCount(), Math.min(load.get(item), reservation.get(item)));
+            if (amount <= 0) {
+                continue;
+            }
+            stack.decrement(amount);
+            carried.addTo(item, amount);
+            subtract(load, item, amount);
+            subtract(reservation, item, amount);
+            subtract(reserved, item, amount);
+            moved += amount;
+        }
+        if (moved > 0) {
+            inventory.markDirty();
+        }
+        if (reservation.isEmpty()) {
+            reservations.remove(pos.asLong());
+        }
+        return moved;
+    }
+
+    /**
+     * Gives up everything this build still has reserved.
+     */
+    public void release() {
+        Long2ObjectOpenHashMap<Int2IntOpenHashMap> reserved = RESERVED.get(world);
+        if (reserved != null) {
+            for (Long2ObjectMap.Entry<Int2IntOpenHashMap> container : reservations.long2ObjectEntrySet()) {
+                Int2IntOpenHashMap counts = reserved.get(container.getLongKey());
+                if (counts == null) {
+                    continue;
+                }
+                for (Int2IntMap.Entry item : container.getValue().int2IntEntrySet()) {
+                    subtract(counts, item.getIntKey(), item.getIntValue());
+                }
+                if (counts.isEmpty()) {
+                    reserved.remove(container.getLongKey());
+                }
+            }
+            if (reserved.isEmpty()) {
+                RESERVED.remove(world);
+            }
+        }
+        reservations.clear();
+    }
+
+    /**
+     * Drops the fetched items at the given position, e.g. when the build is stopped.
+     */
+    public void dropCarried(BlockPos pos) {
+        for (Int2IntMap.Entry entry : carried.int2IntEntrySet()) {
+            Item item = Registries.ITEM.get(entry.getIntKey());
+            int left = entry.getIntValue();
+            while (left > 0) {
+                int count = Math.min(left, item.getMaxCount());
+                ItemScatterer.spawn(world, pos.getX() + 0.5, pos.getY() + 0.5, pos.getZ() + 0.5, new ItemStack(item, count));
+                left -= count;
+            }
+        }
+        carried.clear();
+    }
+
+    /**
+     * "12 × Stone, 3 × Oak Planks, ..." with the largest counts first.
+     */
+    public static String describe(Int2IntOpenHashMap items, int limit) {
+        List<Int2IntMap.Entry> entries = new ArrayList<>(items.int2IntEntrySet());
+        entries.sort((a, b) -> Integer.compare(b.getIntValue(), a.getIntValue()));
+
+        StringBuilder result = new StringBuilder();
+        for (int i = 0; i < entries.size() && i < limit; i++) {
+            if (i > 0) {
+                result.append(", ");
+            }
+            Item item = Registries.ITEM.get(entries.get(i).getIntKey());
+            result.append(entries.get(i).getIntValue()).append(" × ").append(item.getName().getString());
+        }
+        if (entries.size() > limit) {
+            result.append(", ...");
+        }
+        return result.toString();
+    }
+
+    private static Int2IntOpenHashMap count(Inventory inventory) {
+        Int2IntOpenHashMap counts = new Int2IntOpenHashMap();
+        for (int slot = 0; slot < inventory.size(); slot++) {
+            ItemStack stack = inventory.getStack(slot);
+            if (!stack.isEmpty()) {
+                counts.addTo(Registries.ITEM.getRawId(stack.getItem()), stack.getCount());
+            }
+        }
+        return counts;
+    }
+
+    private static int reservedIn(Long2ObjectOpenHashMap<Int2IntOpenHashMap> reserved, long pos, int item) {
+        Int2IntOpenHashMap counts = reserved.get(pos);
+        return counts != null ? counts.get(item) : 0;
+    }
+
+    private static boolean holdsAny(Int2IntOpenHashMap counts, Int2IntOpenHashMap load) {
+        for (Int2IntMap.Entry item : load.int2IntEntrySet()) {
+            if (item.getIntValue() > 0 && counts.get(item.getIntKey()) > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void subtract(Int2IntOpenHashMap counts, int item, int amount) {
+        if (counts == null) {
+            return;
+        }
+        int left = counts.get(item) - amount;
+        if (left > 0) {
+            counts.put(item, left);
+        } else {
+            counts.remove(item);
+        }
+    }
+}
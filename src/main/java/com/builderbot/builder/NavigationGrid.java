@@ -0,0 +1,147 @@
+package com.builderbot.builder;
+
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.BlockBox;
+import net.minecraft.util.math.BlockPos;
+
+/**
+ * Which cells around a build site the avatar can move through.
+ *
+ * Covers the build box plus a margin. A cell is solid if its block has a collision
+ * shape; the avatar fits at a cell if it and the cell above are not solid. Solidity
+ * is read from a {@link BlockSink} lazily, one byte per cell, and cached until the executor
+ * reports a change at that cell - so placing a block only invalidates that block.
+ * Cells in unloaded chunks count as open (and are not cached) rather than loading the chunk.
+ */
+public class NavigationGrid {
+
+    // Room around the build box to walk around it and to stand on its top
+    private static final int MARGIN_XZ = 8;
+    private static final int MARGIN_BELOW = 2;
+    private static final int MARGIN_ABOVE = 4;
+
+    // Larger sites do not get a grid (the avatar walks straight lines there)
+    public static final long MAX_CELLS = 4_000_000L;
+
+    private static final byte UNKNOWN = 0;
+    private static final byte OPEN = 1;
+    private static final byte SOLID = 2;
+
+    private final BlockSink sink;
+    private final int minX, minY, minZ;
+    private final int sizeX, sizeY, sizeZ;
+    private final byte[] cells;
+    private final BlockPos.Mutable mutable = new BlockPos.Mutable();
+
+    // Bumped whenever a cached cell changes, so cached paths know to re-check
+    private int version;
+
+    private NavigationGrid(BlockSink sink, int minX, int minY, int minZ, int sizeX, int sizeY, int sizeZ) {
+        this.sink = sink;
+        this.minX = minX;
+        this.minY = minY;
+        this.minZ = minZ;
+        this.sizeX = sizeX;
+        this.sizeY = sizeY;
+        this.sizeZ = sizeZ;
+        this.cells = new byte[sizeX * sizeY * sizeZ];
+    }
+
+    /**
+     * Creates a grid around a build box, or returns null if the site is too large.
+     */
+    public static NavigationGrid around(ServerWorld world, BlockBox box) {
+        return around(new ServerWorldSink(world), box, world.getBottomY(), world.getTopY());
+    }
+
+    /**
+     * Creates a grid around a build box in any block sink, clamped to the world's
+     * height range [bottomY, topY). Returns null if the site is too large.
+     */
+    public static NavigationGrid around(BlockSink sink, BlockBox box, int bottomY, int topY) {
+        int minX = box.getMinX() - MARGIN_XZ;
+        int minZ = box.getMinZ() - MARGIN_XZ;
+        int minY = Math.max(bottomY, box.getMinY() - MARGIN_BELOW);
+        int maxY = Math.min(topY - 1, box.getMaxY() + MARGIN_ABOVE);
+        int sizeX = box.getBlockCountX() + 2 * MARGIN_XZ;
+        int sizeZ = box.getBlockCountZ() + 2 * MARGIN_XZ;
+        int sizeY = maxY - minY + 1;
+
+        if (sizeY <= 0 || (long) sizeX * sizeY * sizeZ > MAX_CELLS) {
+            return null;
+        }
+        return new NavigationGrid(sink, minX, minY, minZ, sizeX, sizeY, sizeZ);
+    }
+
+    public boolean contains(int x, int y, int z) {
+        return x >= minX && y >= minY && z >= minZ &&
+                x < minX + sizeX && y < minY + sizeY && z < minZ + sizeZ;
+    }
+
+    /**
+     * Checks if the avatar fits with its feet at this cell.
+     */
+    public boolean isPassable(int x, int y, int z) {
+        return contains(x, y, z) && !isSolid(x, y, z) && (y + 1 >= minY + sizeY || !isSolid(x, y + 1, z));
+    }
+
+    /**
+     * Forgets the cached state of a cell. Call after every block change inside the grid.
+     */
+    public void invalidate(BlockPos pos) {
+        if (contains(pos.getX(), pos.getY(), pos.getZ())) {
+            int index = index(pos.getX(), pos.getY(), pos.getZ());
+            if (cells[index] != UNKNOWN) {
+                cells[index] = UNKNOWN;
+                version++;
+            }
+        }
+    }
+
+    /**
+     * Highest cell of the grid, above the build box with some air to spare.
+     */
+    public int getMaxY() {
+        return minY + sizeY - 1;
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    // Local indexing for the pathfinder
+
+    public int index(int x, int y, int z) {
+        return ((y - minY) * sizeZ + (z - minZ)) * sizeX + (x - minX);
+    }
+
+    public int xOf(int index) {
+        return minX + index % sizeX;
+    }
+
+    public int yOf(int index) {
+        return minY + index / (sizeX * sizeZ);
+    }
+
+    public int zOf(int index) {
+        return minZ + (index / sizeX) % sizeZ;
+    }
+
+    private boolean isSolid(int x, int y, int z) {
+        int index = index(x, y, z);
+        byte cell = cells[index];
+        if (cell == UNKNOWN) {
+            cell = sample(x, y, z);
+            cells[index] = cell;
+        }
+        return cell == SOLID;
+    }
+
+    private byte sample(int x, int y, int z) {
+        if (!sink.isChunkLoaded(x >> 4, z >> 4)) {
+            return UNKNOWN;
+        }
+        mutable.set(x, y, z);
+        return sink.isSolid(mutable) ? SOLID : OPEN;
+    }
+}
@@ -0,0 +1,308 @@
+package com.builderbot.builder;
+
+import it.unimi.dsi.fastutil.ints.Int2LongOpenHashMap;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.longs.Long2ObjectLinkedOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongHeapPriorityQueue;
+import net.minecraft.util.math.BlockPos;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A* over a {@link NavigationGrid} for a flying avatar.
+ *
+ * Moves are the six axis steps plus horizontal diagonals (only past two open sides).
+ * The open set is a heap of longs (f-score in the high half, cell index in the low half)
+ * with lazy deletion. Scores and parents live in a map keyed by cell that is cleared per
+ * query, so its size follows the explored cells (bounded by the search cap) rather than
+ * the grid, and a query allocates nothing but its result. Recent paths are cached by
+ * start and goal cell and reused while every cell on them is still passable.
+ *
+ * Avatar walks are mostly between neighbouring stands and take microseconds. A search
+ * that has to get past a long, tall wall can flood the whole face of it, so the search
+ * is capped and then replaced by flying over the site at the top of the grid.
+ */
+public class Pathfinder {
+    private static final Logger LOGGER = LoggerFactory.getLogger("BuilderBot");
+
+    private static final int STRAIGHT_COST = 10;
+    private static final int DIAGONAL_COST = 14;
+
+    // Give up (and fly over the site) after expanding this many cells
+    private static final int MAX_EXPANSIONS = 2_000;
+
+    private static final int CACHE_SIZE = 64;
+
+    // Score and parent of an unvisited cell: no score beats it
+    private static final long UNVISITED = Long.MAX_VALUE;
+
+    private static final int[][] MOVES = {
+            {1, 0, 0}, {-1, 0, 0}, {0, 0, 1}, {0, 0, -1}, {0, 1, 0}, {0, -1, 0},
+            {1, 0, 1}, {1, 0, -1}, {-1, 0, 1}, {-1, 0, -1}
+    };
+
+    private record CachedPath(int[] cells, int version) {
+    }
+
+    private final NavigationGrid grid;
+    // Visited cells: g-score in the high half, parent cell in the low half
+    private final Int2LongOpenHashMap nodes = new Int2LongOpenHashMap(MAX_EXPANSIONS * MOVES.length);
+    private final LongHeapPriorityQueue open = new LongHeapPriorityQueue();
+    private final Long2ObjectLinkedOpenHashMap<CachedPath> cache = new Long2ObjectLinkedOpenHashMap<>();
+
+    // Statistics
+    private long queries;
+    private long cacheHits;
+    private long queryNanos;
+
+    public Pathfinder(NavigationGrid grid) {
+        this.grid = grid;
+        nodes.defaultReturnValue(UNVISITED);
+    }
+
+    public NavigationGrid getGrid() {
+        return grid;
+    }
+
+    /**
+     * Finds a path of waypoints (corners only, ending at the goal, without the start).
+     * Returns an empty list if already there, or null if there is no path in the grid.
+     */
+    public List<BlockPos> findPath(BlockPos from, BlockPos to) {
+        if (!grid.contains(from.getX(), from.getY(), from.getZ()) ||
+                !grid.contains(to.getX(), to.getY(), to.getZ()) ||
+                !grid.isPassable(to.getX(), to.getY(), to.getZ())) {
+            return null;
+        }
+
+        long startTime = System.nanoTime();
+        queries++;
+
+        int start = grid.index(from.getX(), from.getY(), from.getZ());
+        int goal = grid.index(to.getX(), to.getY(), to.getZ());
+        long key = ((long) start << 32) | (goal & 0xFFFFFFFFL);
+
+        int[] cells;
+        CachedPath cached = cache.getAndMoveToLast(key);
+        if (cached != null && isStillPassable(cached)) {
+            cells = cached.cells();
+            cacheHits++;
+        } else {
+            cells = search(start, goal);
+            if (cells == null) {
+                cells = flyOver(start, goal);
+            }
+            if (cells != null) {
+                cache.putAndMoveToLast(key, new CachedPath(cells, grid.getVersion()));
+                if (cache.size() > CACHE_SIZE) {
+                    cache.removeFirst();
+                }
+            }
+        }
+
+        queryNanos += System.nanoTime() - startTime;
+        return cells != null ? toWaypoints(cells) : null;
+    }
+
+    /**
+     * Mean query time in microseconds, cache hits included.
+     */
+    public double getMeanQueryMicros() {
+        return queries > 0 ? queryNanos / 1000.0 / queries : 0;
+    }
+
+    public long getQueries() {
+        return queries;
+    }
+
+    public long getCacheHits() {
+        return cacheHits;
+    }
+
+    private boolean isStillPassable(CachedPath path) {
+        if (path.version() == grid.getVersion()) {
+            return true;
+        }
+        int[] cells = path.cells();
+        // The first cell is where the avatar stands, it may be inside a fresh block
+        for (int i = 1; i < cells.length; i++) {
+            int cell = cells[i];
+            if (!grid.isPassable(grid.xOf(cell), grid.yOf(cell), grid.zOf(cell))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Plain A*. Returns the cells from start to goal, or null.
+     */
+    private int[] search(int start, int goal) {
+        nodes.clear();
+        open.clear();
+
+        int goalX = grid.xOf(goal);
+        int goalY = grid.yOf(goal);
+        int goalZ = grid.zOf(goal);
+
+        nodes.put(start, node(0, -1));
+        open.enqueue(((long) heuristic(grid.xOf(start), grid.yOf(start), grid.zOf(start), goalX, goalY, goalZ) << 32) | start);
+
+        int expansions = 0;
+        while (!open.isEmpty()) {
+            long top = open.dequeueLong();
+            int current = (int) top;
+            int x = grid.xOf(current);
+            int y = grid.yOf(current);
+            int z = grid.zOf(current);
+            int g = scoreOf(nodes.get(current));
+
+            // Stale entry: a shorter way to this cell was queued later
+            if ((int) (top >>> 32) != g + heuristic(x, y, z, goalX, goalY, goalZ)) {
+                continue;
+            }
+            if (current == goal) {
+                return reconstruct(goal);
+            }
+            if (++expansions > MAX_EXPANSIONS) {
+                LOGGER.debug("Path search gave up after {} cells", expansions);
+                return null;
+            }
+
+            for (int[] move : MOVES) {
+                int nx = x + move[0];
+                int ny = y + move[1];
+                int nz = z + move[2];
+                if (!grid.isPassable(nx, ny, nz)) {
+                    continue;
+                }
+
+                int cost = STRAIGHT_COST;
+                if (move[0] != 0 && move[2] != 0) {
+                    // No cutting corners
+                    if (!grid.isPassable(nx, ny, z) || !grid.isPassable(x, ny, nz)) {
+                        continue;
+                    }
+                    cost = DIAGONAL_COST;
+                }
+
+                int next = grid.index(nx, ny, nz);
+                int nextG = g + cost;
+                if (scoreOf(nodes.get(next)) <= nextG) {
+                    continue;
+                }
+                nodes.put(next, node(nextG, current));
+                open.enqueue(((long) (nextG + heuristic(nx, ny, nz, goalX, goalY, goalZ)) << 32) | next);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Straight up to the top of the grid, across, and down onto the goal.
+     * Returns null if anything is in the way.
+     */
+    private int[] flyOver(int start, int goal) {
+        int x = grid.xOf(start);
+        int y = grid.yOf(start);
+        int z = grid.zOf(start);
+        int goalX = grid.xOf(goal);
+        int goalY = grid.yOf(goal);
+        int goalZ = grid.zOf(goal);
+        int cruise = grid.getMaxY();
+
+        IntArrayList cells = new IntArrayList();
+        cells.add(start);
+        while (y < cruise) {
+            if (!addCell(cells, x, ++y, z)) {
+                return null;
+            }
+        }
+
+        int dx = goalX - x;
+        int dz = goalZ - z;
+        int steps = Math.max(Math.abs(dx), Math.abs(dz));
+        for (int i = 1; i <= steps; i++) {
+            int nx = x + Math.round((float) dx * i / steps);
+            int nz = z + Math.round((float) dz * i / steps);
+            if (!addCell(cells, nx, y, nz)) {
+                return null;
+            }
+        }
+
+        while (y > goalY) {
+            if (!addCell(cells, goalX, --y, goalZ)) {
+                return null;
+            }
+        }
+        return cells.toIntArray();
+    }
+
+    private boolean addCell(IntArrayList cells, int x, int y, int z) {
+        if (!grid.isPassable(x, y, z)) {
+            return false;
+        }
+        cells.add(grid.index(x, y, z));
+        return true;
+    }
+
+    private int[] reconstruct(int goal) {
+        int length = 0;
+        for (int cell = goal; cell != -1; cell = parentOf(nodes.get(cell))) {
+            length++;
+        }
+        int[] cells = new int[length];
+        int i = length;
+        for (int cell = goal; cell != -1; cell = parentOf(nodes.get(cell))) {
+            cells[--i] = cell;
+        }
+        return cells;
+    }
+
+    private static long node(int score, int parent) {
+        return ((long) score << 32) | (parent & 0xFFFFFFFFL);
+    }
+
+    private static int scoreOf(long node) {
+        return (int) (node >>> 32);
+    }
+
+    private static int parentOf(long node) {
+        return (int) node;
+    }
+
+    /**
+     * Keeps only the cells where the direction changes, plus the goal.
+     */
+    private List<BlockPos> toWaypoints(int[] cells) {
+        List<BlockPos> waypoints = new ArrayList<>();
+        for (int i = 1; i < cells.length; i++) {
+            boolean last = i == cells.length - 1;
+            if (!last && direction(cells[i - 1], cells[i]) == direction(cells[i], cells[i + 1])) {
+                continue;
+            }
+            waypoints.add(new BlockPos(grid.xOf(cells[i]), grid.yOf(cells[i]), grid.zOf(cells[i])));
+        }
+        return waypoints;
+    }
+
+    private int direction(int from, int to) {
+        int dx = grid.xOf(to) - grid.xOf(from);
+        int dy = grid.yOf(to) - grid.yOf(from);
+        int dz = grid.zOf(to) - grid.zOf(from);
+        return (dx + 1) * 9 + (dy + 1) * 3 + (dz + 1);
+    }
+
+    /**
+     * Octile distance in the horizontal plane plus the vertical distance (never overestimates).
+     */
+    private static int heuristic(int x, int y, int z, int goalX, int goalY, int goalZ) {
+        int dx = Math.abs(x - goalX);
+        int dz = Math.abs(z - goalZ);
+        int dy = Math.abs(y - goalY);
+        return DIAGONAL_COST * Math.min(dx, dz) + STRAIGHT_COST * (Math.abs(dx - dz) + dy);
+    }
+}
@@ -0,0 +1,231 @@
+package com.builderbot.builder;
+
+import com.builderbot.schematic.BlockEntry;
+import com.builderbot.schematic.BuildLayer;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import net.minecraft.block.*;
+import net.minecraft.block.enums.BlockFace;
+import net.minecraft.state.property.Properties;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Direction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reorders layer blocks so that every block is placed after the block it rests on.
+ *
+ * Gravity blocks (sand, gravel, concrete powder) and attached blocks (torches, buttons,
+ * ladders, doors, carpets) each have at most one support, so the support graph is a forest.
+ * Ordering is a single linear pass: a block whose support is not placed yet is parked on
+ * the support and emitted right after it. Whatever is still parked at the end is a cycle.
+ */
+public class PlacementOrderer {
+    private static final Logger LOGGER = LoggerFactory.getLogger("BuilderBot");
+
+    private static final int NO_LAYER = -1;
+
+    /**
+     * Ordered blocks of one layer plus what the pass could not resolve.
+     */
+    public static class LayerOrder {
+        private final List<BlockEntry> blocks;
+        private final int cycleBlocks;
+        private final int unsupportedBlocks;
+
+        private LayerOrder(List<BlockEntry> blocks, int cycleBlocks, int unsupportedBlocks) {
+            this.blocks = blocks;
+            this.cycleBlocks = cycleBlocks;
+            this.unsupportedBlocks = unsupportedBlocks;
+        }
+
+        public List<BlockEntry> getBlocks() {
+            return blocks;
+        }
+
+        /**
+         * Blocks whose support chain loops back on itself (appended in file order).
+         */
+        public int getCycleBlocks() {
+            return cycleBlocks;
+        }
+
+        /**
+         * Blocks whose support is not in this or any earlier layer.
+         * They may still rest on existing terrain.
+         */
+        public int getUnsupportedBlocks() {
+            return unsupportedBlocks;
+        }
+    }
+
+    /**
+     * Orders every layer. Layers must already be in build order.
+     */
+    public static List<LayerOrder> orderLayers(List<BuildLayer> sortedLayers) {
+        long startTime = System.nanoTime();
+
+        int totalBlocks = 0;
+        for (BuildLayer layer : sortedLayers) {
+            totalBlocks += layer.getBlockCount();
+        }
+
+        // Position -> index of the layer that places it
+        Long2IntOpenHashMap layerOfPos = new Long2IntOpenHashMap(totalBlocks);
+        layerOfPos.defaultReturnValue(NO_LAYER);
+        for (int i = 0; i < sortedLayers.size(); i++) {
+            for (BlockEntry entry : sortedLayers.get(i).getBlocks()) {
+                layerOfPos.put(BlockPos.asLong(entry.getX(), entry.getY(), entry.getZ()), i);
+            }
+        }
+
+        List<LayerOrder> result = new ArrayList<>(sortedLayers.size());
+        for (int i = 0; i < sortedLayers.size(); i++) {
+            result.add(orderLayer(sortedLayers.get(i), i, layerOfPos));
+        }
+
+        LOGGER.info("Support ordering: {} blocks in {} ms",
+                totalBlocks, (System.nanoTime() - startTime) / 1_000_000);
+        return result;
+    }
+
+    private static LayerOrder orderLayer(BuildLayer layer, int layerIndex, Long2IntOpenHashMap layerOfPos) {
+        List<BlockEntry> blocks = layer.getBlocks();
+        int count = blocks.size();
+
+        Long2IntOpenHashMap indexOfPos = new Long2IntOpenHashMap(count);
+        indexOfPos.defaultReturnValue(-1);
+        for (int i = 0; i < count; i++) {
+            BlockEntry entry = blocks.get(i);
+            indexOfPos.put(BlockPos.asLong(entry.getX(), entry.getY(), entry.getZ()), i);
+        }
+
+        // Support index inside this layer, or -1 if supported elsewhere / not at all
+        int[] support = new int[count];
+        int unsupported = 0;
+
+        for (int i = 0; i < count; i++) {
+            support[i] = -1;
+
+            BlockEntry entry = blocks.get(i);
+            Direction dir = getSupportDirection(entry.getBlockState());
+            if (dir == null) {
+                continue;
+            }
+
+            long supportPos = BlockPos.asLong(
+                    entry.getX() + dir.getOffsetX(),
+                    entry.getY() + dir.getOffsetY(),
+                    entry.getZ() + dir.getOffsetZ());
+
+            int supportLayer = layerOfPos.get(supportPos);
+            if (supportLayer == layerIndex) {
+                support[i] = indexOfPos.get(supportPos);
+            } else if (supportLayer == NO_LAYER || supportLayer > layerIndex) {
+                unsupported++;
+            }
+        }
+
+        // Children waiting on a support, as intrusive singly-linked lists
+        int[] firstChild = new int[count];
+        int[] nextSibling = new int[count];
+        Arrays.fill(firstChild, -1);
+
+        boolean[] emitted = new boolean[count];
+        int[] stack = new int[count];
+        List<BlockEntry> ordered = new ArrayList<>(count);
+
+        for (int i = 0; i < count; i++) {
+            int s = support[i];
+            if (s >= 0 && !emitted[s]) {
+                nextSibling[i] = firstChild[s];
+                firstChild[s] = i;
+                continue;
+            }
+
+            // Emit i, then everything that was waiting on it
+            int top = 0;
+            stack[top++] = i;
+            while (top > 0) {
+                int node = stack[--top];
+                emitted[node] = true;
+                ordered.add(blocks.get(node));
+
+                for (int child = firstChild[node]; child >= 0; child = nextSibling[child]) {
+                    stack[top++] = child;
+                }
+                firstChild[node] = -1;
+            }
+        }
+
+        int cycles = count - ordered.size();
+        if (cycles > 0) {
+            for (int i = 0; i < count; i++) {
+                if (!emitted[i]) {
+                    ordered.add(blocks.get(i));
+                }
+            }
+        }
+
+        if (cycles > 0 || unsupported > 0) {
+            LOGGER.warn("Layer '{}': {} blocks in support cycles, {} without support",
+                    layer.getName(), cycles, unsupported);
+        }
+
+        return new LayerOrder(ordered, cycles, unsupported);
+    }
+
+    /**
+     * Returns the direction (in schematic space) of the block this state rests on,
+     * or null if it stands on its own.
+     */
+    public static Direction getSupportDirection(BlockState state) {
+        Block block = state.getBlock();
+
+        if (block instanceof FallingBlock) {
+            return Direction.DOWN;
+        }
+
+        // Buttons, levers, grindstones
+        if (block instanceof WallMountedBlock && state.contains(Properties.BLOCK_FACE)) {
+            BlockFace face = state.get(Properties.BLOCK_FACE);
+            return switch (face) {
+                case FLOOR -> Direction.DOWN;
+                case CEILING -> Direction.UP;
+                case WALL -> state.get(Properties.HORIZONTAL_FACING).getOpposite();
+            };
+        }
+
+        // Wall torches, ladders, wall signs and banners hang on the block behind them
+        if (block instanceof WallTorchBlock || block instanceof WallRedstoneTorchBlock ||
+                block instanceof LadderBlock || block instanceof WallSignBlock ||
+                block instanceof WallBannerBlock) {
+            if (state.contains(Properties.HORIZONTAL_FACING)) {
+                return state.get(Properties.HORIZONTAL_FACING).getOpposite();
+            }
+        }
+
+        if (block instanceof HangingSignBlock) {
+            return Direction.UP;
+        }
+
+        if (block instanceof LanternBlock) {
+            return state.get(Properties.HANGING) ? Direction.UP : Direction.DOWN;
+        }
+
+        // Upper door half rests on the lower half, lower half on the floor
+        if (block instanceof AbstractTorchBlock || block instanceof DoorBlock ||
+                block instanceof CarpetBlock || block instanceof AbstractPressurePlateBlock ||
+                block instanceof AbstractRailBlock || block instanceof RedstoneWireBlock ||
+                block instanceof AbstractRedstoneGateBlock || block instanceof SignBlock ||
+                block instanceof BannerBlock || block instanceof PlantBlock ||
+                block instanceof SnowBlock) {
+            return Direction.DOWN;
+        }
+
+        return null;
+    }
+}
@@ -0,0 +1,495 @@
+package com.builderbot.builder;
+
+import com.builderbot.placement.SchematicPlacement;
+import com.builderbot.schematic.BlockEntry;
+import it.unimi.dsi.fastutil.doubles.DoubleArrayList;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntArrays;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongHeapPriorityQueue;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Direction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Picks where the avatar stands while building a layer.
+ *
+ * Candidate stand positions lie on a coarse lattice around the layer. Greedy set
+ * cover (lazy, over a hash grid of the layer's blocks) picks the candidate that
+ * reaches the most uncovered blocks until every block is covered. The chosen stands
+ * are ordered as a nearest-neighbour tour improved by 2-opt, and each block goes to
+ * the first stand on the tour that reaches it - but never before the stand of the
+ * block it rests on, so the support order from {@link PlacementOrderer} still holds.
+ */
+public class ReachPlanner {
+    private static final Logger LOGGER = LoggerFactory.getLogger("BuilderBot");
+
+    public static final double EYE_HEIGHT = 1.62;
+
+    // Planned reach is shorter than the real one: the avatar stops up to 0.3 off its target
+    private static final double REACH_MARGIN = 0.5;
+
+    // Spacing of candidate stand positions
+    private static final int LATTICE_STEP = 3;
+
+    // 2-opt is quadratic per pass: skip it for huge tours, cap the passes otherwise
+    private static final int MAX_TWO_OPT_STANDS = 2000;
+    private static final int MAX_TWO_OPT_PASSES = 16;
+
+    /**
+     * Reordered blocks of a layer with their stand positions.
+     */
+    public static class Plan {
+        private final List<BlockEntry> blocks;
+        private final BlockPos[] stands;
+        private final int[] standOfBlock;
+        private final double tourLength;
+
+        Plan(List<BlockEntry> blocks, BlockPos[] stands, int[] standOfBlock, double tourLength) {
+            this.blocks = blocks;
+            this.stands = stands;
+            this.standOfBlock = standOfBlock;
+            this.tourLength = tourLength;
+        }
+
+        /**
+         * Blocks grouped by stand in tour order, support order kept within each group.
+         */
+        public List<BlockEntry> getBlocks() {
+            return blocks;
+        }
+
+        public int getStandCount() {
+            return stands.length;
+        }
+
+        public BlockPos getStand(int index) {
+            return stands[index];
+        }
+
+        /**
+         * Stand position to place the block at this index of {@link #getBlocks()} from.
+         */
+        public BlockPos getStandOf(int blockIndex) {
+            return stands[standOfBlock[blockIndex]];
+        }
+
+        /**
+         * Index of the stand (in tour order) of the block at this index.
+         */
+        public int getStandIndexOf(int blockIndex) {
+            return standOfBlock[blockIndex];
+        }
+
+        /**
+         * Walk distance through all stands in order, from the start position.
+         */
+        public double getTourLength() {
+            return tourLength;
+        }
+    }
+
+    /**
+     * Plans a layer. {@code canStand} tells whether the avatar fits at a position
+     * (feet cell); cells of the layer itself are never used. The tour starts near {@code start}.
+     */
+    public static Plan plan(List<BlockEntry> ordered, SchematicPlacement placement, double reach,
+                            Predicate<BlockPos> canStand, BlockPos start) {
+        long startTime = System.nanoTime();
+        int count = ordered.size();
+        if (count == 0) {
+            return new Plan(ordered, new BlockPos[0], new int[0], 0);
+        }
+
+        double planReach = Math.max(1.0, reach - REACH_MARGIN);
+        double reachSq = planReach * planReach;
+        int cellSize = (int) Math.ceil(planReach);
+
+        // World positions and the hash grid over them
+        int[] bx = new int[count];
+        int[] by = new int[count];
+        int[] bz = new int[count];
+        LongOpenHashSet occupied = new LongOpenHashSet(count);
+        Long2ObjectOpenHashMap<IntArrayList> grid = new Long2ObjectOpenHashMap<>();
+        int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE, minZ = Integer.MAX_VALUE;
+        int maxX = Integer.MIN_VALUE, maxY = Integer.MIN_VALUE, maxZ = Integer.MIN_VALUE;
+
+        for (int i = 0; i < count; i++) {
+            BlockPos pos = placement.toWorldPos(ordered.get(i));
+            bx[i] = pos.getX();
+            by[i] = pos.getY();
+            bz[i] = pos.getZ();
+            occupied.add(pos.asLong());
+            grid.computeIfAbsent(cellKey(bx[i], by[i], bz[i], cellSize), k -> new IntArrayList()).add(i);
+
+            minX = Math.min(minX, bx[i]);
+            minY = Math.min(minY, by[i]);
+            minZ = Math.min(minZ, bz[i]);
+            maxX = Math.max(maxX, bx[i]);
+            maxY = Math.max(maxY, by[i]);
+            maxZ = Math.max(maxZ, bz[i]);
+        }
+
+        boolean[] covered = new boolean[count];
+        Coverage coverage = new Coverage(bx, by, bz, covered, grid, cellSize, reachSq);
+
+        // Candidate stands on the lattice, with their initial coverage
+        IntArrayList candX = new IntArrayList();
+        IntArrayList candY = new IntArrayList();
+        IntArrayList candZ = new IntArrayList();
+        LongHeapPriorityQueue queue = new LongHeapPriorityQueue((a, b) -> Long.compare(b, a));
+        BlockPos.Mutable mutable = new BlockPos.Mutable();
+
+        IntArrayList levels = new IntArrayList();
+        for (int y = minY - 1; y <= maxY + 1; y += LATTICE_STEP) {
+            levels.add(y);
+        }
+        if (levels.getInt(levels.size() - 1) != maxY + 1) {
+            levels.add(maxY + 1);
+        }
+
+        for (int y : levels) {
+            for (int z = minZ - 1; z <= maxZ + 1; z += LATTICE_STEP) {
+                for (int x = minX - 1; x <= maxX + 1; x += LATTICE_STEP) {
+                    if (!isFree(x, y, z, occupied, canStand, mutable)) {
+                        continue;
+                    }
+                    int reached = coverage.count(x, y, z, false);
+                    if (reached > 0) {
+                        queue.enqueue(((long) reached << 32) | candX.size());
+                        candX.add(x);
+                        candY.add(y);
+                        candZ.add(z);
+                    }
+                }
+            }
+        }
+
+        // Lazy greedy set cover: counts only shrink, so a stale top is re-counted and re-queued
+        List<BlockPos> chosen = new ArrayList<>();
+        int uncovered = count;
+        while (uncovered > 0 && !queue.isEmpty()) {
+            long top = queue.dequeueLong();
+            int candidate = (int) top;
+            int x = candX.getInt(candidate);
+            int y = candY.getInt(candidate);
+            int z = candZ.getInt(candidate);
+
+            int reached = coverage.count(x, y, z, false);
+            if (reached == 0) {
+                continue;
+            }
+            if (!queue.isEmpty() && reached < (queue.firstLong() >>> 32)) {
+                queue.enqueue(((long) reached << 32) | candidate);
+                continue;
+            }
+
+            uncovered -= coverage.count(x, y, z, true);
+            chosen.add(new BlockPos(x, y, z));
+        }
+
+        // Blocks no lattice stand reaches (e.g. boxed in): stand right next to them
+        for (int i = 0; i < count && uncovered > 0; i++) {
+            if (!covered[i]) {
+                BlockPos stand = fallbackStand(bx[i], by[i], bz[i], occupied, canStand, mutable);
+                uncovered -= coverage.count(stand.getX(), stand.getY(), stand.getZ(), true);
+                chosen.add(stand);
+            }
+        }
+
+        // Tour through the stands; a stand's rank is its place on the tour
+        BlockPos[] tour = orderTour(chosen, start);
+        List<BlockPos> stands = new ArrayList<>(Arrays.asList(tour));
+        DoubleArrayList ranks = new DoubleArrayList(tour.length);
+        for (int i = 0; i < tour.length; i++) {
+            ranks.add(i);
+        }
+
+        Long2ObjectOpenHashMap<IntArrayList> standGrid = new Long2ObjectOpenHashMap<>();
+        for (int i = 0; i < tour.length; i++) {
+            standGrid.computeIfAbsent(cellKey(tour[i].getX(), tour[i].getY(), tour[i].getZ(), cellSize),
+                    k -> new IntArrayList()).add(i);
+        }
+
+        // Schematic position -> block index, to find each block's support
+        Long2IntOpenHashMap indexOfPos = new Long2IntOpenHashMap(count);
+        indexOfPos.defaultReturnValue(-1);
+        for (int i = 0; i < count; i++) {
+            BlockEntry entry = ordered.get(i);
+            indexOfPos.put(BlockPos.asLong(entry.getX(), entry.getY(), entry.getZ()), i);
+        }
+
+        // Assign each block to the first stand on the tour that reaches it, not before its support's
+        int[] standOf = new int[count];
+        for (int i = 0; i < count; i++) {
+            double minRank = -1;
+            BlockEntry entry = ordered.get(i);
+            Direction support = PlacementOrderer.getSupportDirection(entry.getBlockState());
+            if (support != null) {
+                int supportIndex = indexOfPos.get(BlockPos.asLong(
+                        entry.getX() + support.getOffsetX(),
+                        entry.getY() + support.getOffsetY(),
+                        entry.getZ() + support.getOffsetZ()));
+                if (supportIndex >= 0 && supportIndex < i) {
+                    minRank = ranks.getDouble(standOf[supportIndex]);
+                }
+            }
+
+            int best = findStand(bx[i], by[i], bz[i], stands, ranks, standGrid, cellSize, reachSq, minRank);
+            if (best < 0) {
+                // Support's stand is past every stand reaching this block: add one right after it
+                best = stands.size();
+                stands.add(fallbackStand(bx[i], by[i], bz[i], occupied, canStand, mutable));
+                ranks.add(minRank + 0.5);
+                BlockPos added = stands.get(best);
+                standGrid.computeIfAbsent(cellKey(added.getX(), added.getY(), added.getZ(), cellSize),
+                        k -> new IntArrayList()).add(best);
+            }
+            standOf[i] = best;
+        }
+
+        // Group blocks by stand rank, keeping their order within a stand
+        int[] order = new int[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = i;
+        }
+        IntArrays.mergeSort(order, (a, b) -> Double.compare(ranks.getDouble(standOf[a]), ranks.getDouble(standOf[b])));
+
+        // Renumber the stands that got blocks in tour order
+        int[] renumbered = new int[stands.size()];
+        Arrays.fill(renumbered, -1);
+        List<BlockPos> finalStands = new ArrayList<>();
+        List<BlockEntry> blocks = new ArrayList<>(count);
+        int[] standOfBlock = new int[count];
+        for (int i = 0; i < count; i++) {
+            int block = order[i];
+            int stand = standOf[block];
+            if (renumbered[stand] < 0) {
+                renumbered[stand] = finalStands.size();
+                finalStands.add(stands.get(stand));
+            }
+            blocks.add(ordered.get(block));
+            standOfBlock[i] = renumbered[stand];
+        }
+
+        BlockPos[] result = finalStands.toArray(new BlockPos[0]);
+        double length = tourLength(result, start);
+
+        LOGGER.info("Reach plan: {} stands for {} blocks, tour {} blocks, in {} ms",
+                result.length, count, (int) length, (System.nanoTime() - startTime) / 1_000_000);
+        return new Plan(blocks, result, standOfBlock, length);
+    }
+
+    /**
+     * Counts (and optionally marks) uncovered blocks within reach of a stand.
+     */
+    private static class Coverage {
+        final int[] bx, by, bz;
+        final boolean[] covered;
+        final Long2ObjectOpenHashMap<IntArrayList> grid;
+        final int cellSize;
+        final double reach;
+        final double reachSq;
+
+        Coverage(int[] bx, int[] by, int[] bz, boolean[] covered,
+                 Long2ObjectOpenHashMap<IntArrayList> grid, int cellSize, double reachSq) {
+            this.bx = bx;
+            this.by = by;
+            this.bz = bz;
+            this.covered = covered;
+            this.grid = grid;
+            this.cellSize = cellSize;
+            this.reach = Math.sqrt(reachSq);
+            this.reachSq = reachSq;
+        }
+
+        int count(int x, int y, int z, boolean mark) {
+            double eyeX = x + 0.5;
+            double eyeY = y + EYE_HEIGHT;
+            double eyeZ = z + 0.5;
+
+            int result = 0;
+            for (int cy = Math.floorDiv((int) Math.floor(eyeY - reach), cellSize);
+                 cy <= Math.floorDiv((int) Math.floor(eyeY + reach), cellSize); cy++) {
+                for (int cz = Math.floorDiv((int) Math.floor(eyeZ - reach), cellSize);
+                     cz <= Math.floorDiv((int) Math.floor(eyeZ + reach), cellSize); cz++) {
+                    for (int cx = Math.floorDiv((int) Math.floor(eyeX - reach), cellSize);
+                         cx <= Math.floorDiv((int) Math.floor(eyeX + reach), cellSize); cx++) {
+                        IntArrayList cell = grid.get(BlockPos.asLong(cx, cy, cz));
+                        if (cell == null) {
+                            continue;
+                        }
+                        for (int k = 0; k < cell.size(); k++) {
+                            int i = cell.getInt(k);
+                            if (covered[i]) {
+                                continue;
+                            }
+                            double dx = bx[i] + 0.5 - eyeX;
+                            double dy = by[i] + 0.5 - eyeY;
+                            double dz = bz[i] + 0.5 - eyeZ;
+                            if (dx * dx + dy * dy + dz * dz <= reachSq) {
+                                result++;
+                                if (mark) {
+                                    covered[i] = true;
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Lowest-ranked stand within reach of the block with a rank of at least minRank, or -1.
+     */
+    private static int findStand(int x, int y, int z, List<BlockPos> stands, DoubleArrayList ranks,
+                                 Long2ObjectOpenHashMap<IntArrayList> standGrid, int cellSize,
+                                 double reachSq, double minRank) {
+        double reach = Math.sqrt(reachSq);
+        double cx = x + 0.5;
+        double cy = y + 0.5;
+        double cz = z + 0.5;
+
+        int best = -1;
+        for (int gy = Math.floorDiv((int) Math.floor(cy - EYE_HEIGHT - reach), cellSize);
+             gy <= Math.floorDiv((int) Math.floor(cy - EYE_HEIGHT + reach), cellSize); gy++) {
+            for (int gz = Math.floorDiv((int) Math.floor(cz - reach), cellSize);
+                 gz <= Math.floorDiv((int) Math.floor(cz + reach), cellSize); gz++) {
+                for (int gx = Math.floorDiv((int) Math.floor(cx - reach), cellSize);
+                     gx <= Math.floorDiv((int) Math.floor(cx + reach), cellSize); gx++) {
+                    IntArrayList cell = standGrid.get(BlockPos.asLong(gx, gy, gz));
+                    if (cell == null) {
+                        continue;
+                    }
+                    for (int k = 0; k < cell.size(); k++) {
+                        int stand = cell.getInt(k);
+                        double rank = ranks.getDouble(stand);
+                        if (rank < minRank || (best >= 0 && rank >= ranks.getDouble(best))) {
+                            continue;
+                        }
+                        BlockPos pos = stands.get(stand);
+                        double dx = cx - (pos.getX() + 0.5);
+                        double dy = cy - (pos.getY() + EYE_HEIGHT);
+                        double dz = cz - (pos.getZ() + 0.5);
+                        if (dx * dx + dy * dy + dz * dz <= reachSq) {
+                            best = stand;
+                        }
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Nearest-neighbour tour from the start, then 2-opt until no move shortens it.
+     */
+    private static BlockPos[] orderTour(List<BlockPos> stands, BlockPos start) {
+        int n = stands.size();
+        BlockPos[] tour = new BlockPos[n];
+        boolean[] used = new boolean[n];
+        BlockPos current = start;
+
+        for (int i = 0; i < n; i++) {
+            int nearest = -1;
+            double nearestDistance = Double.MAX_VALUE;
+            for (int j = 0; j < n; j++) {
+                if (!used[j]) {
+                    double distance = current.getSquaredDistance(stands.get(j));
+                    if (distance < nearestDistance) {
+                        nearest = j;
+                        nearestDistance = distance;
+                    }
+                }
+            }
+            used[nearest] = true;
+            tour[i] = stands.get(nearest);
+            current = tour[i];
+        }
+
+        if (n < 3 || n > MAX_TWO_OPT_STANDS) {
+            return tour;
+        }
+
+        // Open path from the start: reversing tour[i..j] replaces edges (i-1, i) and (j, j+1)
+        for (int pass = 0; pass < MAX_TWO_OPT_PASSES; pass++) {
+            boolean improved = false;
+            for (int i = 0; i < n - 1; i++) {
+                BlockPos before = i == 0 ? start : tour[i - 1];
+                for (int j = i + 1; j < n; j++) {
+                    double removed = distance(before, tour[i]);
+                    double added = distance(before, tour[j]);
+                    if (j + 1 < n) {
+                        removed += distance(tour[j], tour[j + 1]);
+                        added += distance(tour[i], tour[j + 1]);
+                    }
+                    if (added < removed - 1e-9) {
+                        for (int a = i, b = j; a < b; a++, b--) {
+                            BlockPos swap = tour[a];
+                            tour[a] = tour[b];
+                            tour[b] = swap;
+                        }
+                        improved = true;
+                    }
+                }
+            }
+            if (!improved) {
+                break;
+            }
+        }
+        return tour;
+    }
+
+    private static double tourLength(BlockPos[] tour, BlockPos start) {
+        double length = 0;
+        BlockPos current = start;
+        for (BlockPos stand : tour) {
+            length += distance(current, stand);
+            current = stand;
+        }
+        return length;
+    }
+
+    private static double distance(BlockPos a, BlockPos b) {
+        return Math.sqrt(a.getSquaredDistance(b));
+    }
+
+    /**
+     * First free cell above or beside the block. Every candidate is within reach.
+     */
+    private static BlockPos fallbackStand(int x, int y, int z, LongOpenHashSet occupied,
+                                          Predicate<BlockPos> canStand, BlockPos.Mutable mutable) {
+        int[][] offsets = {{0, 1, 0}, {1, 0, 0}, {-1, 0, 0}, {0, 0, 1}, {0, 0, -1}, {0, -2, 0}, {0, 2, 0}};
+        for (int[] offset : offsets) {
+            int sx = x + offset[0];
+            int sy = y + offset[1];
+            int sz = z + offset[2];
+            if (isFree(sx, sy, sz, occupied, canStand, mutable)) {
+                return new BlockPos(sx, sy, sz);
+            }
+        }
+        // Boxed in: stand on top anyway, the avatar flies through
+        return new BlockPos(x, y + 1, z);
+    }
+
+    private static boolean isFree(int x, int y, int z, LongOpenHashSet occupied,
+                                  Predicate<BlockPos> canStand, BlockPos.Mutable mutable) {
+        return !occupied.contains(BlockPos.asLong(x, y, z)) &&
+                !occupied.contains(BlockPos.asLong(x, y + 1, z)) &&
+                canStand.test(mutable.set(x, y, z));
+    }
+
+    private static long cellKey(int x, int y, int z, int cellSize) {
+        return BlockPos.asLong(Math.floorDiv(x, cellSize), Math.floorDiv(y, cellSize), Math.floorDiv(z, cellSize));
+    }
+}
@@ -0,0 +1,45 @@
+package com.builderbot.builder;
+
+import net.minecraft.block.BlockState;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.BlockPos;
+
+/**
+ * {@link BlockSink} backed by a real server world.
+ */
+public class ServerWorldSink implements BlockSink {
+    private final ServerWorld world;
+
+    public ServerWorldSink(ServerWorld world) {
+        this.world = world;
+    }
+
+    public ServerWorld getWorld() {
+        return world;
+    }
+
+    @Override
+    public BlockState getBlockState(BlockPos pos) {
+        return world.getBlockState(pos);
+    }
+
+    @Override
+    public boolean setBlockState(BlockPos pos, BlockState state, int flags) {
+        return world.setBlockState(pos, state, flags);
+    }
+
+    @Override
+    public boolean breakBlock(BlockPos pos, boolean drop) {
+        return world.breakBlock(pos, drop);
+    }
+
+    @Override
+    public boolean isChunkLoaded(int chunkX, int chunkZ) {
+        return world.getChunkManager().isChunkLoaded(chunkX, chunkZ);
+    }
+
+    @Override
+    public boolean isSolid(BlockPos pos) {
+        return !world.getBlockState(pos).getCollisionShape(world, pos).isEmpty();
+    }
+}
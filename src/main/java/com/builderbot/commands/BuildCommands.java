@@ -1,7 +1,14 @@
 package com.builderbot.commands;
 
+import com.builderbot.builder.AvatarAnimator;
+import com.builderbot.builder.AvatarCrew;
 import com.builderbot.builder.BuildExecutor;
 import com.builderbot.builder.BuildManager;
+import com.builderbot.builder.BuildScheduler;
+import com.builderbot.builder.EffectAggregator;
+import com.builderbot.builder.MaterialManager;
+import com.builderbot.jfr.JfrRecorder;
+import com.builderbot.metrics.BuildMetrics;
 import com.builderbot.placement.PlacementController;
 import com.builderbot.schematic.BuildLayer;
 import com.builderbot.schematic.SchematicLoader;
@@ -18,6 +25,7 @@ import net.minecraft.command.CommandRegistryAccess;
 import net.minecraft.text.Text;
 import net.minecraft.util.math.Direction;
 
+import java.nio.file.Path;
 import java.util.List;
 
 /**
@@ -71,6 +79,20 @@ public class BuildCommands {
                 .then(ClientCommandManager.literal("unload")
                     .executes(BuildCommands::unloadSchematic))
                 
+                // /build generate <name> <x> <y> <z> [layers] [seed]
+                .then(ClientCommandManager.literal("generate")
+                    .then(ClientCommandManager.argument("name", StringArgumentType.string())
+                        .then(ClientCommandManager.argument("x", IntegerArgumentType.integer(1, 4096))
+                            .then(ClientCommandManager.argument("y", IntegerArgumentType.integer(1, 384))
+                                .then(ClientCommandManager.argument("z", IntegerArgumentType.integer(1, 4096))
+                                    .executes(ctx -> generateSchematic(ctx, 4, 0))
+                                    .then(ClientCommandManager.argument("layers", IntegerArgumentType.integer(1, 384))
+                                        .executes(ctx -> generateSchematic(ctx, IntegerArgumentType.getInteger(ctx, "layers"), 0))
+                                        .then(ClientCommandManager.argument("seed", IntegerArgumentType.integer())
+                                            .executes(ctx -> generateSchematic(ctx,
+                                                IntegerArgumentType.getInteger(ctx, "layers"),
+                                                IntegerArgumentType.getInteger(ctx, "seed"))))))))))
+                
                 // /build list
                 .then(ClientCommandManager.literal("list")
                     .executes(BuildCommands::listSchematics))
@@ -137,6 +159,63 @@ public class BuildCommands {
                     .then(ClientCommandManager.argument("speed", IntegerArgumentType.integer(1, 10))
                         .executes(BuildCommands::setSpeed)))
                 
+                // /build fastfill <on|off>
+                .then(ClientCommandManager.literal("fastfill")
+                    .then(ClientCommandManager.literal("on")
+                        .executes(ctx -> setFastFill(ctx, true)))
+                    .then(ClientCommandManager.literal("off")
+                        .executes(ctx -> setFastFill(ctx, false))))
+                
+                // /build avatar <on|off|swing <ticks>>
+                .then(ClientCommandManager.literal("avatar")
+                    .then(ClientCommandManager.literal("on")
+                        .executes(ctx -> setAvatarMode(ctx, true)))
+                    .then(ClientCommandManager.literal("off")
+                        .executes(ctx -> setAvatarMode(ctx, false)))
+                    .then(ClientCommandManager.literal("swing")
+                        .then(ClientCommandManager.argument("ticks", IntegerArgumentType.integer(1, AvatarAnimator.MAX_SWING_INTERVAL))
+                            .executes(BuildCommands::setSwingInterval))))
+                
+                // /build avatars <1-8>
+                .then(ClientCommandManager.literal("avatars")
+                    .then(ClientCommandManager.argument("count", IntegerArgumentType.integer(1, AvatarCrew.MAX_SIZE))
+                        .executes(BuildCommands::setAvatarCount)))
+                
+                // /build survival <on|off|radius <n>|trip <blocks>>
+                .then(ClientCommandManager.literal("survival")
+                    .then(ClientCommandManager.literal("on")
+                        .executes(ctx -> setSurvival(ctx, true)))
+                    .then(ClientCommandManager.literal("off")
+                        .executes(ctx -> setSurvival(ctx, false)))
+                    .then(ClientCommandManager.literal("radius")
+                        .then(ClientCommandManager.argument("radius", IntegerArgumentType.integer(0, MaterialManager.MAX_RADIUS))
+                            .executes(BuildCommands::setContainerRadius)))
+                    .then(ClientCommandManager.literal("trip")
+                        .then(ClientCommandManager.argument("blocks", IntegerArgumentType.integer(1, MaterialManager.MAX_TRIP_BLOCKS))
+                            .executes(BuildCommands::setTripBlocks))))
+                
+                // /build updates <immediate|deferred>
+                .then(ClientCommandManager.literal("updates")
+                    .then(ClientCommandManager.literal("immediate")
+                        .executes(ctx -> setUpdateMode(ctx, BuildExecutor.UpdateMode.IMMEDIATE)))
+                    .then(ClientCommandManager.literal("deferred")
+                        .executes(ctx -> setUpdateMode(ctx, BuildExecutor.UpdateMode.DEFERRED))))
+                
+                // /build lighting <immediate|batched [ticks]>
+                .then(ClientCommandManager.literal("lighting")
+                    .then(ClientCommandManager.literal("immediate")
+                        .executes(ctx -> setLighting(ctx, 0)))
+                    .then(ClientCommandManager.literal("batched")
+                        .executes(ctx -> setLighting(ctx, 20))
+                        .then(ClientCommandManager.argument("ticks", IntegerArgumentType.integer(1, 1200))
+                            .executes(ctx -> setLighting(ctx, IntegerArgumentType.getInteger(ctx, "ticks"))))))
+                
+                // /build sounds [<limit>]
+                .then(ClientCommandManager.literal("sounds")
+                    .executes(BuildCommands::showSounds)
+                    .then(ClientCommandManager.argument("limit", IntegerArgumentType.integer(0, EffectAggregator.MAX_SOUND_LIMIT))
+                        .executes(BuildCommands::setSoundLimit)))
+                
                 // /build skip
                 .then(ClientCommandManager.literal("skip")
                     .executes(BuildCommands::skipLayer))
@@ -155,6 +234,55 @@ public class BuildCommands {
                 .then(ClientCommandManager.literal("layers")
                     .executes(BuildCommands::listLayers))
                 
+                // /build jobs [id pause|resume|stop|focus|priority <weight>]
+                .then(ClientCommandManager.literal("jobs")
+                    .executes(BuildCommands::listJobs)
+                    .then(ClientCommandManager.argument("id", IntegerArgumentType.integer(1))
+                        .then(ClientCommandManager.literal("pause")
+                            .executes(ctx -> jobResult(BuildManager.getInstance().pauseJob(IntegerArgumentType.getInteger(ctx, "id")))))
+                        .then(ClientCommandManager.literal("resume")
+                            .executes(ctx -> jobResult(BuildManager.getInstance().resumeJob(IntegerArgumentType.getInteger(ctx, "id")))))
+                        .then(ClientCommandManager.literal("stop")
+                            .executes(ctx -> jobResult(BuildManager.getInstance().stopJob(IntegerArgumentType.getInteger(ctx, "id")))))
+                        .then(ClientCommandManager.literal("focus")
+                            .executes(ctx -> jobResult(BuildManager.getInstance().focusJob(IntegerArgumentType.getInteger(ctx, "id")))))
+                        .then(ClientCommandManager.literal("priority")
+                            .then(ClientCommandManager.argument("weight", IntegerArgumentType.integer(1, BuildScheduler.MAX_WEIGHT))
+                                .executes(ctx -> jobResult(BuildManager.getInstance().setJobWeight(
+                                    IntegerArgumentType.getInteger(ctx, "id"),
+                                    IntegerArgumentType.getInteger(ctx, "weight"))))))))
+                
+                // /build budget <blocks per tick>
+                .then(ClientCommandManager.literal("budget")
+                    .executes(BuildCommands::showBudget)
+                    .then(ClientCommandManager.argument("blocks", IntegerArgumentType.integer(1))
+                        .executes(BuildCommands::setBudget)))
+                
+                // /build stats [reset]
+                .then(ClientCommandManager.literal("stats")
+                    .executes(BuildCommands::showStats)
+                    .then(ClientCommandManager.literal("reset")
+                        .executes(ctx -> {
+                            BuildMetrics.get().reset();
+                            ctx.getSource().sendFeedback(Text.literal("§7Статистика сброшена"));
+                            return 1;
+                        })))
+                
+                // /build sessionlog <on|off>
+                .then(ClientCommandManager.literal("sessionlog")
+                    .then(ClientCommandManager.literal("on")
+                        .executes(ctx -> setSessionLogging(true)))
+                    .then(ClientCommandManager.literal("off")
+                        .executes(ctx -> setSessionLogging(false))))
+                
+                // /build jfr [on|off]
+                .then(ClientCommandManager.literal("jfr")
+                    .executes(ctx -> toggleJfr(ctx, !JfrRecorder.isRecording()))
+                    .then(ClientCommandManager.literal("on")
+                        .executes(ctx -> toggleJfr(ctx, true)))
+                    .then(ClientCommandManager.literal("off")
+                        .executes(ctx -> toggleJfr(ctx, false))))
+                
                 // /build help
                 .then(ClientCommandManager.literal("help")
                     .executes(BuildCommands::showHelp))
@@ -196,6 +324,15 @@ public class BuildCommands {
         return 1;
     }
     
+    private static int generateSchematic(CommandContext<FabricClientCommandSource> ctx, int layers, long seed) {
+        String name = StringArgumentType.getString(ctx, "name");
+        int x = IntegerArgumentType.getInteger(ctx, "x");
+        int y = IntegerArgumentType.getInteger(ctx, "y");
+        int z = IntegerArgumentType.getInteger(ctx, "z");
+        BuildManager.getInstance().generateSchematic(name, x, y, z, layers, seed);
+        return 1;
+    }
+    
     private static int showInfo(CommandContext<FabricClientCommandSource> ctx) {
         String info = BuildManager.getInstance().getSchematicInfo();
         for (String line : info.split("\n")) {
@@ -269,6 +406,73 @@ public class BuildCommands {
         return 1;
     }
     
+    private static int setFastFill(CommandContext<FabricClientCommandSource> ctx, boolean enabled) {
+        BuildManager.getInstance().setFastFill(enabled);
+        return 1;
+    }
+    
+    private static int setAvatarMode(CommandContext<FabricClientCommandSource> ctx, boolean enabled) {
+        BuildManager.getInstance().setAvatarMode(enabled);
+        return 1;
+    }
+    
+    private static int setSwingInterval(CommandContext<FabricClientCommandSource> ctx) {
+        int ticks = IntegerArgumentType.getInteger(ctx, "ticks");
+        BuildManager.getInstance().setSwingInterval(ticks);
+        return 1;
+    }
+    
+    private static int setAvatarCount(CommandContext<FabricClientCommandSource> ctx) {
+        int count = IntegerArgumentType.getInteger(ctx, "count");
+        BuildManager.getInstance().setAvatarCount(count);
+        return 1;
+    }
+    
+    private static int setSurvival(CommandContext<FabricClientCommandSource> ctx, boolean enabled) {
+        BuildManager.getInstance().setSurvival(enabled);
+        return 1;
+    }
+    
+    private static int setContainerRadius(CommandContext<FabricClientCommandSource> ctx) {
+        int radius = IntegerArgumentType.getInteger(ctx, "radius");
+        BuildManager.getInstance().setContainerRadius(radius);
+        return 1;
+    }
+    
+    private static int setTripBlocks(CommandContext<FabricClientCommandSource> ctx) {
+        int blocks = IntegerArgumentType.getInteger(ctx, "blocks");
+        BuildManager.getInstance().setTripBlocks(blocks);
+        return 1;
+    }
+    
+    private static int setUpdateMode(CommandContext<FabricClientCommandSource> ctx, BuildExecutor.UpdateMode mode) {
+        BuildManager.getInstance().setUpdateMode(mode);
+        return 1;
+    }
+    
+    private static int setLighting(CommandContext<FabricClientCommandSource> ctx, int ticks) {
+        BuildManager.getInstance().setLightFlushInterval(ticks);
+        return 1;
+    }
+    
+    private static int showSounds(CommandContext<FabricClientCommandSource> ctx) {
+        int limit = BuildManager.getInstance().getSoundLimit();
+        ctx.getSource().sendFeedback(Text.literal(limit > 0
+                ? "§7Звуков на звук за тик: §f" + limit + " §7(когда за тик ставится больше блоков)"
+                : "§7Звуков за тик: §fна каждый блок"));
+
+        EffectAggregator effects = BuildManager.getInstance().getScheduler().getEffects();
+        ctx.getSource().sendFeedback(Text.literal("§7Запрошено: §f" + effects.getRequestedSounds() +
+                " §7сыграно: §f" + effects.getPlayedSounds()));
+        return 1;
+    }
+    
+    private static int setSoundLimit(CommandContext<FabricClientCommandSource> ctx) {
+        int limit = IntegerArgumentType.getInteger(ctx, "limit");
+        BuildManager.getInstance().setSoundLimit(limit);
+        return 1;
+    }
+    
     private static int skipLayer(CommandContext<FabricClientCommandSource> ctx) {
         BuildManager.getInstance().skipLayer();
         return 1;
@@ -283,6 +487,13 @@ public class BuildCommands {
     private static int showStatus(CommandContext<FabricClientCommandSource> ctx) {
         BuildExecutor executor = BuildManager.getInstance().getBuildExecutor();
         ctx.getSource().sendFeedback(Text.literal("§6Статус: §f" + executor.getProgressInfo()));
+        if (executor.getLightFlushInterval() > 0) {
+            ctx.getSource().sendFeedback(Text.literal(String.format(
+                "§7Свет: §f%.1f мс§7, проверок %d, пропущено %d",
+                executor.getLightingNanos() / 1_000_000.0,
+                executor.getLightChecksSubmitted(),
+                executor.getLightChecksSkipped())));
+        }
         return 1;
     }
     
@@ -305,12 +516,106 @@ public class BuildCommands {
         return 1;
     }
     
+    private static int listJobs(CommandContext<FabricClientCommandSource> ctx) {
+        BuildManager manager = BuildManager.getInstance();
+        List<BuildScheduler.Job> jobs = manager.getScheduler().getJobs();
+        
+        if (jobs.isEmpty()) {
+            ctx.getSource().sendFeedback(Text.literal("§7Нет активных строек"));
+            return 1;
+        }
+        
+        ctx.getSource().sendFeedback(Text.literal("§6Стройки §7(бюджет: " +
+            manager.getScheduler().getBlockBudget() + " блоков/тик):"));
+        for (BuildScheduler.Job job : jobs) {
+            BuildExecutor executor = job.getExecutor();
+            String marker = executor == manager.getBuildExecutor() ? "§a*" : " ";
+            ctx.getSource().sendFeedback(Text.literal(String.format(
+                "%s§7#%d §f%s §7[%s, приоритет %d] %s",
+                marker,
+                job.getId(),
+                job.getName(),
+                executor.getState().name(),
+                job.getWeight(),
+                executor.getProgressInfo())));
+        }
+        return 1;
+    }
+    
+    private static int jobResult(boolean success) {
+        return success ? 1 : 0;
+    }
+    
+    private static int showStats(CommandContext<FabricClientCommandSource> ctx) {
+        BuildMetrics m = BuildMetrics.get();
+        ctx.getSource().sendFeedback(Text.literal("§6Статистика строительства:"));
+        ctx.getSource().sendFeedback(Text.literal(String.format(
+            "§7Поставлено: §f%d §7(%.0f/с), сломано: §f%d §7(%.0f/с)",
+            m.getBlocksPlaced(), m.getBlocksPlacedPerSecond(), m.getBlocksBroken(), m.getBlocksBrokenPerSecond())));
+        ctx.getSource().sendFeedback(Text.literal(String.format(
+            "§7На блок: §f%.0f нс §7среднее, p50 §f%d§7, p99 §f%d§7, макс §f%d",
+            m.getBlockNanosMean(), m.getBlockNanosP50(), m.getBlockNanosP99(), m.getBlockNanosMax())));
+        ctx.getSource().sendFeedback(Text.literal(String.format(
+            "§7Пачка: §f%.1f §7среднее, §f%d §7макс | Строек: §f%d§7, в очереди: §f%d",
+            m.getBatchSizeMean(), m.getBatchSizeMax(), m.getActiveBuilds(), m.getQueuedBlocks())));
+        ctx.getSource().sendFeedback(Text.literal(String.format(
+            "§7Пропущено: §f%d§7, не поставлено: §f%d§7, ожиданий чанков: §f%d",
+            m.getSkippedBlocks(), m.getFailedPlacements(), m.getChunkWaits())));
+        ctx.getSource().sendFeedback(Text.literal(String.format(
+            "§7Освещение: §f%.0f мкс §7среднее, p99 §f%d §7за сброс",
+            m.getLightingMicrosMean(), m.getLightingMicrosP99())));
+        ctx.getSource().sendFeedback(Text.literal(String.format(
+            "§7Загрузка: §f%d мс §7(%.0f блоков/с) | Превью: §f%.0f мкс §7среднее, p99 §f%d",
+            m.getLastLoadMillis(), m.getLastParseBlocksPerSecond(), m.getMeshBuildMicrosMean(), m.getMeshBuildMicrosP99())));
+        return 1;
+    }
+    
+    private static int setSessionLogging(boolean enabled) {
+        BuildManager.getInstance().setSessionLogging(enabled);
+        return 1;
+    }
+    
+    private static int toggleJfr(CommandContext<FabricClientCommandSource> ctx, boolean enable) {
+        if (enable) {
+            if (JfrRecorder.start()) {
+                ctx.getSource().sendFeedback(Text.literal("§aЗапись JFR начата §7(/build jfr off - сохранить)"));
+                return 1;
+            }
+            ctx.getSource().sendFeedback(Text.literal(JfrRecorder.isRecording()
+                ? "§7Запись JFR уже идёт"
+                : "§cНе удалось начать запись JFR"));
+            return 0;
+        }
+
+        Path file = JfrRecorder.stop();
+        if (file == null) {
+            ctx.getSource().sendFeedback(Text.literal("§7Запись JFR не идёт"));
+            return 0;
+        }
+        ctx.getSource().sendFeedback(Text.literal("§a✓ Запись JFR сохранена: §f" + file.getFileName()));
+        return 1;
+    }
+    
+    private static int showBudget(CommandContext<FabricClientCommandSource> ctx) {
+        int budget = BuildManager.getInstance().getScheduler().getBlockBudget();
+        ctx.getSource().sendFeedback(Text.literal("§7Бюджет: §f" + budget + " §7блоков/тик на все стройки"));
+        return 1;
+    }
+    
+    private static int setBudget(CommandContext<FabricClientCommandSource> ctx) {
+        int blocks = IntegerArgumentType.getInteger(ctx, "blocks");
+        BuildManager.getInstance().getScheduler().setBlockBudget(blocks);
+        ctx.getSource().sendFeedback(Text.literal("§aБюджет: " + blocks + " блоков/тик"));
+        return 1;
+    }
+    
     private static int showHelp(CommandContext<FabricClientCommandSource> ctx) {
         ctx.getSource().sendFeedback(Text.literal("§6=== Builder Bot - Справка ==="));
         ctx.getSource().sendFeedback(Text.literal(""));
         ctx.getSource().sendFeedback(Text.literal("§e/build load <file>§7 - Загрузить схему"));
         ctx.getSource().sendFeedback(Text.literal("§e/build unload§7 - Выгрузить схему"));
         ctx.getSource().sendFeedback(Text.literal("§e/build list§7 - Список схем"));
+        ctx.getSource().sendFeedback(Text.literal("§e/build generate <имя> <x> <y> <z> [слоёв] [сид]§7 - Синтетическая схема"));
         ctx.getSource().sendFeedback(Text.literal("§e/build info§7 - Информация о схеме"));
         ctx.getSource().sendFeedback(Text.literal(""));
         ctx.getSource().sendFeedback(Text.literal("§e/build confirm§7 - Подтвердить размещение"));
@@ -322,10 +627,28 @@ public class BuildCommands {
         ctx.getSource().sendFeedback(Text.literal("§e/build resume§7 - Продолжить"));
         ctx.getSource().sendFeedback(Text.literal("§e/build stop§7 - Остановить"));
         ctx.getSource().sendFeedback(Text.literal("§e/build speed <1-10>§7 - Скорость"));
+        ctx.getSource().sendFeedback(Text.literal("§e/build fastfill <on|off>§7 - Быстрая заливка объёмов"));
+        ctx.getSource().sendFeedback(Text.literal("§e/build avatar <on|off>§7 - Строит аватар-игрок"));
+        ctx.getSource().sendFeedback(Text.literal("§e/build avatars <1-8>§7 - Сколько аватаров строят вместе"));
+        ctx.getSource().sendFeedback(Text.literal("§e/build avatar swing <тиков>§7 - Как часто аватар машет рукой"));
+        ctx.getSource().sendFeedback(Text.literal("§e/build survival <on|off>§7 - Строить блоками из сундуков рядом"));
+        ctx.getSource().sendFeedback(Text.literal("§e/build survival radius <n>§7 - Радиус поиска сундуков"));
+        ctx.getSource().sendFeedback(Text.literal("§e/build survival trip <блоков>§7 - На сколько блоков брать за поход"));
+        ctx.getSource().sendFeedback(Text.literal("§e/build updates <immediate|deferred>§7 - Обновления соседей"));
+        ctx.getSource().sendFeedback(Text.literal("§e/build lighting <immediate|batched [n]>§7 - Расчёт света"));
+        ctx.getSource().sendFeedback(Text.literal("§e/build sounds [лимит]§7 - Звуков за тик при массовой стройке (0 = на каждый блок)"));
         ctx.getSource().sendFeedback(Text.literal("§e/build skip§7 - Пропустить слой"));
         ctx.getSource().sendFeedback(Text.literal("§e/build goto <n>§7 - Перейти к слою"));
         ctx.getSource().sendFeedback(Text.literal("§e/build status§7 - Текущий статус"));
         ctx.getSource().sendFeedback(Text.literal("§e/build layers§7 - Список слоёв"));
+        ctx.getSource().sendFeedback(Text.literal(""));
+        ctx.getSource().sendFeedback(Text.literal("§e/build jobs§7 - Список строек"));
+        ctx.getSource().sendFeedback(Text.literal("§e/build jobs <id> pause|resume|stop|focus§7 - Управление стройкой"));
+        ctx.getSource().sendFeedback(Text.literal("§e/build jobs <id> priority <1-100>§7 - Приоритет"));
+        ctx.getSource().sendFeedback(Text.literal("§e/build budget <n>§7 - Блоков за тик на все стройки"));
+        ctx.getSource().sendFeedback(Text.literal("§e/build stats [reset]§7 - Статистика"));
+        ctx.getSource().sendFeedback(Text.literal("§e/build sessionlog <on|off>§7 - Лог всех операций стройки"));
+        ctx.getSource().sendFeedback(Text.literal("§e/build jfr [on|off]§7 - Запись Java Flight Recorder"));
         return 1;
     }
 }
@@ -0,0 +1,21 @@
+package com.builderbot.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A flush of work collected during a build (deferred updates, light checks).
+ */
+@Name("builderbot.BatchFlush")
+@Label("Batch Flush")
+@Category({"BuilderBot", "Building"})
+public class BatchFlushEvent extends Event {
+
+    @Label("Kind")
+    public String kind;
+
+    @Label("Positions")
+    public int positions;
+}
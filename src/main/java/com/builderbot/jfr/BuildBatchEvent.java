@@ -0,0 +1,30 @@
+package com.builderbot.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * One runBlocks call of a build executor on the server thread.
+ */
+@Name("builderbot.BuildBatch")
+@Label("Build Batch")
+@Category({"BuilderBot", "Building"})
+public class BuildBatchEvent extends Event {
+
+    @Label("Schematic")
+    public String schematic;
+
+    @Label("Layer")
+    public int layer;
+
+    @Label("Requested")
+    public int requested;
+
+    @Label("Processed")
+    public int processed;
+
+    @Label("Fast-Fill")
+    public boolean fastFill;
+}
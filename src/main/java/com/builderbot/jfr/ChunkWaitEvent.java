@@ -0,0 +1,21 @@
+package com.builderbot.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * The build frontier reached a chunk that was not loaded yet.
+ */
+@Name("builderbot.ChunkWait")
+@Label("Chunk Wait")
+@Category({"BuilderBot", "Building"})
+public class ChunkWaitEvent extends Event {
+
+    @Label("Chunk X")
+    public int chunkX;
+
+    @Label("Chunk Z")
+    public int chunkZ;
+}
@@ -0,0 +1,90 @@
+package com.builderbot.jfr;
+
+import net.fabricmc.loader.api.FabricLoader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Starts and stops a flight recording with BuilderBot events (/build jfr).
+ *
+ * The recording uses the JDK "profile" settings plus all builderbot.* events,
+ * so BuilderBot work lines up with GC, allocation and thread events. The events
+ * also show up in recordings started with -XX:StartFlightRecording.
+ * While no recording is running they cost next to nothing.
+ */
+public class JfrRecorder {
+    private static final Logger LOGGER = LoggerFactory.getLogger("BuilderBot");
+
+    private static final String[] EVENTS = {
+            "builderbot.SchematicLoad",
+            "builderbot.BuildBatch",
+            "builderbot.ChunkWait",
+            "builderbot.BatchFlush",
+            "builderbot.MeshBuild"
+    };
+
+    private static Recording recording;
+
+    public static synchronized boolean isRecording() {
+        return recording != null;
+    }
+
+    /**
+     * Starts a recording. Returns false if one is already running or JFR is unavailable.
+     */
+    public static synchronized boolean start() {
+        if (recording != null) {
+            return false;
+        }
+
+        try {
+            Recording newRecording = new Recording(Configuration.getConfiguration("profile"));
+            newRecording.setName("BuilderBot");
+            for (String event : EVENTS) {
+                newRecording.enable(event);
+            }
+            newRecording.start();
+            recording = newRecording;
+            LOGGER.info("JFR recording started");
+            return true;
+        } catch (Exception e) {
+            LOGGER.error("Failed to start JFR recording", e);
+            return false;
+        }
+    }
+
+    /**
+     * Stops the recording and writes it to builderbot/jfr. Returns the file, or null.
+     */
+    public static synchronized Path stop() {
+        if (recording == null) {
+            return null;
+        }
+
+        try {
+            Path folder = FabricLoader.getInstance().getGameDir().resolve("builderbot").resolve("jfr");
+            Files.createDirectories(folder);
+            Path file = folder.resolve("builderbot-" +
+                    LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")) + ".jfr");
+
+            recording.stop();
+            recording.dump(file);
+            LOGGER.info("JFR recording written to {}", file);
+            return file;
+        } catch (Exception e) {
+            LOGGER.error("Failed to write JFR recording", e);
+            return null;
+        } finally {
+            recording.close();
+            recording = null;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.builderbot.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Building and uploading the schematic preview mesh.
+ */
+@Name("builderbot.MeshBuild")
+@Label("Preview Mesh Build")
+@Category({"BuilderBot", "Rendering"})
+public class MeshBuildEvent extends Event {
+
+    @Label("Blocks")
+    public int blocks;
+
+    @Label("Faces Before Culling")
+    public int facesBefore;
+
+    @Label("Faces After Culling")
+    public int facesAfter;
+}
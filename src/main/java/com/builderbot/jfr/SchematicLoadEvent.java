@@ -0,0 +1,29 @@
+package com.builderbot.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * One phase (read or parse) of loading a schematic file.
+ */
+@Name("builderbot.SchematicLoad")
+@Label("Schematic Load")
+@Category({"BuilderBot", "Loading"})
+public class SchematicLoadEvent extends Event {
+
+    @Label("File")
+    public String file;
+
+    @Label("Phase")
+    public String phase;
+
+    @Label("Size")
+    @DataAmount
+    public long bytes;
+
+    @Label("Blocks")
+    public int blocks;
+}
@@ -0,0 +1,284 @@
+package com.builderbot.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Process-wide build telemetry: counters, gauges and histograms for the
+ * executor, loader and renderer.
+ *
+ * Recording is allocation-free ({@link LongAdder} and {@link Histogram}), so it
+ * stays on in normal builds. Shown by /build stats and exported over JMX.
+ */
+public class BuildMetrics implements BuildMetricsMBean {
+    private static final Logger LOGGER = LoggerFactory.getLogger("BuilderBot");
+
+    private static final BuildMetrics INSTANCE = new BuildMetrics();
+
+    // Rates are taken over the last full second of server ticks
+    private static final int TICKS_PER_SECOND = 20;
+
+    // Executor
+    private final LongAdder blocksPlaced = new LongAdder();
+    private final LongAdder blocksBroken = new LongAdder();
+    private final LongAdder skippedBlocks = new LongAdder();
+    private final LongAdder failedPlacements = new LongAdder();
+    private final LongAdder chunkWaits = new LongAdder();
+    private final Histogram blockNanos = new Histogram();
+    private final Histogram batchSizes = new Histogram();
+    private final Histogram lightingMicros = new Histogram();
+
+    // Gauges, set by the scheduler every tick
+    private volatile int activeBuilds;
+    private volatile long queuedBlocks;
+
+    // Loader
+    private final Histogram loadMillis = new Histogram();
+    private volatile long lastLoadMillis;
+    private volatile double lastParseBlocksPerSecond;
+
+    // Renderer
+    private final Histogram meshBuildMicros = new Histogram();
+
+    // Rate window (server thread only)
+    private int rateTicks;
+    private long rateStartNanos = System.nanoTime();
+    private long ratePlacedStart;
+    private long rateBrokenStart;
+    private volatile double placedPerSecond;
+    private volatile double brokenPerSecond;
+
+    private BuildMetrics() {
+    }
+
+    public static BuildMetrics get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Registers the MBean with the platform MBean server.
+     */
+    public static void registerMBean() {
+        try {
+            ObjectName name = new ObjectName("com.builderbot:type=BuildMetrics");
+            if (!ManagementFactory.getPlatformMBeanServer().isRegistered(name)) {
+                ManagementFactory.getPlatformMBeanServer().registerMBean(INSTANCE, name);
+            }
+        } catch (Exception e) {
+            LOGGER.warn("Failed to register metrics MBean: {}", e.getMessage());
+        }
+    }
+
+    // === Recording ===
+
+    public void recordPlaced(long nanos) {
+        blocksPlaced.increment();
+        blockNanos.record(nanos);
+    }
+
+    /**
+     * Cells written by fast-fill (no per-block timing).
+     */
+    public void recordFilled(int cells) {
+        blocksPlaced.add(cells);
+    }
+
+    public void recordBroken() {
+        blocksBroken.increment();
+    }
+
+    public void recordFailedPlacement() {
+        failedPlacements.increment();
+    }
+
+    public void recordSkipped(int blocks) {
+        skippedBlocks.add(blocks);
+    }
+
+    public void recordChunkWait() {
+        chunkWaits.increment();
+    }
+
+    /**
+     * Blocks processed by one runBlocks call.
+     */
+    public void recordBatch(int blocks) {
+        batchSizes.record(blocks);
+    }
+
+    /**
+     * One light batch flush: server-thread time spent preparing and submitting checks.
+     */
+    public void recordLighting(long nanos) {
+        lightingMicros.record(nanos / 1000);
+    }
+
+    public void recordLoad(long millis, int blocks) {
+        loadMillis.record(millis);
+        lastLoadMillis = millis;
+        lastParseBlocksPerSecond = blocks * 1000.0 / Math.max(1, millis);
+    }
+
+    public void recordMeshBuild(long nanos) {
+        meshBuildMicros.record(nanos / 1000);
+    }
+
+    /**
+     * Server tick: updates gauges and, once a second, the rates.
+     */
+    public void tick(int activeBuilds, long queuedBlocks) {
+        this.activeBuilds = activeBuilds;
+        this.queuedBlocks = queuedBlocks;
+
+        if (++rateTicks < TICKS_PER_SECOND) {
+            return;
+        }
+
+        long now = System.nanoTime();
+        double seconds = (now - rateStartNanos) / 1e9;
+        long placed = blocksPlaced.sum();
+        long broken = blocksBroken.sum();
+
+        placedPerSecond = (placed - ratePlacedStart) / seconds;
+        brokenPerSecond = (broken - rateBrokenStart) / seconds;
+
+        rateTicks = 0;
+        rateStartNanos = now;
+        ratePlacedStart = placed;
+        rateBrokenStart = broken;
+    }
+
+    // === MBean ===
+
+    @Override
+    public long getBlocksPlaced() {
+        return blocksPlaced.sum();
+    }
+
+    @Override
+    public long getBlocksBroken() {
+        return blocksBroken.sum();
+    }
+
+    @Override
+    public double getBlocksPlacedPerSecond() {
+        return placedPerSecond;
+    }
+
+    @Override
+    public double getBlocksBrokenPerSecond() {
+        return brokenPerSecond;
+    }
+
+    @Override
+    public double getBlockNanosMean() {
+        return blockNanos.getMean();
+    }
+
+    @Override
+    public long getBlockNanosP50() {
+        return blockNanos.getPercentile(50);
+    }
+
+    @Override
+    public long getBlockNanosP99() {
+        return blockNanos.getPercentile(99);
+    }
+
+    @Override
+    public long getBlockNanosMax() {
+        return blockNanos.getMax();
+    }
+
+    @Override
+    public double getBatchSizeMean() {
+        return batchSizes.getMean();
+    }
+
+    @Override
+    public long getBatchSizeMax() {
+        return batchSizes.getMax();
+    }
+
+    @Override
+    public int getActiveBuilds() {
+        return activeBuilds;
+    }
+
+    @Override
+    public long getQueuedBlocks() {
+        return queuedBlocks;
+    }
+
+    @Override
+    public long getSkippedBlocks() {
+        return skippedBlocks.sum();
+    }
+
+    @Override
+    public long getFailedPlacements() {
+        return failedPlacements.sum();
+    }
+
+    @Override
+    public long getChunkWaits() {
+        return chunkWaits.sum();
+    }
+
+    @Override
+    public double getLightingMicrosMean() {
+        return lightingMicros.getMean();
+    }
+
+    @Override
+    public long getLightingMicrosP99() {
+        return lightingMicros.getPercentile(99);
+    }
+
+    @Override
+    public double getLoadMillisMean() {
+        return loadMillis.getMean();
+    }
+
+    @Override
+    public long getLastLoadMillis() {
+        return lastLoadMillis;
+    }
+
+    @Override
+    public double getLastParseBlocksPerSecond() {
+        return lastParseBlocksPerSecond;
+    }
+
+    @Override
+    public double getMeshBuildMicrosMean() {
+        return meshBuildMicros.getMean();
+    }
+
+    @Override
+    public long getMeshBuildMicrosP99() {
+        return meshBuildMicros.getPercentile(99);
+    }
+
+    @Override
+    public void reset() {
+        blocksPlaced.reset();
+        blocksBroken.reset();
+        skippedBlocks.reset();
+        failedPlacements.reset();
+        chunkWaits.reset();
+        blockNanos.reset();
+        batchSizes.reset();
+        lightingMicros.reset();
+        loadMillis.reset();
+        meshBuildMicros.reset();
+        ratePlacedStart = 0;
+        rateBrokenStart = 0;
+        placedPerSecond = 0;
+        brokenPerSecond = 0;
+    }
+}
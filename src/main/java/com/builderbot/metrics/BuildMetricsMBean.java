@@ -0,0 +1,53 @@
+package com.builderbot.metrics;
+
+/**
+ * JMX view of {@link BuildMetrics} (com.builderbot:type=BuildMetrics).
+ */
+public interface BuildMetricsMBean {
+
+    long getBlocksPlaced();
+
+    long getBlocksBroken();
+
+    double getBlocksPlacedPerSecond();
+
+    double getBlocksBrokenPerSecond();
+
+    double getBlockNanosMean();
+
+    long getBlockNanosP50();
+
+    long getBlockNanosP99();
+
+    long getBlockNanosMax();
+
+    double getBatchSizeMean();
+
+    long getBatchSizeMax();
+
+    int getActiveBuilds();
+
+    long getQueuedBlocks();
+
+    long getSkippedBlocks();
+
+    long getFailedPlacements();
+
+    long getChunkWaits();
+
+    double getLightingMicrosMean();
+
+    long getLightingMicrosP99();
+
+    double getLoadMillisMean();
+
+    long getLastLoadMillis();
+
+    double getLastParseBlocksPerSecond();
+
+    double getMeshBuildMicrosMean();
+
+    long getMeshBuildMicrosP99();
+
+    void reset();
+}
@@ -0,0 +1,213 @@
+package com.builderbot.metrics;
+
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockState;
+import net.minecraft.util.math.BlockPos;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Per-build log of every executed op, written in a compact columnar format.
+ *
+ * Records go into preallocated column arrays on the server thread (no allocation,
+ * no formatting). Full chunks of {@value #CHUNK_SIZE} records, or whatever has
+ * collected after {@value #FLUSH_TICKS} ticks, are handed to a background thread.
+ * That thread writes each column delta/varint-encoded into a gzip stream and
+ * flushes after every chunk, so a crashed session stays readable.
+ * {@link SessionLogReader} turns a file into CSV.
+ *
+ * File: magic, version, schematic name, start time; then chunks of
+ * [count, ticks, x, y, z, state ids, ops, results, nanos].
+ */
+public class SessionLog implements AutoCloseable {
+    private static final Logger LOGGER = LoggerFactory.getLogger("BuilderBot");
+
+    static final int MAGIC = 0x4242534C; // "BBSL"
+    static final int VERSION = 1;
+
+    public static final byte OP_PLACE = 0;
+    public static final byte OP_BREAK = 1;
+    public static final byte OP_FILL = 2;
+    public static final byte OP_CHUNK_WAIT = 3;
+
+    public static final byte RESULT_OK = 0;
+    public static final byte RESULT_FAILED = 1;
+
+    static final int CHUNK_SIZE = 4096;
+    private static final int FLUSH_TICKS = 100;
+
+    // One writer thread shared by all sessions
+    private static final ExecutorService WRITER = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "BuilderBot-SessionLog");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * One block of records, column by column.
+     */
+    private static final class Chunk {
+        final int[] ticks = new int[CHUNK_SIZE];
+        final int[] xs = new int[CHUNK_SIZE];
+        final int[] ys = new int[CHUNK_SIZE];
+        final int[] zs = new int[CHUNK_SIZE];
+        final int[] states = new int[CHUNK_SIZE];
+        final byte[] ops = new byte[CHUNK_SIZE];
+        final byte[] results = new byte[CHUNK_SIZE];
+        final int[] nanos = new int[CHUNK_SIZE];
+        int size;
+    }
+
+    private final Path file;
+    private final DataOutputStream out;
+    private final ConcurrentLinkedQueue<Chunk> freeChunks = new ConcurrentLinkedQueue<>();
+    private Chunk current = new Chunk();
+    private int lastSubmitTick;
+    private long records;
+    private volatile boolean failed;
+
+    private SessionLog(Path file, DataOutputStream out) {
+        this.file = file;
+        this.out = out;
+    }
+
+    /**
+     * Creates a log file and writes its header.
+     */
+    public static SessionLog open(Path file, String schematicName) throws IOException {
+        Files.createDirectories(file.getParent());
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new GZIPOutputStream(Files.newOutputStream(file), 65536, true), 65536));
+
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeUTF(schematicName != null ? schematicName : "");
+        out.writeLong(System.currentTimeMillis());
+        out.flush();
+
+        return new SessionLog(file, out);
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    public long getRecordCount() {
+        return records;
+    }
+
+    /**
+     * Appends one op. Server thread only.
+     */
+    public void record(int tick, BlockPos pos, BlockState state, byte op, byte result, long nanos) {
+        Chunk chunk = current;
+        int i = chunk.size;
+        chunk.ticks[i] = tick;
+        chunk.xs[i] = pos.getX();
+        chunk.ys[i] = pos.getY();
+        chunk.zs[i] = pos.getZ();
+        chunk.states[i] = state != null ? Block.getRawIdFromState(state) : 0;
+        chunk.ops[i] = op;
+        chunk.results[i] = result;
+        chunk.nanos[i] = (int) Math.min(Integer.MAX_VALUE, Math.max(0, nanos));
+        chunk.size = i + 1;
+        records++;
+
+        if (chunk.size == CHUNK_SIZE) {
+            submit(tick);
+        }
+    }
+
+    /**
+     * Called once per build tick: hands over a partial chunk now and then,
+     * so the file keeps up with slow builds.
+     */
+    public void tick(int tick) {
+        if (current.size > 0 && tick - lastSubmitTick >= FLUSH_TICKS) {
+            submit(tick);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (current.size > 0) {
+            submit(lastSubmitTick);
+        }
+        WRITER.execute(() -> {
+            try {
+                out.close();
+                LOGGER.info("Session log closed: {} ({} ops)", file.getFileName(), records);
+            } catch (IOException e) {
+                LOGGER.error("Failed to close session log {}", file, e);
+            }
+        });
+    }
+
+    private void submit(int tick) {
+        Chunk chunk = current;
+        Chunk next = freeChunks.poll();
+        current = next != null ? next : new Chunk();
+        lastSubmitTick = tick;
+
+        WRITER.execute(() -> {
+            if (!failed) {
+                try {
+                    writeChunk(chunk);
+                } catch (IOException e) {
+                    failed = true;
+                    LOGGER.error("Failed to write session log {}, logging stopped", file, e);
+                }
+            }
+            chunk.size = 0;
+            freeChunks.add(chunk);
+        });
+    }
+
+    private void writeChunk(Chunk chunk) throws IOException {
+        int size = chunk.size;
+        out.writeInt(size);
+
+        writeDeltas(chunk.ticks, size);
+        writeDeltas(chunk.xs, size);
+        writeDeltas(chunk.ys, size);
+        writeDeltas(chunk.zs, size);
+        for (int i = 0; i < size; i++) {
+            writeVarInt(chunk.states[i]);
+        }
+        out.write(chunk.ops, 0, size);
+        out.write(chunk.results, 0, size);
+        for (int i = 0; i < size; i++) {
+            writeVarInt(chunk.nanos[i]);
+        }
+
+        // Sync flush: everything written so far can be read back
+        out.flush();
+    }
+
+    private void writeDeltas(int[] values, int size) throws IOException {
+        int previous = 0;
+        for (int i = 0; i < size; i++) {
+            int delta = values[i] - previous;
+            writeVarInt((delta << 1) ^ (delta >> 31));
+            previous = values[i];
+        }
+    }
+
+    private void writeVarInt(int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+}
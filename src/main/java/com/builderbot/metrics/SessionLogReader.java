@@ -0,0 +1,142 @@
+package com.builderbot.metrics;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedWriter;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Converts a {@link SessionLog} file to CSV.
+ *
+ * Usage: SessionLogReader session.bbsl [out.csv] (stdout if no output is given).
+ * Columns: tick, x, y, z, state_id, op, result, nanos. State ids are raw
+ * block state ids of the Minecraft version that wrote the log.
+ */
+public class SessionLogReader {
+
+    private static final String[] OPS = {"place", "break", "fill", "chunk_wait"};
+    private static final String[] RESULTS = {"ok", "failed"};
+
+    /**
+     * Writes all records of a log as CSV. Returns the number of records.
+     * A log cut off mid-chunk (crash) is read up to its last complete chunk.
+     */
+    public static long toCsv(Path file, Writer csv) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new GZIPInputStream(Files.newInputStream(file), 65536), 65536))) {
+
+            if (in.readInt() != SessionLog.MAGIC) {
+                throw new IOException("Not a session log: " + file);
+            }
+            int version = in.readInt();
+            if (version != SessionLog.VERSION) {
+                throw new IOException("Unsupported session log version " + version);
+            }
+            String schematic = in.readUTF();
+            long startMillis = in.readLong();
+
+            csv.write("# schematic=" + schematic + " started=" + Instant.ofEpochMilli(startMillis) + "\n");
+            csv.write("tick,x,y,z,state_id,op,result,nanos\n");
+
+            int[] ticks = new int[SessionLog.CHUNK_SIZE];
+            int[] xs = new int[SessionLog.CHUNK_SIZE];
+            int[] ys = new int[SessionLog.CHUNK_SIZE];
+            int[] zs = new int[SessionLog.CHUNK_SIZE];
+            int[] states = new int[SessionLog.CHUNK_SIZE];
+            byte[] ops = new byte[SessionLog.CHUNK_SIZE];
+            byte[] results = new byte[SessionLog.CHUNK_SIZE];
+            int[] nanos = new int[SessionLog.CHUNK_SIZE];
+
+            long total = 0;
+            while (true) {
+                int size;
+                try {
+                    size = in.readInt();
+                    readDeltas(in, ticks, size);
+                    readDeltas(in, xs, size);
+                    readDeltas(in, ys, size);
+                    readDeltas(in, zs, size);
+                    for (int i = 0; i < size; i++) {
+                        states[i] = readVarInt(in);
+                    }
+                    in.readFully(ops, 0, size);
+                    in.readFully(results, 0, size);
+                    for (int i = 0; i < size; i++) {
+                        nanos[i] = readVarInt(in);
+                    }
+                } catch (EOFException e) {
+                    break;
+                }
+
+                StringBuilder line = new StringBuilder(64);
+                for (int i = 0; i < size; i++) {
+                    line.setLength(0);
+                    line.append(ticks[i]).append(',')
+                            .append(xs[i]).append(',')
+                            .append(ys[i]).append(',')
+                            .append(zs[i]).append(',')
+                            .append(states[i]).append(',')
+                            .append(label(OPS, ops[i])).append(',')
+                            .append(label(RESULTS, results[i])).append(',')
+                            .append(nanos[i]).append('\n');
+                    csv.append(line);
+                }
+                total += size;
+            }
+            return total;
+        }
+    }
+
+    private static String label(String[] labels, byte value) {
+        return value >= 0 && value < labels.length ? labels[value] : Byte.toString(value);
+    }
+
+    private static void readDeltas(DataInputStream in, int[] values, int size) throws IOException {
+        int previous = 0;
+        for (int i = 0; i < size; i++) {
+            int zigzag = readVarInt(in);
+            previous += (zigzag >>> 1) ^ -(zigzag & 1);
+            values[i] = previous;
+        }
+    }
+
+    private static int readVarInt(DataInputStream in) throws IOException {
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = in.readByte();
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: SessionLogReader <session.bbsl> [out.csv]");
+            System.exit(1);
+        }
+
+        Path in = Paths.get(args[0]);
+        if (args.length > 1) {
+            try (BufferedWriter out = Files.newBufferedWriter(Paths.get(args[1]), StandardCharsets.UTF_8)) {
+                long records = toCsv(in, out);
+                System.err.println("Wrote " + records + " records to " + args[1]);
+            }
+        } else {
+            Writer out = new OutputStreamWriter(System.out, StandardCharsets.UTF_8);
+            toCsv(in, out);
+            out.flush();
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.builderbot.mixin;
+
+import com.builderbot.builder.FakePlayerPool;
+import net.minecraft.server.network.ServerPlayerEntity;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+/**
+ * BuilderBot avatars never watch other entities, so no spawn, movement or
+ * metadata packets are built for them. Real players still see the avatars.
+ */
+@Mixin(targets = "net.minecraft.server.world.ServerChunkLoadingManager$EntityTracker")
+public abstract class EntityTrackerMixin {
+
+    @Inject(method = "updateTrackedStatus(Lnet/minecraft/server/network/ServerPlayerEntity;)V",
+            at = @At("HEAD"), cancellable = true)
+    private void builderbot$skipAvatarViewer(ServerPlayerEntity player, CallbackInfo ci) {
+        if (FakePlayerPool.isAvatar(player)) {
+            ci.cancel();
+        }
+    }
+}
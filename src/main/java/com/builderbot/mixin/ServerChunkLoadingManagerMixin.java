@@ -0,0 +1,32 @@
+package com.builderbot.mixin;
+
+import com.builderbot.builder.FakePlayerPool;
+import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.server.world.ServerChunkLoadingManager;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+/**
+ * Keeps BuilderBot avatars out of chunk tracking: they hold no player chunk tickets,
+ * get no chunks sent and are never among the players watching a chunk, so block
+ * updates are not packaged for them. Chunks at the site are kept loaded by the build.
+ */
+@Mixin(ServerChunkLoadingManager.class)
+public abstract class ServerChunkLoadingManagerMixin {
+
+    @Inject(method = "handlePlayerAddedOrRemoved", at = @At("HEAD"), cancellable = true)
+    private void builderbot$skipAvatarWatch(ServerPlayerEntity player, boolean added, CallbackInfo ci) {
+        if (FakePlayerPool.isAvatar(player)) {
+            ci.cancel();
+        }
+    }
+
+    @Inject(method = "updatePosition", at = @At("HEAD"), cancellable = true)
+    private void builderbot$skipAvatarPosition(ServerPlayerEntity player, CallbackInfo ci) {
+        if (FakePlayerPool.isAvatar(player)) {
+            ci.cancel();
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.builderbot.mixin;
+
+import com.builderbot.builder.LightBatcher;
+import com.llamalad7.mixinextras.injector.WrapWithCondition;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.chunk.WorldChunk;
+import net.minecraft.world.chunk.light.LightingProvider;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+
+/**
+ * Lets a running build collect the light checks of its own placements
+ * instead of queueing one per block.
+ */
+@Mixin(WorldChunk.class)
+public abstract class WorldChunkMixin {
+
+    @WrapWithCondition(
+            method = "setBlockState",
+            at = @At(value = "INVOKE",
+                    target = "Lnet/minecraft/world/chunk/light/LightingProvider;checkBlock(Lnet/minecraft/util/math/BlockPos;)V"))
+    private boolean builderbot$batchLightCheck(LightingProvider lighting, BlockPos pos) {
+        return !LightBatcher.collect(((WorldChunk) (Object) this).getWorld(), pos);
+    }
+}
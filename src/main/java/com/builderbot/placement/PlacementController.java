@@ -67,6 +67,14 @@ public class PlacementController {
         LOGGER.info("Placement locked for building");
     }
 
+    /**
+     * Unlocks placement again when the build could not start.
+     */
+    public void unlockForBuilding() {
+        this.buildingStarted = false;
+        LOGGER.info("Placement unlocked, build did not start");
+    }
+
     public void move(Direction direction) {
         move(direction, moveStep);
     }
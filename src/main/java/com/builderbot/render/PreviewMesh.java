@@ -0,0 +1,151 @@
+package com.builderbot.render;
+
+import com.builderbot.jfr.MeshBuildEvent;
+import com.builderbot.metrics.BuildMetrics;
+import com.builderbot.placement.SchematicPlacement;
+import com.builderbot.schematic.BuildLayer;
+import com.builderbot.schematic.TutorialSchematic;
+import com.mojang.blaze3d.systems.RenderSystem;
+import net.minecraft.client.gl.VertexBuffer;
+import net.minecraft.client.render.BufferBuilder;
+import net.minecraft.client.render.BuiltBuffer;
+import net.minecraft.client.render.GameRenderer;
+import net.minecraft.client.render.VertexFormat;
+import net.minecraft.client.render.VertexFormats;
+import net.minecraft.client.util.BufferAllocator;
+import net.minecraft.client.util.math.MatrixStack;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.RotationAxis;
+import net.minecraft.util.math.Vec3d;
+import org.joml.Matrix4f;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The ghost blocks of a schematic, kept on the GPU.
+ *
+ * The mesh is built once by {@link PreviewMeshBuilder} in schematic-local coordinates,
+ * without faces hidden between blocks, and uploaded into a {@link VertexBuffer}. Each
+ * frame only a model matrix for the placement's origin and rotation is set, so moving
+ * or rotating the ghost costs nothing. The mesh is rebuilt only when a different
+ * schematic is shown or its layers change. Render thread only.
+ */
+public class PreviewMesh {
+    private static final Logger LOGGER = LoggerFactory.getLogger("BuilderBot");
+
+    // POSITION_COLOR: 3 floats + 4 bytes
+    private static final int BYTES_PER_VERTEX = 16;
+
+    private VertexBuffer vertexBuffer;
+
+    // What the uploaded mesh was built from
+    private TutorialSchematic schematic;
+    private int layerCount = -1;
+    private int blockCount = -1;
+    private int vertexCount;
+    private PreviewMeshBuilder.Result lastBuild;
+
+    /**
+     * Uploads the schematic's mesh unless it is the one already uploaded.
+     */
+    public void update(TutorialSchematic schematic) {
+        int blocks = 0;
+        for (BuildLayer layer : schematic.getLayers()) {
+            blocks += layer.getBlocks().size();
+        }
+        if (schematic == this.schematic && schematic.getLayers().size() == layerCount && blocks == blockCount) {
+            return;
+        }
+        upload(schematic, blocks);
+        this.schematic = schematic;
+        this.layerCount = schematic.getLayers().size();
+        this.blockCount = blocks;
+    }
+
+    /**
+     * Draws the mesh at the placement, relative to the camera. The camera translation
+     * is applied here in double precision, so the stack must not hold it.
+     */
+    public void draw(MatrixStack matrices, SchematicPlacement placement, Vec3d cameraPos, float alpha) {
+        if (vertexBuffer == null || vertexCount == 0) {
+            return;
+        }
+
+        // Rotate each cell about its own center, as toWorldPos does
+        BlockPos origin = placement.getOrigin();
+        matrices.push();
+        matrices.translate(origin.getX() - cameraPos.x + 0.5, origin.getY() - cameraPos.y, origin.getZ() - cameraPos.z + 0.5);
+        matrices.multiply(RotationAxis.POSITIVE_Y.rotationDegrees(-placement.getRotation()));
+        matrices.translate(-0.5, 0.0, -0.5);
+        Matrix4f modelView = new Matrix4f(RenderSystem.getModelViewMatrix()).mul(matrices.peek().getPositionMatrix());
+        matrices.pop();
+
+        RenderSystem.setShaderColor(1.0f, 1.0f, 1.0f, alpha);
+        vertexBuffer.bind();
+        vertexBuffer.draw(modelView, RenderSystem.getProjectionMatrix(), GameRenderer.getPositionColorProgram());
+        VertexBuffer.unbind();
+        RenderSystem.setShaderColor(1.0f, 1.0f, 1.0f, 1.0f);
+    }
+
+    /**
+     * Frees the GPU buffer, e.g. when no schematic is shown any more.
+     */
+    public void close() {
+        if (vertexBuffer != null) {
+            vertexBuffer.close();
+            vertexBuffer = null;
+        }
+        schematic = null;
+        layerCount = -1;
+        blockCount = -1;
+        vertexCount = 0;
+        lastBuild = null;
+    }
+
+    public int getVertexCount() {
+        return vertexCount;
+    }
+
+    /**
+     * Face counts of the last upload, or null.
+     */
+    public PreviewMeshBuilder.Result getLastBuild() {
+        return lastBuild;
+    }
+
+    private void upload(TutorialSchematic schematic, int blocks) {
+        long startTime = System.nanoTime();
+        MeshBuildEvent event = new MeshBuildEvent();
+        event.begin();
+
+        // Culled solid builds keep about one face per block; the allocator grows if not
+        try (BufferAllocator allocator = new BufferAllocator(Math.max(256, blocks * 2 * 4 * BYTES_PER_VERTEX))) {
+            BufferBuilder buffer = new BufferBuilder(allocator, VertexFormat.DrawMode.QUADS, VertexFormats.POSITION_COLOR);
+            lastBuild = PreviewMeshBuilder.build(schematic, buffer, 1.0f);
+
+            BuiltBuffer built = buffer.endNullable();
+            if (vertexBuffer == null) {
+                vertexBuffer = new VertexBuffer(VertexBuffer.Usage.STATIC);
+            }
+            if (built != null) {
+                vertexCount = built.getDrawParameters().vertexCount();
+                vertexBuffer.bind();
+                vertexBuffer.upload(built);
+                VertexBuffer.unbind();
+            } else {
+                vertexCount = 0;
+            }
+        }
+
+        long nanos = System.nanoTime() - startTime;
+        BuildMetrics.get().recordMeshBuild(nanos);
+        if (event.shouldCommit()) {
+            event.blocks = blocks;
+            event.facesBefore = lastBuild.getFacesBefore();
+            event.facesAfter = lastBuild.getFacesAfter();
+            event.commit();
+        }
+        LOGGER.info("Uploaded preview mesh: {} blocks, {} of {} faces after culling, {} ms",
+                blocks, lastBuild.getFacesAfter(), lastBuild.getFacesBefore(), nanos / 1_000_000);
+    }
+}
@@ -0,0 +1,254 @@
+package com.builderbot.render;
+
+import com.builderbot.schematic.BlockEntry;
+import com.builderbot.schematic.BuildLayer;
+import com.builderbot.schematic.TutorialSchematic;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import net.minecraft.client.render.VertexConsumer;
+import net.minecraft.util.math.BlockPos;
+
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Builds the preview mesh on the CPU, leaving out hidden faces.
+ *
+ * A face between two schematic blocks can never be seen, so the occupied cells are
+ * marked in a bitset over the schematic's bounds first, and a face is only emitted if
+ * the cell on its other side is empty. A solid build keeps little more than its shell.
+ * Needs no GL context: the vertices go into any {@link VertexConsumer}.
+ */
+public class PreviewMeshBuilder {
+
+    // Face bits, in emission order
+    public static final int DOWN = 1;
+    public static final int UP = 1 << 1;
+    public static final int NORTH = 1 << 2;
+    public static final int SOUTH = 1 << 3;
+    public static final int WEST = 1 << 4;
+    public static final int EAST = 1 << 5;
+    public static final int ALL_FACES = 0x3F;
+
+    // Larger bounds (sparse giant schematics) use a hash set of cells instead (32 MB bitset)
+    private static final long MAX_BITSET_CELLS = 1L << 28;
+
+    // Small offset to prevent z-fighting
+    private static final float OFFSET = 0.001f;
+
+    /**
+     * Face counts of a built mesh.
+     */
+    public static class Result {
+        private final int blocks;
+        private final int faces;
+
+        Result(int blocks, int faces) {
+            this.blocks = blocks;
+            this.faces = faces;
+        }
+
+        public int getBlocks() {
+            return blocks;
+        }
+
+        /**
+         * Faces without culling: six per block.
+         */
+        public int getFacesBefore() {
+            return blocks * 6;
+        }
+
+        public int getFacesAfter() {
+            return faces;
+        }
+
+        public int getVertexCount() {
+            return faces * 4;
+        }
+
+        /**
+         * Share of faces culled, 0 to 1.
+         */
+        public double getCulledFraction() {
+            return blocks == 0 ? 0.0 : 1.0 - (double) faces / getFacesBefore();
+        }
+    }
+
+    /**
+     * Emits the visible faces of all layers' blocks in schematic-local coordinates
+     * (cell 0,0,0 at the schematic's minimum corner), colored by layer.
+     */
+    public static Result build(TutorialSchematic schematic, VertexConsumer buffer, float alpha) {
+        return build(schematic, buffer, alpha, MAX_BITSET_CELLS);
+    }
+
+    /**
+     * Same, with the bounds above which the hash set is used (0 forces it, for tests).
+     */
+    static Result build(TutorialSchematic schematic, VertexConsumer buffer, float alpha, long maxBitsetCells) {
+        List<BuildLayer> layers = schematic.getLayers();
+        Occupancy occupancy = Occupancy.of(layers, maxBitsetCells);
+        BlockPos min = schematic.getMinPos();
+
+        int blocks = 0;
+        int faces = 0;
+        for (BuildLayer layer : layers) {
+            float[] color = layer.getColorComponents();
+            for (BlockEntry entry : layer.getBlocks()) {
+                int x = entry.getX();
+                int y = entry.getY();
+                int z = entry.getZ();
+
+                int mask = 0;
+                if (!occupancy.contains(x, y - 1, z)) mask |= DOWN;
+                if (!occupancy.contains(x, y + 1, z)) mask |= UP;
+                if (!occupancy.contains(x, y, z - 1)) mask |= NORTH;
+                if (!occupancy.contains(x, y, z + 1)) mask |= SOUTH;
+                if (!occupancy.contains(x - 1, y, z)) mask |= WEST;
+                if (!occupancy.contains(x + 1, y, z)) mask |= EAST;
+
+                faces += emitFaces(buffer, x - min.getX(), y - min.getY(), z - min.getZ(), mask,
+                        color[0], color[1], color[2], alpha);
+                blocks++;
+            }
+        }
+        return new Result(blocks, faces);
+    }
+
+    /**
+     * Emits the faces of a cell selected by the mask. Returns the number of faces.
+     */
+    public static int emitFaces(VertexConsumer buffer, int x, int y, int z, int mask,
+                                float r, float g, float b, float a) {
+        float x1 = x + OFFSET;
+        float y1 = y + OFFSET;
+        float z1 = z + OFFSET;
+        float x2 = x + 1 - OFFSET;
+        float y2 = y + 1 - OFFSET;
+        float z2 = z + 1 - OFFSET;
+
+        if ((mask & DOWN) != 0) {
+            buffer.vertex(x1, y1, z1).color(r, g, b, a);
+            buffer.vertex(x2, y1, z1).color(r, g, b, a);
+            buffer.vertex(x2, y1, z2).color(r, g, b, a);
+            buffer.vertex(x1, y1, z2).color(r, g, b, a);
+        }
+
+        if ((mask & UP) != 0) {
+            buffer.vertex(x1, y2, z2).color(r, g, b, a);
+            buffer.vertex(x2, y2, z2).color(r, g, b, a);
+            buffer.vertex(x2, y2, z1).color(r, g, b, a);
+            buffer.vertex(x1, y2, z1).color(r, g, b, a);
+        }
+
+        if ((mask & NORTH) != 0) {
+            buffer.vertex(x1, y1, z1).color(r, g, b, a);
+            buffer.vertex(x1, y2, z1).color(r, g, b, a);
+            buffer.vertex(x2, y2, z1).color(r, g, b, a);
+            buffer.vertex(x2, y1, z1).color(r, g, b, a);
+        }
+
+        if ((mask & SOUTH) != 0) {
+            buffer.vertex(x2, y1, z2).color(r, g, b, a);
+            buffer.vertex(x2, y2, z2).color(r, g, b, a);
+            buffer.vertex(x1, y2, z2).color(r, g, b, a);
+            buffer.vertex(x1, y1, z2).color(r, g, b, a);
+        }
+
+        if ((mask & WEST) != 0) {
+            buffer.vertex(x1, y1, z2).color(r, g, b, a);
+            buffer.vertex(x1, y2, z2).color(r, g, b, a);
+            buffer.vertex(x1, y2, z1).color(r, g, b, a);
+            buffer.vertex(x1, y1, z1).color(r, g, b, a);
+        }
+
+        if ((mask & EAST) != 0) {
+            buffer.vertex(x2, y1, z1).color(r, g, b, a);
+            buffer.vertex(x2, y2, z1).color(r, g, b, a);
+            buffer.vertex(x2, y2, z2).color(r, g, b, a);
+            buffer.vertex(x2, y1, z2).color(r, g, b, a);
+        }
+
+        return Integer.bitCount(mask & ALL_FACES);
+    }
+
+    /**
+     * Cells holding a schematic block, over the bounds of the blocks themselves.
+     */
+    static class Occupancy {
+        private final int minX, minY, minZ;
+        private final int sizeX, sizeY, sizeZ;
+        private final BitSet bits;
+        private final LongOpenHashSet cells;
+
+        private Occupancy(int minX, int minY, int minZ, int sizeX, int sizeY, int sizeZ, boolean dense) {
+            this.minX = minX;
+            this.minY = minY;
+            this.minZ = minZ;
+            this.sizeX = sizeX;
+            this.sizeY = sizeY;
+            this.sizeZ = sizeZ;
+            this.bits = dense ? new BitSet(sizeX * sizeY * sizeZ) : null;
+            this.cells = dense ? null : new LongOpenHashSet();
+        }
+
+        static Occupancy of(List<BuildLayer> layers, long maxBitsetCells) {
+            int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE, minZ = Integer.MAX_VALUE;
+            int maxX = Integer.MIN_VALUE, maxY = Integer.MIN_VALUE, maxZ = Integer.MIN_VALUE;
+            for (BuildLayer layer : layers) {
+                for (BlockEntry entry : layer.getBlocks()) {
+                    minX = Math.min(minX, entry.getX());
+                    minY = Math.min(minY, entry.getY());
+                    minZ = Math.min(minZ, entry.getZ());
+                    maxX = Math.max(maxX, entry.getX());
+                    maxY = Math.max(maxY, entry.getY());
+                    maxZ = Math.max(maxZ, entry.getZ());
+                }
+            }
+            if (minX > maxX) {
+                return new Occupancy(0, 0, 0, 0, 0, 0, true);
+            }
+
+            int sizeX = maxX - minX + 1;
+            int sizeY = maxY - minY + 1;
+            int sizeZ = maxZ - minZ + 1;
+            boolean dense = (long) sizeX * sizeY * sizeZ <= maxBitsetCells;
+            Occupancy occupancy = new Occupancy(minX, minY, minZ, sizeX, sizeY, sizeZ, dense);
+            for (BuildLayer layer : layers) {
+                for (BlockEntry entry : layer.getBlocks()) {
+                    occupancy.add(entry.getX(), entry.getY(), entry.getZ());
+                }
+            }
+            return occupancy;
+        }
+
+        boolean isDense() {
+            return bits != null;
+        }
+
+        private void add(int x, int y, int z) {
+            if (bits != null) {
+                bits.set(index(x, y, z));
+            } else {
+                cells.add(BlockPos.asLong(x, y, z));
+            }
+        }
+
+        boolean contains(int x, int y, int z) {
+            if (bits == null) {
+                return cells.contains(BlockPos.asLong(x, y, z));
+            }
+            int dx = x - minX;
+            int dy = y - minY;
+            int dz = z - minZ;
+            if (dx < 0 || dy < 0 || dz < 0 || dx >= sizeX || dy >= sizeY || dz >= sizeZ) {
+                return false;
+            }
+            return bits.get(index(x, y, z));
+        }
+
+        private int index(int x, int y, int z) {
+            return ((y - minY) * sizeZ + (z - minZ)) * sizeX + (x - minX);
+        }
+    }
+}
@@ -2,8 +2,6 @@ package com.builderbot.render;
 
 import com.builderbot.builder.BuildManager;
 import com.builderbot.placement.SchematicPlacement;
-import com.builderbot.schematic.BlockEntry;
-import com.builderbot.schematic.BuildLayer;
 import com.builderbot.schematic.TutorialSchematic;
 import com.mojang.blaze3d.systems.RenderSystem;
 import net.fabricmc.fabric.api.client.rendering.v1.WorldRenderContext;
@@ -11,13 +9,16 @@ import net.minecraft.client.MinecraftClient;
 import net.minecraft.client.render.*;
 import net.minecraft.client.util.math.MatrixStack;
 import net.minecraft.util.math.BlockBox;
-import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.Vec3d;
+import net.minecraft.util.profiler.Profiler;
 import org.joml.Matrix4f;
 
 /**
  * Renders schematic preview (ghost blocks) and bounding box.
  * Hides during building to avoid visual clutter.
+ *
+ * The ghost blocks live in a retained {@link PreviewMesh}; per frame only its
+ * placement matrix changes.
  */
 public class SchematicRenderer {
 
@@ -25,6 +26,8 @@ public class SchematicRenderer {
     private static final float CONFIRMED_ALPHA = 0.5f;
     private static final float BOUNDING_BOX_ALPHA = 0.8f;
 
+    private static final PreviewMesh mesh = new PreviewMesh();
+
     /**
      * Main render method - called every frame.
      */
@@ -33,11 +36,12 @@ public class SchematicRenderer {
         SchematicPlacement placement = manager.getPlacementController().getPlacement();
 
         if (placement == null) {
+            mesh.close();
             return;
         }
 
         // HIDE during building - less clutter
-        if (manager.getBuildExecutor().isBuilding()) {
+        if (manager.isBuildingPlacement(placement)) {
             return;
         }
 
@@ -55,45 +59,39 @@ public class SchematicRenderer {
         Vec3d cameraPos = context.camera().getPos();
 
         matrices.push();
-        matrices.translate(-cameraPos.x, -cameraPos.y, -cameraPos.z);
 
         float alpha = placement.isConfirmed() ? CONFIRMED_ALPHA : PREVIEW_ALPHA;
 
-        // Render layer blocks
-        renderLayers(matrices, schematic, placement, alpha);
+        Profiler profiler = client.getProfiler();
+        profiler.push("builderbot");
+        profiler.push("render");
+
+        // Render layer blocks (the mesh brings its own camera-relative matrix)
+        renderLayers(matrices, schematic, placement, cameraPos, alpha);
 
         // Render bounding box
+        matrices.translate(-cameraPos.x, -cameraPos.y, -cameraPos.z);
         renderBoundingBox(matrices, placement);
 
+        profiler.pop();
+        profiler.pop();
+
         matrices.pop();
     }
 
     /**
-     * Renders all layer blocks as colored outlines.
+     * Draws the ghost blocks from the retained mesh, uploading it first if needed.
      */
     private static void renderLayers(MatrixStack matrices, TutorialSchematic schematic,
-                                     SchematicPlacement placement, float alpha) {
+                                     SchematicPlacement placement, Vec3d cameraPos, float alpha) {
 
         RenderSystem.enableBlend();
         RenderSystem.defaultBlendFunc();
         RenderSystem.disableCull();
         RenderSystem.disableDepthTest();
-        RenderSystem.setShader(GameRenderer::getPositionColorProgram);
 
-        Tessellator tessellator = Tessellator.getInstance();
-        BufferBuilder buffer = tessellator.begin(VertexFormat.DrawMode.QUADS, VertexFormats.POSITION_COLOR);
-
-        for (BuildLayer layer : schematic.getLayers()) {
-            float[] color = layer.getColorComponents();
-
-            for (BlockEntry entry : layer.getBlocks()) {
-                BlockPos worldPos = placement.toWorldPos(entry);
-                renderBlockFace(buffer, matrices, worldPos,
-                        color[0], color[1], color[2], alpha);
-            }
-        }
-
-        BufferRenderer.drawWithGlobalProgram(buffer.end());
+        mesh.update(schematic);
+        mesh.draw(matrices, placement, cameraPos, alpha);
 
         RenderSystem.enableDepthTest();
         RenderSystem.enableCull();
@@ -101,59 +99,11 @@ public class SchematicRenderer {
     }
 
     /**
-     * Renders a block as colored faces.
+     * Emits all six faces of a block, in the coordinates of the buffer.
      */
-    private static void renderBlockFace(BufferBuilder buffer, MatrixStack matrices,
-                                        BlockPos pos, float r, float g, float b, float a) {
-        Matrix4f matrix = matrices.peek().getPositionMatrix();
-
-        float x1 = pos.getX();
-        float y1 = pos.getY();
-        float z1 = pos.getZ();
-        float x2 = x1 + 1;
-        float y2 = y1 + 1;
-        float z2 = z1 + 1;
-
-        // Small offset to prevent z-fighting
-        float offset = 0.001f;
-        x1 += offset; y1 += offset; z1 += offset;
-        x2 -= offset; y2 -= offset; z2 -= offset;
-
-        // Bottom face
-        buffer.vertex(matrix, x1, y1, z1).color(r, g, b, a);
-        buffer.vertex(matrix, x2, y1, z1).color(r, g, b, a);
-        buffer.vertex(matrix, x2, y1, z2).color(r, g, b, a);
-        buffer.vertex(matrix, x1, y1, z2).color(r, g, b, a);
-
-        // Top face
-        buffer.vertex(matrix, x1, y2, z2).color(r, g, b, a);
-        buffer.vertex(matrix, x2, y2, z2).color(r, g, b, a);
-        buffer.vertex(matrix, x2, y2, z1).color(r, g, b, a);
-        buffer.vertex(matrix, x1, y2, z1).color(r, g, b, a);
-
-        // North face
-        buffer.vertex(matrix, x1, y1, z1).color(r, g, b, a);
-        buffer.vertex(matrix, x1, y2, z1).color(r, g, b, a);
-        buffer.vertex(matrix, x2, y2, z1).color(r, g, b, a);
-        buffer.vertex(matrix, x2, y1, z1).color(r, g, b, a);
-
-        // South face
-        buffer.vertex(matrix, x2, y1, z2).color(r, g, b, a);
-        buffer.vertex(matrix, x2, y2, z2).color(r, g, b, a);
-        buffer.vertex(matrix, x1, y2, z2).color(r, g, b, a);
-        buffer.vertex(matrix, x1, y1, z2).color(r, g, b, a);
-
-        // West face
-        buffer.vertex(matrix, x1, y1, z2).color(r, g, b, a);
-        buffer.vertex(matrix, x1, y2, z2).color(r, g, b, a);
-        buffer.vertex(matrix, x1, y2, z1).color(r, g, b, a);
-        buffer.vertex(matrix, x1, y1, z1).color(r, g, b, a);
-
-        // East face
-        buffer.vertex(matrix, x2, y1, z1).color(r, g, b, a);
-        buffer.vertex(matrix, x2, y2, z1).color(r, g, b, a);
-        buffer.vertex(matrix, x2, y2, z2).color(r, g, b, a);
-        buffer.vertex(matrix, x2, y1, z2).color(r, g, b, a);
+    static void renderBlockFace(VertexConsumer buffer, int x, int y, int z,
+                                float r, float g, float b, float a) {
+        PreviewMeshBuilder.emitFaces(buffer, x, y, z, PreviewMeshBuilder.ALL_FACES, r, g, b, a);
     }
 
     /**
@@ -85,7 +85,7 @@ public class BlockEntry {
      * Parses blockstate string like "{facing:north,half:bottom}" into actual properties.
      */
     @SuppressWarnings({"unchecked", "rawtypes"})
-    private BlockState parseBlockState(BlockState baseState, String stateString) {
+    static BlockState parseBlockState(BlockState baseState, String stateString) {
         // Remove braces
         String props = stateString.trim();
         if (props.startsWith("{")) {
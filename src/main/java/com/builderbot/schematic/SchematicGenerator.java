@@ -0,0 +1,279 @@
+package com.builderbot.schematic;
+
+import com.google.gson.stream.JsonWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Locale;
+import java.util.Random;
+import java.util.SplittableRandom;
+
+/**
+ * Generates synthetic .ltutorial files for benchmarks and soak tests.
+ *
+ * Fills a box of the given size, split into horizontal layers. Blocks are
+ * streamed straight to the file, so size is only limited by disk space.
+ * The same options and seed always produce the same file.
+ *
+ * Also runnable from the command line (see {@link #main}) - used by the
+ * generateSchematic Gradle task.
+ */
+public class SchematicGenerator {
+    private static final Logger LOGGER = LoggerFactory.getLogger("BuilderBot");
+
+    public enum Format {
+        // One line, smallest file
+        COMPACT,
+        // Indented, for reading
+        PRETTY
+    }
+
+    // Plain full blocks, the first N make up the palette
+    private static final String[] PLAIN_BLOCKS = {
+            "minecraft:stone", "minecraft:cobblestone", "minecraft:oak_planks", "minecraft:stone_bricks",
+            "minecraft:bricks", "minecraft:spruce_planks", "minecraft:birch_planks", "minecraft:andesite",
+            "minecraft:diorite", "minecraft:granite", "minecraft:deepslate_bricks", "minecraft:sandstone",
+            "minecraft:white_concrete", "minecraft:gray_concrete", "minecraft:black_concrete", "minecraft:red_concrete",
+            "minecraft:blue_concrete", "minecraft:green_concrete", "minecraft:yellow_concrete", "minecraft:white_wool",
+            "minecraft:glass", "minecraft:terracotta", "minecraft:mud_bricks", "minecraft:quartz_block",
+            "minecraft:polished_andesite", "minecraft:polished_diorite", "minecraft:polished_granite", "minecraft:dark_oak_planks",
+            "minecraft:acacia_planks", "minecraft:jungle_planks", "minecraft:mangrove_planks", "minecraft:cherry_planks"
+    };
+
+    public static final int MAX_PALETTE = PLAIN_BLOCKS.length;
+
+    private static final String[] HORIZONTAL = {"north", "south", "west", "east"};
+    private static final int[][] HORIZONTAL_OFFSETS = {{0, -1}, {0, 1}, {-1, 0}, {1, 0}};
+    private static final String[] AXES = {"x", "y", "z"};
+
+    private int sizeX = 32;
+    private int sizeY = 16;
+    private int sizeZ = 32;
+    private int layers = 4;
+    private int paletteSize = 8;
+    private double orientedFraction = 0.1;
+    private double attachedFraction = 0.02;
+    private long seed = 0;
+    private Format format = Format.COMPACT;
+
+    public void setSize(int sizeX, int sizeY, int sizeZ) {
+        this.sizeX = Math.max(1, sizeX);
+        this.sizeY = Math.max(1, sizeY);
+        this.sizeZ = Math.max(1, sizeZ);
+    }
+
+    public void setLayers(int layers) {
+        this.layers = Math.max(1, layers);
+    }
+
+    public void setPaletteSize(int paletteSize) {
+        this.paletteSize = Math.max(1, Math.min(MAX_PALETTE, paletteSize));
+    }
+
+    /**
+     * Fraction of blocks with a direction or axis (stairs, logs, furnaces).
+     */
+    public void setOrientedFraction(double orientedFraction) {
+        this.orientedFraction = Math.max(0, Math.min(1, orientedFraction));
+    }
+
+    /**
+     * Fraction of blocks hanging on a neighbour (wall torches, ladders).
+     */
+    public void setAttachedFraction(double attachedFraction) {
+        this.attachedFraction = Math.max(0, Math.min(1, attachedFraction));
+    }
+
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    public void setFormat(Format format) {
+        this.format = format;
+    }
+
+    public long getTotalBlocks() {
+        return (long) sizeX * sizeY * sizeZ;
+    }
+
+    /**
+     * Writes the schematic to a file. Returns the number of blocks written.
+     */
+    public long generate(Path path, String name) throws IOException {
+        long total = getTotalBlocks();
+        if (total > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many blocks: " + total);
+        }
+
+        long startTime = System.nanoTime();
+        int layerCount = Math.min(layers, sizeY);
+
+        // Metadata and per-block choices come from separate streams, so changing
+        // e.g. the name never changes the blocks
+        Random colors = new Random(seed);
+        SplittableRandom random = new SplittableRandom(seed ^ 0x5DEECE66DL);
+
+        try (BufferedWriter out = Files.newBufferedWriter(path, StandardCharsets.UTF_8);
+             JsonWriter json = new JsonWriter(out)) {
+            if (format == Format.PRETTY) {
+                json.setIndent("  ");
+            }
+
+            json.beginObject();
+            json.name("format_version").value("1.0");
+            json.name("name").value(name);
+            json.name("description").value(String.format(Locale.ROOT,
+                    "Synthetic %dx%dx%d, palette %d, oriented %.2f, attached %.2f, seed %d",
+                    sizeX, sizeY, sizeZ, paletteSize, orientedFraction, attachedFraction, seed));
+            json.name("author").value("BuilderBot generator");
+
+            json.name("metadata").beginObject();
+            json.name("total_blocks").value(total);
+            json.endObject();
+
+            json.name("bounding_box").beginObject();
+            json.name("min").beginObject().name("x").value(0).name("y").value(0).name("z").value(0).endObject();
+            json.name("max").beginObject().name("x").value(sizeX - 1).name("y").value(sizeY - 1).name("z").value(sizeZ - 1).endObject();
+            json.endObject();
+
+            json.name("layers").beginArray();
+            for (int layer = 0; layer < layerCount; layer++) {
+                int fromY = layer * sizeY / layerCount;
+                int toY = (layer + 1) * sizeY / layerCount;
+
+                json.beginObject();
+                json.name("id").value(layer);
+                json.name("name").value("Layer " + (layer + 1));
+                json.name("order").value(layer);
+                json.name("color").value(String.format("#%06X", colors.nextInt(0x1000000)));
+
+                json.name("blocks").beginArray();
+                for (int y = fromY; y < toY; y++) {
+                    for (int z = 0; z < sizeZ; z++) {
+                        for (int x = 0; x < sizeX; x++) {
+                            writeBlock(json, random, x, y, z);
+                        }
+                    }
+                }
+                json.endArray();
+                json.endObject();
+            }
+            json.endArray();
+            json.endObject();
+        }
+
+        LOGGER.info("Generated schematic {} ({} blocks) in {} ms",
+                path.getFileName(), total, (System.nanoTime() - startTime) / 1_000_000);
+        return total;
+    }
+
+    private void writeBlock(JsonWriter json, SplittableRandom random, int x, int y, int z) throws IOException {
+        String block;
+        String state;
+
+        double roll = random.nextDouble();
+        if (roll < attachedFraction) {
+            int side = attachableSide(random.nextInt(4), x, z);
+            if (side >= 0) {
+                block = random.nextBoolean() ? "minecraft:wall_torch" : "minecraft:ladder";
+                state = block.equals("minecraft:ladder")
+                        ? "{facing:" + HORIZONTAL[side] + ",waterlogged:false}"
+                        : "{facing:" + HORIZONTAL[side] + "}";
+            } else {
+                block = PLAIN_BLOCKS[random.nextInt(paletteSize)];
+                state = "{}";
+            }
+        } else if (roll < attachedFraction + orientedFraction) {
+            switch (random.nextInt(3)) {
+                case 0 -> {
+                    block = "minecraft:oak_stairs";
+                    state = "{facing:" + HORIZONTAL[random.nextInt(4)] +
+                            ",half:" + (random.nextBoolean() ? "top" : "bottom") +
+                            ",shape:straight,waterlogged:false}";
+                }
+                case 1 -> {
+                    block = "minecraft:spruce_log";
+                    state = "{axis:" + AXES[random.nextInt(3)] + "}";
+                }
+                default -> {
+                    block = "minecraft:furnace";
+                    state = "{facing:" + HORIZONTAL[random.nextInt(4)] + ",lit:false}";
+                }
+            }
+        } else {
+            block = PLAIN_BLOCKS[random.nextInt(paletteSize)];
+            state = "{}";
+        }
+
+        json.beginObject();
+        json.name("x").value(x);
+        json.name("y").value(y);
+        json.name("z").value(z);
+        json.name("block").value(block);
+        json.name("blockstate").value(state);
+        json.endObject();
+    }
+
+    /**
+     * Picks a facing whose supporting neighbour (opposite side) lies inside the box,
+     * starting from the given one. Returns -1 if there is none.
+     */
+    private int attachableSide(int start, int x, int z) {
+        for (int i = 0; i < 4; i++) {
+            int side = (start + i) & 3;
+            int supportX = x - HORIZONTAL_OFFSETS[side][0];
+            int supportZ = z - HORIZONTAL_OFFSETS[side][1];
+            if (supportX >= 0 && supportX < sizeX && supportZ >= 0 && supportZ < sizeZ) {
+                return side;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Command line entry point:
+     * <pre>
+     * --out file.ltutorial --size 256x160x256 --layers 8 --palette 16
+     * --oriented 0.1 --attached 0.02 --seed 1 --format compact|pretty
+     * </pre>
+     */
+    public static void main(String[] args) throws IOException {
+        SchematicGenerator generator = new SchematicGenerator();
+        Path out = Paths.get("generated.ltutorial");
+
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--out" -> out = Paths.get(value);
+                case "--size" -> {
+                    String[] parts = value.toLowerCase().split("x");
+                    generator.setSize(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]), Integer.parseInt(parts[2]));
+                }
+                case "--layers" -> generator.setLayers(Integer.parseInt(value));
+                case "--palette" -> generator.setPaletteSize(Integer.parseInt(value));
+                case "--oriented" -> generator.setOrientedFraction(Double.parseDouble(value));
+                case "--attached" -> generator.setAttachedFraction(Double.parseDouble(value));
+                case "--seed" -> generator.setSeed(Long.parseLong(value));
+                case "--format" -> generator.setFormat(Format.valueOf(value.toUpperCase()));
+                default -> throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+
+        String fileName = out.getFileName().toString();
+        String name = fileName.endsWith(".ltutorial")
+                ? fileName.substring(0, fileName.length() - ".ltutorial".length())
+                : fileName;
+
+        if (out.getParent() != null) {
+            Files.createDirectories(out.getParent());
+        }
+        long blocks = generator.generate(out, name);
+        System.out.println("Wrote " + blocks + " blocks to " + out.toAbsolutePath());
+    }
+}
@@ -1,5 +1,7 @@
 package com.builderbot.schematic;
 
+import com.builderbot.jfr.SchematicLoadEvent;
+import com.builderbot.metrics.BuildMetrics;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
@@ -31,6 +33,13 @@ public class SchematicLoader {
             .resolve("tutorials");
     }
     
+    /**
+     * Gets the file path for a schematic name (without extension).
+     */
+    public static Path getSchematicPath(String filename) {
+        return getSchematicsFolder().resolve(filename + SCHEMATIC_EXTENSION);
+    }
+    
     /**
      * Ensures the schematics folder exists.
      */
@@ -76,7 +85,7 @@ public class SchematicLoader {
      * @return Loaded schematic or null if failed
      */
     public static TutorialSchematic load(String filename) {
-        Path path = getSchematicsFolder().resolve(filename + SCHEMATIC_EXTENSION);
+        Path path = getSchematicPath(filename);
         
         if (!Files.exists(path)) {
             LOGGER.error("Schematic file not found: {}", path);
@@ -84,8 +93,31 @@ public class SchematicLoader {
         }
         
         try {
+            long startTime = System.nanoTime();
+
+            SchematicLoadEvent readEvent = new SchematicLoadEvent();
+            readEvent.begin();
+            long size = Files.size(path);
             String json = Files.readString(path);
-            return parseSchematic(json);
+            if (readEvent.shouldCommit()) {
+                readEvent.file = filename;
+                readEvent.phase = "read";
+                readEvent.bytes = size;
+                readEvent.commit();
+            }
+
+            SchematicLoadEvent parseEvent = new SchematicLoadEvent();
+            parseEvent.begin();
+            TutorialSchematic schematic = parseSchematic(json);
+            if (parseEvent.shouldCommit()) {
+                parseEvent.file = filename;
+                parseEvent.phase = "parse";
+                parseEvent.bytes = size;
+                parseEvent.blocks = schematic.getTotalBlocks();
+                parseEvent.commit();
+            }
+            BuildMetrics.get().recordLoad((System.nanoTime() - startTime) / 1_000_000, schematic.getTotalBlocks());
+            return schematic;
         } catch (IOException e) {
             LOGGER.error("Failed to read schematic file: {}", path, e);
             return null;
@@ -0,0 +1,141 @@
+package com.builderbot.builder;
+
+import com.builderbot.placement.SchematicPlacement;
+import com.builderbot.schematic.BlockEntry;
+import com.builderbot.schematic.BuildLayer;
+import com.builderbot.schematic.SchematicGenerator;
+import com.builderbot.schematic.SchematicLoader;
+import com.builderbot.schematic.TutorialSchematic;
+import net.minecraft.Bootstrap;
+import net.minecraft.SharedConstants;
+import net.minecraft.block.BlockState;
+import net.minecraft.block.Blocks;
+import net.minecraft.util.math.BlockPos;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs generated schematics through the executor against {@link InMemoryBlockSink}.
+ */
+class BuildExecutorTest {
+
+    // Safety net for the run loops; a 16x8x16 build needs a few hundred batches
+    private static final int MAX_BATCHES = 100_000;
+
+    @TempDir
+    static Path tempDir;
+
+    private static TutorialSchematic schematic;
+
+    @BeforeAll
+    static void setup() throws IOException {
+        SharedConstants.createGameVersion();
+        Bootstrap.initialize();
+
+        SchematicGenerator generator = new SchematicGenerator();
+        generator.setSize(16, 8, 16);
+        generator.setLayers(3);
+        generator.setSeed(7);
+        Path path = tempDir.resolve("generated.ltutorial");
+        generator.generate(path, "generated");
+        schematic = SchematicLoader.parseSchematic(Files.readString(path));
+    }
+
+    @Test
+    void buildsEveryBlockIntoTheSink() {
+        InMemoryBlockSink sink = new InMemoryBlockSink();
+        SchematicPlacement placement = placement(new BlockPos(100, 64, -40), 0);
+        BuildExecutor executor = start(sink, placement);
+
+        runToEnd(executor);
+
+        assertEquals(BuildExecutor.BuildState.FINISHED, executor.getState());
+        assertEquals(schematic.getTotalBlocks(), executor.getTotalBlocksBuilt());
+        assertEquals(schematic.getTotalBlocks(), sink.size());
+        assertMatches(sink, placement);
+    }
+
+    @Test
+    void rotatesBlocksAndStates() {
+        InMemoryBlockSink sink = new InMemoryBlockSink();
+        SchematicPlacement placement = placement(new BlockPos(0, 64, 0), 90);
+        BuildExecutor executor = start(sink, placement);
+
+        runToEnd(executor);
+
+        assertEquals(BuildExecutor.BuildState.FINISHED, executor.getState());
+        assertEquals(schematic.getTotalBlocks(), sink.size());
+        assertMatches(sink, placement);
+    }
+
+    @Test
+    void replacesExistingBlocks() {
+        InMemoryBlockSink sink = new InMemoryBlockSink();
+        SchematicPlacement placement = placement(new BlockPos(0, 64, 0), 0);
+        BlockEntry first = schematic.getLayersSorted().get(0).getBlocks().get(0);
+        sink.setBlockState(placement.toWorldPos(first), Blocks.BEDROCK.getDefaultState(), 3);
+        BuildExecutor executor = start(sink, placement);
+
+        runToEnd(executor);
+
+        assertEquals(BuildExecutor.BuildState.FINISHED, executor.getState());
+        assertEquals(1, sink.getBreaks());
+        assertMatches(sink, placement);
+    }
+
+    @Test
+    void waitsForUnloadedChunks() {
+        InMemoryBlockSink sink = new InMemoryBlockSink();
+        SchematicPlacement placement = placement(new BlockPos(0, 64, 0), 0);
+        BlockPos firstPos = placement.toWorldPos(schematic.getLayersSorted().get(0).getBlocks().get(0));
+        sink.setChunkLoaded(firstPos.getX() >> 4, firstPos.getZ() >> 4, false);
+        BuildExecutor executor = start(sink, placement);
+
+        assertEquals(0, executor.runBlocks(64));
+        assertTrue(executor.getChunkWaits() > 0);
+        assertEquals(0, sink.size());
+
+        sink.setChunkLoaded(firstPos.getX() >> 4, firstPos.getZ() >> 4, true);
+        runToEnd(executor);
+
+        assertEquals(BuildExecutor.BuildState.FINISHED, executor.getState());
+        assertMatches(sink, placement);
+    }
+
+    private static SchematicPlacement placement(BlockPos origin, int rotation) {
+        SchematicPlacement placement = new SchematicPlacement(schematic, origin);
+        placement.setRotation(rotation);
+        placement.setConfirmed(true);
+        return placement;
+    }
+
+    private static BuildExecutor start(InMemoryBlockSink sink, SchematicPlacement placement) {
+        BuildExecutor executor = new BuildExecutor();
+        executor.initialize(schematic, placement, sink);
+        assertTrue(executor.start());
+        return executor;
+    }
+
+    private static void runToEnd(BuildExecutor executor) {
+        for (int i = 0; i < MAX_BATCHES && executor.getState() != BuildExecutor.BuildState.FINISHED; i++) {
+            executor.runBlocks(256);
+        }
+    }
+
+    private static void assertMatches(InMemoryBlockSink sink, SchematicPlacement placement) {
+        for (BuildLayer layer : schematic.getLayers()) {
+            for (BlockEntry entry : layer.getBlocks()) {
+                BlockPos pos = placement.toWorldPos(entry);
+                BlockState expected = placement.rotateBlockState(entry.getBlockState());
+                assertEquals(expected, sink.getBlockState(pos), () -> "Block at " + pos.toShortString());
+            }
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.builderbot.render;
+
+import com.builderbot.schematic.BlockEntry;
+import com.builderbot.schematic.BuildLayer;
+import com.builderbot.schematic.TutorialSchematic;
+import net.minecraft.client.render.VertexConsumer;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Face culling of the preview mesh, with the dense bitset and the sparse hash set.
+ */
+class PreviewMeshBuilderTest {
+
+    @Test
+    void solidCubeKeepsOnlyItsShell() {
+        for (int n : new int[]{1, 2, 5, 16}) {
+            TutorialSchematic schematic = new TutorialSchematic();
+            BuildLayer layer = new BuildLayer(0);
+            addBox(layer, 0, 0, 0, n, n, n);
+            schematic.addLayer(layer);
+
+            CountingConsumer buffer = new CountingConsumer();
+            PreviewMeshBuilder.Result result = PreviewMeshBuilder.build(schematic, buffer, 1.0f);
+
+            assertEquals(n * n * n, result.getBlocks());
+            assertEquals(6 * n * n, result.getFacesAfter(), "n = " + n);
+            assertEquals(result.getVertexCount(), buffer.vertices);
+        }
+    }
+
+    @Test
+    void cullsFacesBetweenLayers() {
+        // Two 4x4 slabs on top of each other, one per layer
+        TutorialSchematic schematic = new TutorialSchematic();
+        BuildLayer bottom = new BuildLayer(0);
+        addBox(bottom, 0, 0, 0, 4, 1, 4);
+        BuildLayer top = new BuildLayer(1);
+        addBox(top, 0, 1, 0, 4, 1, 4);
+        schematic.addLayer(bottom);
+        schematic.addLayer(top);
+
+        PreviewMeshBuilder.Result result = PreviewMeshBuilder.build(schematic, new CountingConsumer(), 1.0f);
+
+        // Same as one 4x2x4 box: 16 faces each on top and bottom, 8 on each side
+        assertEquals(32, result.getBlocks());
+        assertEquals(2 * 16 + 4 * 8, result.getFacesAfter());
+    }
+
+    @Test
+    void sparseOccupancyGivesTheSameFaces() {
+        Random random = new Random(42L);
+        TutorialSchematic schematic = new TutorialSchematic();
+        BuildLayer solid = new BuildLayer(0);
+        addBox(solid, -3, 0, 5, 6, 4, 3);
+        BuildLayer scattered = new BuildLayer(1);
+        for (int i = 0; i < 500; i++) {
+            scattered.addBlock(new BlockEntry(random.nextInt(20) - 10, random.nextInt(8), random.nextInt(20),
+                    "minecraft:stone", "{}"));
+        }
+        schematic.addLayer(solid);
+        schematic.addLayer(scattered);
+
+        assertTrue(PreviewMeshBuilder.Occupancy.of(schematic.getLayers(), Long.MAX_VALUE).isDense());
+        assertFalse(PreviewMeshBuilder.Occupancy.of(schematic.getLayers(), 0).isDense());
+
+        CountingConsumer denseBuffer = new CountingConsumer();
+        CountingConsumer sparseBuffer = new CountingConsumer();
+        PreviewMeshBuilder.Result dense = PreviewMeshBuilder.build(schematic, denseBuffer, 1.0f, Long.MAX_VALUE);
+        PreviewMeshBuilder.Result sparse = PreviewMeshBuilder.build(schematic, sparseBuffer, 1.0f, 0);
+
+        assertEquals(dense.getBlocks(), sparse.getBlocks());
+        assertEquals(dense.getFacesAfter(), sparse.getFacesAfter());
+        assertEquals(denseBuffer.vertices, sparseBuffer.vertices);
+        assertTrue(dense.getFacesAfter() < dense.getFacesBefore());
+    }
+
+    private static void addBox(BuildLayer layer, int x0, int y0, int z0, int sizeX, int sizeY, int sizeZ) {
+        for (int y = y0; y < y0 + sizeY; y++) {
+            for (int z = z0; z < z0 + sizeZ; z++) {
+                for (int x = x0; x < x0 + sizeX; x++) {
+                    layer.addBlock(new BlockEntry(x, y, z, "minecraft:stone", "{}"));
+                }
+            }
+        }
+    }
+
+    /**
+     * Counts vertices and drops everything else.
+     */
+    private static class CountingConsumer implements VertexConsumer {
+        int vertices;
+
+        @Override
+        public VertexConsumer vertex(float x, float y, float z) {
+            vertices++;
+            return this;
+        }
+
+        @Override
+        public VertexConsumer color(int red, int green, int blue, int alpha) {
+            return this;
+        }
+
+        @Override
+        public VertexConsumer texture(float u, float v) {
+            return this;
+        }
+
+        @Override
+        public VertexConsumer overlay(int u, int v) {
+            return this;
+        }
+
+        @Override
+        public VertexConsumer light(int u, int v) {
+            return this;
+        }
+
+        @Override
+        public VertexConsumer normal(float x, float y, float z) {
+            return this;
+        }
+    }
+}